@@ -0,0 +1,127 @@
+package org.stanford.ncbo.oapiwrapper;
+
+import org.semanticweb.owlapi.model.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Collects the annotation assertions that the parser derives for BioPortal (notations, prefix IRIs,
+ * tree views, OBO relations and version subjects) as triples of term ids, instead of as axiom objects.
+ * <p>
+ * Each triple takes a long packing the subject and object ids and an int for the property id, the
+ * strings themselves are kept once in a {@link TermDictionary}. The triples are turned into axioms
+ * only when they are added to the target ontology, in batches, so that they are never held twice.
+ * Values other than IRIs and plain string literals are rare and kept as axioms.
+ */
+public class AnnotationTripleBuffer {
+	private final static Logger log = LoggerFactory.getLogger(AnnotationTripleBuffer.class.getName());
+
+	/** Set on the property word when the object is a string literal rather than an IRI. */
+	private static final int LITERAL_OBJECT = 1 << 31;
+
+	private final TermDictionary dictionary = new TermDictionary();
+	private long[] subjectsAndObjects = new long[1024];
+	private int[] properties = new int[1024];
+	private int size = 0;
+	private final List<OWLAnnotationAssertionAxiom> otherAxioms = new ArrayList<OWLAnnotationAssertionAxiom>();
+
+	public void add(OWLAnnotationProperty property, IRI subject, IRI object) {
+		add(dictionary.intern(property.getIRI().toString()), dictionary.intern(subject.toString()),
+				dictionary.intern(object.toString()));
+	}
+
+	public void add(OWLAnnotationProperty property, IRI subject, String literal) {
+		add(dictionary.intern(property.getIRI().toString()) | LITERAL_OBJECT, dictionary.intern(subject.toString()),
+				dictionary.intern(literal));
+	}
+
+	public void add(OWLAnnotationAssertionAxiom axiom) {
+		OWLAnnotationValue value = axiom.getValue();
+		if (!axiom.getAnnotations().isEmpty() || !axiom.getSubject().isIRI()) {
+			otherAxioms.add(axiom);
+		} else if (value instanceof IRI) {
+			add(axiom.getProperty(), (IRI) axiom.getSubject(), (IRI) value);
+		} else if (value instanceof OWLLiteral && isPlainString((OWLLiteral) value)) {
+			add(axiom.getProperty(), (IRI) axiom.getSubject(), ((OWLLiteral) value).getLiteral());
+		} else {
+			otherAxioms.add(axiom);
+		}
+	}
+
+	private void add(int property, int subject, int object) {
+		if (size == properties.length) {
+			subjectsAndObjects = Arrays.copyOf(subjectsAndObjects, size * 2);
+			properties = Arrays.copyOf(properties, size * 2);
+		}
+		subjectsAndObjects[size] = ((long) subject << 32) | (object & 0xFFFFFFFFL);
+		properties[size] = property;
+		size++;
+	}
+
+	/**
+	 * Returns the triples kept as axioms, those with values other than IRIs and plain string literals.
+	 */
+	public List<OWLAnnotationAssertionAxiom> getOtherAxioms() {
+		return otherAxioms;
+	}
+
+	public int size() {
+		return size + otherAxioms.size();
+	}
+
+	/**
+	 * Adds the buffered triples to an ontology as annotation assertion axioms.
+	 */
+	public void addTo(OWLOntologyManager manager, OWLOntology ontology) {
+		OWLDataFactory factory = manager.getOWLDataFactory();
+		IRI[] iris = new IRI[dictionary.size()];
+		OWLAnnotationProperty[] annotationProperties = new OWLAnnotationProperty[dictionary.size()];
+		Set<OWLAxiom> batch = new HashSet<OWLAxiom>();
+
+		for (int i = 0; i < size; i++) {
+			int property = properties[i] & ~LITERAL_OBJECT;
+			int subject = (int) (subjectsAndObjects[i] >>> 32);
+			int object = (int) subjectsAndObjects[i];
+
+			if (annotationProperties[property] == null) {
+				annotationProperties[property] = VocabularyCache.getAnnotationProperty(factory, dictionary.get(property));
+			}
+			OWLAnnotationValue value;
+			if ((properties[i] & LITERAL_OBJECT) != 0) {
+				value = VocabularyCache.getLiteral(factory, dictionary.get(object));
+			} else {
+				value = iri(iris, object);
+			}
+			batch.add(factory.getOWLAnnotationAssertionAxiom(annotationProperties[property], iri(iris, subject), value));
+
+			if (batch.size() == OntologyParserConstants.AXIOM_BATCH_SIZE) {
+				manager.addAxioms(ontology, batch);
+				batch.clear();
+			}
+		}
+		batch.addAll(otherAxioms);
+		manager.addAxioms(ontology, batch);
+		log.info("Added {} derived annotation triples over {} terms ({} bytes off heap)",
+				size(), dictionary.size(), dictionary.getOffHeapBytes());
+	}
+
+	/**
+	 * Decodes each IRI once, so that all the axioms mentioning it share the same instance.
+	 */
+	private IRI iri(IRI[] iris, int id) {
+		if (iris[id] == null) {
+			iris[id] = IRI.create(dictionary.get(id));
+		}
+		return iris[id];
+	}
+
+	private static boolean isPlainString(OWLLiteral literal) {
+		return !literal.hasLang() && literal.getDatatype().isString();
+	}
+}
@@ -0,0 +1,140 @@
+package org.stanford.ncbo.oapiwrapper;
+
+import org.semanticweb.owlapi.io.OWLOntologyDocumentSource;
+import org.semanticweb.owlapi.model.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+
+/**
+ * Resolves imports to the documents of a submission archive or input folder, so that imported
+ * ontologies are read directly from the submission instead of from an extracted copy or from the web.
+ * <p>
+ * Ontology and version IRIs are taken from the document headers where they can be read (RDF/XML and
+ * OWL/XML), after decompressing compressed documents. Other imports are matched on the file name at
+ * the end of the imported IRI, with or without the compression suffix of the document.
+ * <p>
+ * The owlapi only decompresses documents it reads from plain files, so the mapper also
+ * {@link #register registers} ontology factories that load the compressed documents it maps to
+ * through a {@link PathDocumentSource}.
+ */
+public class ArchiveIRIMapper implements OWLOntologyIRIMapper {
+	private static final long serialVersionUID = 1L;
+
+	private final static Logger log = LoggerFactory.getLogger(ArchiveIRIMapper.class.getName());
+
+	private final Map<IRI, IRI> ontologyIRIs = new HashMap<IRI, IRI>();
+	private final Map<String, IRI> fileNames = new HashMap<String, IRI>();
+	private final transient Map<IRI, Path> compressedDocuments = new HashMap<IRI, Path>();
+
+	public ArchiveIRIMapper(Collection<Path> documents) {
+		for (Path document : documents) {
+			IRI documentIRI = IRI.create(document.toUri());
+			String fileName = document.getFileName().toString();
+			fileNames.put(fileName, documentIRI);
+			fileNames.putIfAbsent(InputCompression.stripSuffix(fileName), documentIRI);
+			if (InputCompression.fromFileName(fileName) != InputCompression.NONE) {
+				compressedDocuments.put(documentIRI, document);
+			}
+
+			try (InputStream in = InputCompression.open(document)) {
+				OntologyDocumentHeader header = OntologyDocumentHeader.read(in);
+				if (header != null) {
+					ontologyIRIs.put(IRI.create(header.getOntologyIRI()), documentIRI);
+					if (header.getVersionIRI() != null) {
+						ontologyIRIs.put(IRI.create(header.getVersionIRI()), documentIRI);
+					}
+				}
+			} catch (IOException e) {
+				log.warn("Cannot read ontology header of {}: {}", document, e.getMessage());
+			}
+		}
+	}
+
+	@Override
+	public IRI getDocumentIRI(IRI ontologyIRI) {
+		IRI documentIRI = ontologyIRIs.get(ontologyIRI);
+		if (documentIRI == null) {
+			String path = ontologyIRI.toURI().getPath();
+			if (path != null && !path.isEmpty()) {
+				documentIRI = fileNames.get(path.substring(path.lastIndexOf('/') + 1));
+			}
+		}
+		if (documentIRI != null) {
+			log.debug("Mapped {} to {}", ontologyIRI, documentIRI);
+		}
+		return documentIRI;
+	}
+
+	/**
+	 * Adds the mapper to the manager, and wraps its ontology factories so that the compressed
+	 * documents are decompressed as they are loaded.
+	 */
+	public void register(OWLOntologyManager manager) {
+		manager.getIRIMappers().add(this);
+		if (compressedDocuments.isEmpty()) {
+			return;
+		}
+		List<OWLOntologyFactory> factories = new ArrayList<OWLOntologyFactory>();
+		for (OWLOntologyFactory factory : manager.getOntologyFactories()) {
+			factories.add(new DecompressingOntologyFactory(factory));
+		}
+		manager.getOntologyFactories().set(factories);
+	}
+
+	/**
+	 * Loads a compressed document of the submission from its path instead of its document IRI.
+	 */
+	private class DecompressingOntologyFactory implements OWLOntologyFactory {
+		private static final long serialVersionUID = 1L;
+
+		private final OWLOntologyFactory factory;
+
+		DecompressingOntologyFactory(OWLOntologyFactory factory) {
+			this.factory = factory;
+		}
+
+		@Override
+		public OWLOntology createOWLOntology(OWLOntologyManager manager, OWLOntologyID ontologyID, IRI documentIRI,
+				OWLOntologyCreationHandler handler) throws OWLOntologyCreationException {
+			return factory.createOWLOntology(manager, ontologyID, documentIRI, handler);
+		}
+
+		@Override
+		public OWLOntology loadOWLOntology(OWLOntologyManager manager, OWLOntologyDocumentSource documentSource,
+				OWLOntologyCreationHandler handler, OWLOntologyLoaderConfiguration configuration)
+				throws OWLOntologyCreationException {
+			Path document = compressedDocuments.get(documentSource.getDocumentIRI());
+			if (document != null && !(documentSource instanceof PathDocumentSource)) {
+				log.debug("Decompressing {}", document);
+				documentSource = new PathDocumentSource(document,
+						documentSource.isFormatKnown() ? documentSource.getFormat() : null);
+			}
+			return factory.loadOWLOntology(manager, documentSource, handler, configuration);
+		}
+
+		@Override
+		public boolean canCreateFromDocumentIRI(IRI documentIRI) {
+			return factory.canCreateFromDocumentIRI(documentIRI);
+		}
+
+		@Override
+		public boolean canLoad(OWLOntologyDocumentSource documentSource) {
+			return factory.canLoad(documentSource);
+		}
+
+		@Override
+		public void setLock(ReadWriteLock lock) {
+			factory.setLock(lock);
+		}
+	}
+}
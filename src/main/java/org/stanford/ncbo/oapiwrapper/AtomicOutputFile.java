@@ -0,0 +1,159 @@
+package org.stanford.ncbo.oapiwrapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An output file in the output repository that is written to a temporary file next to it and only
+ * published under its real name once it is complete.
+ * <p>
+ * Data goes through a large buffer straight to a {@link FileChannel}. {@link #commit()} forces the
+ * channel to disk once and renames the temporary file over the target, so readers either see the
+ * previous file or the complete new one, never a torn write. Closing without a commit publishes the
+ * partial data as <code>&lt;name&gt;.incomplete</code> instead.
+ */
+public class AtomicOutputFile implements Closeable {
+	private final static Logger log = LoggerFactory.getLogger(AtomicOutputFile.class.getName());
+
+	private final Path target;
+	private final Path temp;
+	private final FileChannel channel;
+	private final ChannelOutputStream outputStream;
+	private boolean closed = false;
+
+	public AtomicOutputFile(File target) throws IOException {
+		this.target = target.toPath().toAbsolutePath();
+		// Not Files.createTempFile, which would publish the file with owner-only permissions
+		this.temp = this.target.resolveSibling("." + target.getName() + "." + System.nanoTime() + ".tmp");
+		this.channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW);
+		this.outputStream = new ChannelOutputStream(channel, OntologyParserConstants.OUTPUT_BUFFER_SIZE);
+	}
+
+	public File getFile() {
+		return target.toFile();
+	}
+
+	/**
+	 * Returns the buffered stream for the file contents. Closing the stream flushes it but leaves
+	 * the file open for {@link #commit()}.
+	 */
+	public OutputStream getOutputStream() {
+		return outputStream;
+	}
+
+	/**
+	 * Returns a UTF-8 writer on top of {@link #getOutputStream()}.
+	 */
+	public Writer getWriter() {
+		return new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Flushes and syncs the contents, then atomically replaces the target file with them.
+	 */
+	public void commit() throws IOException {
+		if (closed) {
+			throw new IOException("Output file already closed: " + target);
+		}
+		closed = true;
+		try {
+			outputStream.flush();
+			channel.force(true);
+		} finally {
+			channel.close();
+		}
+		move(temp, target);
+	}
+
+	/**
+	 * Discards an uncommitted file. Whatever was written so far is kept as
+	 * <code>&lt;name&gt;.incomplete</code> to help diagnose the failure.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			outputStream.flush();
+		} finally {
+			channel.close();
+		}
+		Path incomplete = target.resolveSibling(target.getFileName() + OntologyParserConstants.INCOMPLETE_FILE_SUFFIX);
+		log.warn("Output file {} was not completed, keeping partial data in {}", target.getFileName(), incomplete.getFileName());
+		move(temp, incomplete);
+	}
+
+	private static void move(Path source, Path destination) throws IOException {
+		try {
+			Files.move(source, destination, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(source, destination, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * Buffers writes in a direct byte buffer and drains it to the channel when full.
+	 */
+	private static class ChannelOutputStream extends OutputStream {
+		private final FileChannel channel;
+		private final ByteBuffer buffer;
+
+		ChannelOutputStream(FileChannel channel, int bufferSize) {
+			this.channel = channel;
+			this.buffer = ByteBuffer.allocateDirect(bufferSize);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			if (!buffer.hasRemaining()) {
+				drain();
+			}
+			buffer.put((byte) b);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			while (len > 0) {
+				if (!buffer.hasRemaining()) {
+					drain();
+				}
+				int chunk = Math.min(len, buffer.remaining());
+				buffer.put(b, off, chunk);
+				off += chunk;
+				len -= chunk;
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			if (channel.isOpen()) {
+				drain();
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			flush();
+		}
+
+		private void drain() throws IOException {
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			buffer.clear();
+		}
+	}
+}
@@ -0,0 +1,146 @@
+package org.stanford.ncbo.oapiwrapper;
+
+import org.semanticweb.owlapi.model.OWLAxiom;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A set of axioms with open addressing over axiom fingerprints, used to gather the axioms of all the
+ * source ontologies before they are added to the target ontology.
+ * <p>
+ * The fingerprint packs the axiom type and the hash code that the OWL API caches on every axiom, so
+ * looking up an axiom neither walks its structure nor allocates a map entry. Axioms are compared with
+ * {@link Object#equals(Object)} only when their fingerprints collide. Axioms cannot be removed.
+ */
+public class AxiomFingerprintSet extends AbstractSet<OWLAxiom> {
+	private long[] fingerprints;
+	private OWLAxiom[] axioms;
+	private int size = 0;
+	private long equalityChecks = 0;
+
+	/**
+	 * Creates a set sized to hold the expected number of axioms without growing.
+	 */
+	public AxiomFingerprintSet(int expectedSize) {
+		long minimum = Math.max(expectedSize, 8) * 4L / 3 + 1;
+		int capacity = (int) Math.min(Long.highestOneBit(minimum - 1) << 1, 1 << 30);
+		fingerprints = new long[capacity];
+		axioms = new OWLAxiom[capacity];
+	}
+
+	@Override
+	public boolean add(OWLAxiom axiom) {
+		long fingerprint = fingerprint(axiom);
+		int mask = axioms.length - 1;
+		int slot = mix(fingerprint) & mask;
+		while (axioms[slot] != null) {
+			if (fingerprints[slot] == fingerprint && isEqual(axioms[slot], axiom)) {
+				return false;
+			}
+			slot = (slot + 1) & mask;
+		}
+		fingerprints[slot] = fingerprint;
+		axioms[slot] = axiom;
+		size++;
+		if (size * 4 > axioms.length * 3) {
+			grow();
+		}
+		return true;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		if (!(o instanceof OWLAxiom)) {
+			return false;
+		}
+		OWLAxiom axiom = (OWLAxiom) o;
+		long fingerprint = fingerprint(axiom);
+		int mask = axioms.length - 1;
+		int slot = mix(fingerprint) & mask;
+		while (axioms[slot] != null) {
+			if (fingerprints[slot] == fingerprint && isEqual(axioms[slot], axiom)) {
+				return true;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return false;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the number of times two axioms had to be compared because their fingerprints matched.
+	 */
+	public long getEqualityChecks() {
+		return equalityChecks;
+	}
+
+	@Override
+	public Iterator<OWLAxiom> iterator() {
+		return new Iterator<OWLAxiom>() {
+			private int slot = advance(0);
+
+			private int advance(int from) {
+				while (from < axioms.length && axioms[from] == null) {
+					from++;
+				}
+				return from;
+			}
+
+			@Override
+			public boolean hasNext() {
+				return slot < axioms.length;
+			}
+
+			@Override
+			public OWLAxiom next() {
+				if (slot >= axioms.length) {
+					throw new NoSuchElementException();
+				}
+				OWLAxiom axiom = axioms[slot];
+				slot = advance(slot + 1);
+				return axiom;
+			}
+		};
+	}
+
+	private boolean isEqual(OWLAxiom stored, OWLAxiom axiom) {
+		if (stored == axiom) {
+			return true;
+		}
+		equalityChecks++;
+		return stored.equals(axiom);
+	}
+
+	private void grow() {
+		long[] oldFingerprints = fingerprints;
+		OWLAxiom[] oldAxioms = axioms;
+		fingerprints = new long[oldAxioms.length * 2];
+		axioms = new OWLAxiom[oldAxioms.length * 2];
+		int mask = axioms.length - 1;
+		for (int i = 0; i < oldAxioms.length; i++) {
+			if (oldAxioms[i] != null) {
+				int slot = mix(oldFingerprints[i]) & mask;
+				while (axioms[slot] != null) {
+					slot = (slot + 1) & mask;
+				}
+				fingerprints[slot] = oldFingerprints[i];
+				axioms[slot] = oldAxioms[i];
+			}
+		}
+	}
+
+	private static long fingerprint(OWLAxiom axiom) {
+		return ((long) axiom.getAxiomType().getIndex() << 32) | (axiom.hashCode() & 0xFFFFFFFFL);
+	}
+
+	private static int mix(long fingerprint) {
+		long h = fingerprint * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+}
@@ -0,0 +1,183 @@
+package org.stanford.ncbo.oapiwrapper;
+
+import org.apache.commons.io.IOUtils;
+import org.semanticweb.owlapi.io.OWLOntologyDocumentSource;
+import org.semanticweb.owlapi.io.OWLParserException;
+import org.semanticweb.owlapi.model.IRI;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.function.BiFunction;
+
+/**
+ * An ontology document held in memory, to be divided in chunks that are parsed concurrently by the
+ * parallel parsers. Local uncompressed documents are memory-mapped, other documents are read in a
+ * buffer, re-encoded as UTF-8 if the document source only provides a reader.
+ */
+public class ChunkedDocument {
+	private final ByteBuffer buffer;
+
+	private ChunkedDocument(ByteBuffer buffer) {
+		this.buffer = buffer;
+	}
+
+	public static ChunkedDocument read(OWLOntologyDocumentSource documentSource) throws IOException {
+		Path path = toLocalPath(documentSource.getDocumentIRI());
+		if (path != null && InputCompression.fromFileName(path.getFileName().toString()) == InputCompression.NONE) {
+			try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+				if (channel.size() > Integer.MAX_VALUE) {
+					throw new OWLParserException("Document too large to be mapped: " + path);
+				}
+				return new ChunkedDocument(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+			}
+		}
+		InputStream in;
+		if (documentSource.isInputStreamAvailable()) {
+			in = documentSource.getInputStream();
+		} else if (documentSource.isReaderAvailable()) {
+			// Documents held in memory, such as streams buffered by the owlapi
+			try (Reader reader = documentSource.getReader()) {
+				return new ChunkedDocument(ByteBuffer.wrap(IOUtils.toString(reader).getBytes(StandardCharsets.UTF_8)));
+			}
+		} else if (path != null) {
+			in = InputCompression.open(path);
+		} else {
+			throw new OWLParserException("Document cannot be read locally: " + documentSource.getDocumentIRI());
+		}
+		try {
+			return new ChunkedDocument(ByteBuffer.wrap(IOUtils.toByteArray(in)));
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Returns the local file of a document, or null if it is not a regular file.
+	 */
+	public static Path toLocalPath(IRI documentIRI) {
+		if (documentIRI == null || !"file".equals(documentIRI.getScheme())) {
+			return null;
+		}
+		try {
+			Path path = Paths.get(URI.create(documentIRI.toString()));
+			return Files.isRegularFile(path) ? path : null;
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	public int length() {
+		return buffer.limit();
+	}
+
+	public byte get(int offset) {
+		return buffer.get(offset);
+	}
+
+	/**
+	 * Decodes a part of the document as UTF-8, like the readers of the owlapi document sources.
+	 */
+	public String decode(int start, int end) {
+		ByteBuffer slice = buffer.duplicate();
+		slice.position(start);
+		slice.limit(end);
+		return StandardCharsets.UTF_8.decode(slice).toString();
+	}
+
+	/**
+	 * Divides the document from an offset in chunks of about the chunk size, each ending where
+	 * <code>boundary</code> accepts the next offset or at the end of the document.
+	 */
+	public List<int[]> split(int start, int chunkSize, Boundary boundary) {
+		List<int[]> chunks = new ArrayList<int[]>();
+		int limit = length();
+		while (start < limit) {
+			int end = (int) Math.min((long) start + chunkSize, limit);
+			while (end < limit && !boundary.accept(this, end)) {
+				end++;
+			}
+			chunks.add(new int[] { start, end });
+			start = end;
+		}
+		return chunks;
+	}
+
+	public interface Boundary {
+		boolean accept(ChunkedDocument document, int offset);
+	}
+
+	/**
+	 * Parses the chunks on the executor, a bounded number of chunks ahead of the caller, and returns
+	 * the results in document order as they are iterated. The caller parses a chunk itself if no
+	 * worker has started it when it is needed, so that a parse started from the executor cannot
+	 * starve it. A chunk that fails to parse throws an {@link OWLParserException} when it is reached.
+	 */
+	public <T> Iterator<T> parse(List<int[]> chunks, BiFunction<ChunkedDocument, int[], T> parser, ExecutorService executor) {
+		int window = Runtime.getRuntime().availableProcessors() * 2;
+		List<FutureTask<T>> tasks = new ArrayList<FutureTask<T>>();
+		for (int[] chunk : chunks) {
+			tasks.add(new FutureTask<T>(() -> parser.apply(this, chunk)));
+		}
+		for (int i = 1; i < Math.min(window, tasks.size()); i++) {
+			executor.execute(tasks.get(i));
+		}
+
+		return new Iterator<T>() {
+			private int next = 0;
+
+			@Override
+			public boolean hasNext() {
+				return next < tasks.size();
+			}
+
+			@Override
+			public T next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				FutureTask<T> task = tasks.get(next);
+				tasks.set(next, null);
+				if (next + window < tasks.size()) {
+					executor.execute(tasks.get(next + window));
+				}
+				next++;
+				task.run();
+				try {
+					return task.get();
+				} catch (ExecutionException e) {
+					for (int i = next; i < tasks.size(); i++) {
+						if (tasks.get(i) != null) {
+							tasks.get(i).cancel(false);
+						}
+					}
+					if (e.getCause() instanceof Error) {
+						throw (Error) e.getCause();
+					}
+					if (e.getCause() instanceof OWLParserException) {
+						throw (OWLParserException) e.getCause();
+					}
+					throw new OWLParserException(e.getCause());
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new OWLParserException(e);
+				}
+			}
+		};
+	}
+}
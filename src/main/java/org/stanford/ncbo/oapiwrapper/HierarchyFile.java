@@ -0,0 +1,402 @@
+package org.stanford.ncbo.oapiwrapper;
+
+import org.semanticweb.owlapi.model.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A precomputed class hierarchy of the target ontology, written once during the parse and read from
+ * a memory-mapped file, so that tree and ancestor queries need no transitive queries over the
+ * subclass triples.
+ * <p>
+ * Classes are numbered in the order of their IRIs. The file is big-endian and made of consecutive
+ * sections:
+ * <ul>
+ * <li>a header: the magic number <code>OWHI</code>, the format version, the number of classes and of
+ * roots, the number of child entries, the size of the IRI bytes and of the ancestor bytes</li>
+ * <li>the IRI dictionary: <code>classCount + 1</code> long offsets into the UTF-8 IRI bytes that follow</li>
+ * <li>the ids of the roots</li>
+ * <li>the direct children: <code>classCount + 1</code> long offsets into the sorted child ids that follow</li>
+ * <li>the number of descendants of every class</li>
+ * <li>the ancestor closure: <code>classCount + 1</code> long offsets into the bytes that follow, where
+ * the sorted ancestor ids of every class are delta-encoded as unsigned variable-length integers</li>
+ * </ul>
+ * The hierarchy is made of the subclass axioms between named classes, and for OBO ontologies of the
+ * treeView annotations too, after the inferred hierarchy is added and deprecated branches are removed.
+ * The roots are the subclasses of owl:Thing, or the classes without parents if the inferred hierarchy
+ * was skipped. The file is not compressed, so that it can be mapped, and is limited to 2 GB.
+ */
+public class HierarchyFile {
+	private final static Logger log = LoggerFactory.getLogger(HierarchyFile.class.getName());
+
+	private static final int MAGIC = 0x4F574849;
+
+	private static final int VERSION = 1;
+
+	private static final int HEADER_SIZE = 4 * 4 + 3 * 8;
+
+	private static final IRI TREE_VIEW = IRI.create("http://data.bioontology.org/metadata/treeView");
+
+	private final ByteBuffer buffer;
+	private final int classCount;
+	private final int rootCount;
+	private final int iriOffsets;
+	private final int iris;
+	private final int roots;
+	private final int childOffsets;
+	private final int children;
+	private final int descendantCounts;
+	private final int ancestorOffsets;
+	private final int ancestors;
+
+	private HierarchyFile(ByteBuffer buffer) throws IOException {
+		this.buffer = buffer;
+		if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+			throw new IOException("Not a hierarchy file");
+		}
+		this.classCount = buffer.getInt(8);
+		this.rootCount = buffer.getInt(12);
+		long childCount = buffer.getLong(16);
+		long iriBytes = buffer.getLong(24);
+		this.iriOffsets = HEADER_SIZE;
+		this.iris = iriOffsets + (classCount + 1) * 8;
+		this.roots = (int) (iris + iriBytes);
+		this.childOffsets = roots + rootCount * 4;
+		this.children = childOffsets + (classCount + 1) * 8;
+		this.descendantCounts = (int) (children + childCount * 4);
+		this.ancestorOffsets = descendantCounts + classCount * 4;
+		this.ancestors = ancestorOffsets + (classCount + 1) * 8;
+	}
+
+	/**
+	 * Maps a hierarchy file into memory.
+	 */
+	public static HierarchyFile open(File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			return new HierarchyFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	public int getClassCount() {
+		return classCount;
+	}
+
+	public String getIRI(int id) {
+		int start = (int) buffer.getLong(iriOffsets + id * 8);
+		int end = (int) buffer.getLong(iriOffsets + (id + 1) * 8);
+		byte[] bytes = new byte[end - start];
+		ByteBuffer slice = buffer.duplicate();
+		slice.position(iris + start);
+		slice.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Returns the id of a class, or -1 if it is not in the hierarchy.
+	 */
+	public int indexOf(String iri) {
+		int low = 0;
+		int high = classCount - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int cmp = getIRI(mid).compareTo(iri);
+			if (cmp < 0) {
+				low = mid + 1;
+			} else if (cmp > 0) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -1;
+	}
+
+	public int[] getRoots() {
+		return getInts(roots, rootCount);
+	}
+
+	public int[] getChildren(int id) {
+		long start = buffer.getLong(childOffsets + id * 8);
+		long end = buffer.getLong(childOffsets + (id + 1) * 8);
+		return getInts((int) (children + start * 4), (int) (end - start));
+	}
+
+	/**
+	 * Returns the number of distinct classes below a class.
+	 */
+	public int getDescendantCount(int id) {
+		return buffer.getInt(descendantCounts + id * 4);
+	}
+
+	/**
+	 * Returns the ids of all the classes above a class, in ascending order.
+	 */
+	public int[] getAncestors(int id) {
+		int position = (int) (ancestors + buffer.getLong(ancestorOffsets + id * 8));
+		int end = (int) (ancestors + buffer.getLong(ancestorOffsets + (id + 1) * 8));
+		int[] values = new int[8];
+		int size = 0;
+		int previous = -1;
+		while (position < end) {
+			int delta = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = buffer.get(position++);
+				delta |= (b & 0x7F) << shift;
+				shift += 7;
+			} while (b < 0);
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			previous += delta;
+			values[size++] = previous;
+		}
+		return Arrays.copyOf(values, size);
+	}
+
+	private int[] getInts(int position, int count) {
+		int[] values = new int[count];
+		for (int i = 0; i < count; i++) {
+			values[i] = buffer.getInt(position + i * 4);
+		}
+		return values;
+	}
+
+	/**
+	 * Computes the hierarchy of an ontology and writes it, replacing the file atomically.
+	 *
+	 * @param treeView	whether the treeView annotations are hierarchy edges, as for OBO ontologies
+	 * @return	the number of classes written
+	 */
+	public static int write(OWLOntology ontology, boolean treeView, File file) throws IOException {
+		List<OWLClass> classList = new ArrayList<OWLClass>();
+		for (OWLClass cls : ontology.getClassesInSignature()) {
+			if (!cls.isBuiltIn()) {
+				classList.add(cls);
+			}
+		}
+		classList.sort(Comparator.comparing(cls -> cls.getIRI().toString()));
+		int classCount = classList.size();
+		Map<IRI, Integer> ids = new HashMap<IRI, Integer>(classCount * 2);
+		for (int i = 0; i < classCount; i++) {
+			ids.put(classList.get(i).getIRI(), i);
+		}
+
+		// Edges packed as child << 32 | parent
+		long[] edges = new long[1024];
+		int edgeCount = 0;
+		List<Integer> thingChildren = new ArrayList<Integer>();
+		for (OWLSubClassOfAxiom axiom : ontology.getAxioms(AxiomType.SUBCLASS_OF)) {
+			if (axiom.getSubClass().isAnonymous() || axiom.getSuperClass().isAnonymous()) {
+				continue;
+			}
+			Integer child = ids.get(axiom.getSubClass().asOWLClass().getIRI());
+			if (child == null) {
+				continue;
+			}
+			if (axiom.getSuperClass().isOWLThing()) {
+				thingChildren.add(child);
+				continue;
+			}
+			Integer parent = ids.get(axiom.getSuperClass().asOWLClass().getIRI());
+			if (parent != null && !parent.equals(child)) {
+				if (edgeCount == edges.length) {
+					edges = Arrays.copyOf(edges, edgeCount * 2);
+				}
+				edges[edgeCount++] = (long) child << 32 | parent;
+			}
+		}
+		if (treeView) {
+			for (OWLAnnotationAssertionAxiom axiom : ontology.getAxioms(AxiomType.ANNOTATION_ASSERTION)) {
+				if (!axiom.getProperty().getIRI().equals(TREE_VIEW) || !axiom.getSubject().isIRI()
+						|| !axiom.getValue().asIRI().isPresent()) {
+					continue;
+				}
+				Integer child = ids.get((IRI) axiom.getSubject());
+				Integer parent = ids.get(axiom.getValue().asIRI().get());
+				if (child != null && parent != null && !parent.equals(child)) {
+					if (edgeCount == edges.length) {
+						edges = Arrays.copyOf(edges, edgeCount * 2);
+					}
+					edges[edgeCount++] = (long) child << 32 | parent;
+				}
+			}
+		}
+		edges = sortedDistinct(edges, edgeCount);
+
+		int[] parentOffsets = new int[classCount + 1];
+		int[] parents = new int[edges.length];
+		int[] childOffsets = new int[classCount + 1];
+		int[] childIds = new int[edges.length];
+		long[] reversed = new long[edges.length];
+		for (int i = 0; i < edges.length; i++) {
+			int child = (int) (edges[i] >>> 32);
+			int parent = (int) edges[i];
+			parents[i] = parent;
+			parentOffsets[child + 1]++;
+			reversed[i] = (long) parent << 32 | child;
+		}
+		Arrays.sort(reversed);
+		for (int i = 0; i < reversed.length; i++) {
+			childIds[i] = (int) reversed[i];
+			childOffsets[(int) (reversed[i] >>> 32) + 1]++;
+		}
+		for (int i = 0; i < classCount; i++) {
+			parentOffsets[i + 1] += parentOffsets[i];
+			childOffsets[i + 1] += childOffsets[i];
+		}
+
+		int[] roots;
+		if (!thingChildren.isEmpty()) {
+			roots = thingChildren.stream().mapToInt(Integer::intValue).distinct().sorted().toArray();
+		} else {
+			roots = new int[classCount];
+			int rootCount = 0;
+			for (int i = 0; i < classCount; i++) {
+				if (parentOffsets[i] == parentOffsets[i + 1]) {
+					roots[rootCount++] = i;
+				}
+			}
+			roots = Arrays.copyOf(roots, rootCount);
+		}
+
+		// Ancestors by a search over the parents of every class, which also copes with cycles
+		int[] descendantCounts = new int[classCount];
+		long[] ancestorOffsets = new long[classCount + 1];
+		VarIntBuffer ancestorBytes = new VarIntBuffer();
+		int[] visited = new int[classCount];
+		int[] queue = new int[classCount];
+		for (int i = 0; i < classCount; i++) {
+			int stamp = i + 1;
+			visited[i] = stamp;
+			int head = 0;
+			int tail = 0;
+			queue[tail++] = i;
+			while (head < tail) {
+				int current = queue[head++];
+				for (int j = parentOffsets[current]; j < parentOffsets[current + 1]; j++) {
+					if (visited[parents[j]] != stamp) {
+						visited[parents[j]] = stamp;
+						queue[tail++] = parents[j];
+					}
+				}
+			}
+			Arrays.sort(queue, 1, tail);
+			int previous = -1;
+			for (int j = 1; j < tail; j++) {
+				ancestorBytes.write(queue[j] - previous);
+				previous = queue[j];
+				descendantCounts[queue[j]]++;
+			}
+			ancestorOffsets[i + 1] = ancestorBytes.size();
+		}
+
+		byte[][] iriBytes = new byte[classCount][];
+		long iriSize = 0;
+		for (int i = 0; i < classCount; i++) {
+			iriBytes[i] = classList.get(i).getIRI().toString().getBytes(StandardCharsets.UTF_8);
+			iriSize += iriBytes[i].length;
+		}
+
+		long fileSize = HEADER_SIZE + (classCount + 1) * 24L + iriSize + roots.length * 4L + childIds.length * 4L
+				+ classCount * 4L + ancestorBytes.size();
+		if (fileSize > Integer.MAX_VALUE) {
+			throw new IOException("Hierarchy file too large: " + fileSize + " bytes");
+		}
+
+		try (AtomicOutputFile outputFile = new AtomicOutputFile(file)) {
+			DataOutputStream out = new DataOutputStream(outputFile.getOutputStream());
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(classCount);
+			out.writeInt(roots.length);
+			out.writeLong(childIds.length);
+			out.writeLong(iriSize);
+			out.writeLong(ancestorBytes.size());
+			long offset = 0;
+			out.writeLong(offset);
+			for (byte[] iri : iriBytes) {
+				offset += iri.length;
+				out.writeLong(offset);
+			}
+			for (byte[] iri : iriBytes) {
+				out.write(iri);
+			}
+			for (int root : roots) {
+				out.writeInt(root);
+			}
+			for (int childOffset : childOffsets) {
+				out.writeLong(childOffset);
+			}
+			for (int child : childIds) {
+				out.writeInt(child);
+			}
+			for (int count : descendantCounts) {
+				out.writeInt(count);
+			}
+			for (long ancestorOffset : ancestorOffsets) {
+				out.writeLong(ancestorOffset);
+			}
+			ancestorBytes.writeTo(out);
+			out.close();
+			outputFile.commit();
+		}
+		log.info("Wrote the hierarchy of {} classes with {} roots, {} edges and {} ancestor bytes to {}",
+				classCount, roots.length, childIds.length, ancestorBytes.size(), file.getName());
+		return classCount;
+	}
+
+	private static long[] sortedDistinct(long[] values, int size) {
+		Arrays.sort(values, 0, size);
+		int distinct = 0;
+		for (int i = 0; i < size; i++) {
+			if (distinct == 0 || values[i] != values[distinct - 1]) {
+				values[distinct++] = values[i];
+			}
+		}
+		return Arrays.copyOf(values, distinct);
+	}
+
+	/**
+	 * A growable array of unsigned variable-length integers, 7 bits per byte with the high bit set
+	 * on all but the last byte.
+	 */
+	private static class VarIntBuffer {
+		private byte[] bytes = new byte[4096];
+		private int size = 0;
+
+		void write(int value) {
+			if (size + 5 > bytes.length) {
+				bytes = Arrays.copyOf(bytes, bytes.length * 2);
+			}
+			while ((value & ~0x7F) != 0) {
+				bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			bytes[size++] = (byte) value;
+		}
+
+		int size() {
+			return size;
+		}
+
+		void writeTo(DataOutputStream out) throws IOException {
+			out.write(bytes, 0, size);
+		}
+	}
+}
@@ -0,0 +1,217 @@
+package org.stanford.ncbo.oapiwrapper;
+
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLOntologyIRIMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Resolves remote imports to a local mirror of the documents previously downloaded for them, so
+ * that repeated parses of ontologies importing BFO, RO, IAO and the like never wait on the network.
+ * <p>
+ * Documents are stored by the SHA-256 of their contents under <code>objects/</code>, and an index
+ * maps every import IRI to the document it resolved to. An import missing from the mirror is
+ * downloaded once, with connect and read timeouts, and added to it. In offline mode, or when the
+ * download fails, the import is mapped to a local document that does not exist, so that it is
+ * reported as a missing import instead of being fetched again by the OWL API without a timeout.
+ * <p>
+ * Only http, https and ftp IRIs are handled; any other import is left to the other mappers.
+ */
+public class ImportMirror implements OWLOntologyIRIMapper {
+	private static final long serialVersionUID = 1L;
+
+	private final static Logger log = LoggerFactory.getLogger(ImportMirror.class.getName());
+
+	private static final String ACCEPT = "application/rdf+xml, application/owl+xml;q=0.9, text/turtle;q=0.8, "
+			+ "text/owl-functional;q=0.7, application/xml;q=0.5, text/plain;q=0.2, */*;q=0.1";
+
+	private final Path folder;
+	private final Path objects;
+	private final boolean offline;
+	private final int timeout;
+	private final Properties index = new Properties();
+	private final Set<IRI> unavailable = new HashSet<IRI>();
+
+	/**
+	 * @param folder	the mirror folder, created if needed
+	 * @param offline	serve imports from the mirror only, never from the network
+	 * @param timeout	the connect and read timeout of downloads, in milliseconds
+	 */
+	public ImportMirror(File folder, boolean offline, int timeout) throws IOException {
+		this.folder = folder.toPath().toAbsolutePath();
+		this.objects = this.folder.resolve(OntologyParserConstants.IMPORT_MIRROR_OBJECTS_FOLDER);
+		this.offline = offline;
+		this.timeout = timeout;
+		Files.createDirectories(objects);
+		readIndex(index);
+		log.info("Import mirror {} holds {} imports{}", this.folder, index.size(), offline ? ", offline" : "");
+	}
+
+	public boolean isOffline() {
+		return offline;
+	}
+
+	/**
+	 * Returns the number of import IRIs the mirror can resolve.
+	 */
+	public synchronized int size() {
+		return index.size();
+	}
+
+	@Override
+	public synchronized IRI getDocumentIRI(IRI ontologyIRI) {
+		String scheme = ontologyIRI.getScheme();
+		if (!"http".equals(scheme) && !"https".equals(scheme) && !"ftp".equals(scheme)) {
+			return null;
+		}
+
+		String hash = index.getProperty(ontologyIRI.toString());
+		if (hash != null && Files.isRegularFile(objects.resolve(hash))) {
+			log.debug("Mapped {} to mirrored document {}", ontologyIRI, hash);
+			return IRI.create(objects.resolve(hash).toUri());
+		}
+
+		if (!offline && !unavailable.contains(ontologyIRI)) {
+			long startTime = System.nanoTime();
+			try {
+				hash = download(ontologyIRI);
+				index.setProperty(ontologyIRI.toString(), hash);
+				writeIndex();
+				long estimatedTime = (System.nanoTime() - startTime) / 1000000;
+				log.info("Mirrored {} in {} milliseconds", ontologyIRI, estimatedTime);
+				return IRI.create(objects.resolve(hash).toUri());
+			} catch (IOException e) {
+				log.warn("Cannot download import {}: {}", ontologyIRI, e.getMessage());
+				unavailable.add(ontologyIRI);
+			}
+		}
+		return IRI.create(objects.resolve(OntologyParserConstants.IMPORT_MIRROR_UNAVAILABLE).toUri());
+	}
+
+	/**
+	 * Downloads a document into the object store and returns the hash it is stored under.
+	 */
+	private String download(IRI ontologyIRI) throws IOException {
+		URLConnection connection = connect(new URL(ontologyIRI.toString()), 0);
+		Path temp = Files.createTempFile(objects, ".download", ".tmp");
+		try {
+			MessageDigest digest = newDigest();
+			InputStream in = connection.getInputStream();
+			if ("gzip".equalsIgnoreCase(connection.getContentEncoding())) {
+				in = new GZIPInputStream(in);
+			}
+			try (InputStream digestIn = new DigestInputStream(in, digest);
+				 OutputStream out = Files.newOutputStream(temp)) {
+				byte[] buffer = new byte[OntologyParserConstants.SNIFF_BUFFER_SIZE];
+				int read;
+				while ((read = digestIn.read(buffer)) != -1) {
+					out.write(buffer, 0, read);
+				}
+			}
+
+			String hash = toHex(digest.digest());
+			Path object = objects.resolve(hash);
+			if (Files.exists(object)) {
+				// Another IRI, such as a version IRI, already resolved to the same document
+				Files.delete(temp);
+			} else {
+				Files.move(temp, object, StandardCopyOption.ATOMIC_MOVE);
+			}
+			return hash;
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	/**
+	 * Opens a connection, following redirects across protocols (such as PURLs redirecting from http
+	 * to https), which {@link HttpURLConnection} does not do by itself.
+	 */
+	private URLConnection connect(URL url, int redirects) throws IOException {
+		URLConnection connection = url.openConnection();
+		connection.setConnectTimeout(timeout);
+		connection.setReadTimeout(timeout);
+		connection.setRequestProperty("Accept", ACCEPT);
+		connection.setRequestProperty("Accept-Encoding", "gzip");
+		if (connection instanceof HttpURLConnection) {
+			HttpURLConnection http = (HttpURLConnection) connection;
+			http.setInstanceFollowRedirects(false);
+			int status = http.getResponseCode();
+			if (status >= 300 && status < 400 && http.getHeaderField("Location") != null) {
+				http.disconnect();
+				if (redirects >= OntologyParserConstants.IMPORT_MAX_REDIRECTS) {
+					throw new IOException("Too many redirects");
+				}
+				return connect(new URL(url, http.getHeaderField("Location")), redirects + 1);
+			} else if (status != HttpURLConnection.HTTP_OK) {
+				http.disconnect();
+				throw new IOException("HTTP status " + status + " from " + url);
+			}
+		}
+		return connection;
+	}
+
+	private void readIndex(Properties properties) throws IOException {
+		Path file = folder.resolve(OntologyParserConstants.IMPORT_MIRROR_INDEX_FILE);
+		if (Files.exists(file)) {
+			try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+				properties.load(reader);
+			}
+		}
+	}
+
+	/**
+	 * Writes the index, keeping the entries added in the meantime by other parses sharing the mirror.
+	 */
+	private void writeIndex() throws IOException {
+		Properties current = new Properties();
+		readIndex(current);
+		for (Map.Entry<Object, Object> entry : current.entrySet()) {
+			index.putIfAbsent(entry.getKey(), entry.getValue());
+		}
+		try (AtomicOutputFile outputFile = new AtomicOutputFile(folder.resolve(OntologyParserConstants.IMPORT_MIRROR_INDEX_FILE).toFile())) {
+			Writer out = outputFile.getWriter();
+			index.store(out, "Import IRI to document hash");
+			out.close();
+			outputFile.commit();
+		}
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String toHex(byte[] bytes) {
+		StringBuilder hex = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes) {
+			hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		}
+		return hex.toString();
+	}
+}
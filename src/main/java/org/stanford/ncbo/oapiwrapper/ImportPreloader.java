@@ -0,0 +1,193 @@
+package org.stanford.ncbo.oapiwrapper;
+
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.*;
+import org.semanticweb.owlapi.model.parameters.OntologyCopy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.LongConsumer;
+
+/**
+ * Loads the local documents imported by a master ontology concurrently, before the master itself is
+ * loaded, so that its imports resolve from memory instead of being parsed one after another.
+ * <p>
+ * The import closure is worked out from the document headers. Every imported document is parsed by
+ * its own worker with a private ontology manager and its imports ignored, then moved into the source
+ * manager. Only documents whose whole import closure is local are preloaded; anything else is left
+ * to the regular import resolution of the master load, so that missing imports are still reported.
+ */
+public class ImportPreloader {
+	private final static Logger log = LoggerFactory.getLogger(ImportPreloader.class.getName());
+
+	private final OWLOntologyManager sourceManager;
+	private final List<OntologyBean> ontologies;
+	private final OWLOntologyLoaderConfiguration configuration;
+	private final ParserExecutors executors;
+	private final LongConsumer loadedAxioms;
+
+	/**
+	 * @param loadedAxioms	receives the axiom count of every ontology moved into the source manager,
+	 * 						whose loader listeners are not notified of the preloaded documents
+	 */
+	public ImportPreloader(OWLOntologyManager sourceManager, List<OntologyBean> ontologies,
+			OWLOntologyLoaderConfiguration configuration, ParserExecutors executors, LongConsumer loadedAxioms) {
+		this.sourceManager = sourceManager;
+		this.ontologies = ontologies;
+		this.configuration = configuration;
+		this.executors = executors;
+		this.loadedAxioms = loadedAxioms;
+	}
+
+	/**
+	 * Preloads the local import closure of the master ontology into the source manager.
+	 *
+	 * @return	the number of ontologies preloaded
+	 */
+	public int preload(OntologyBean master) throws InterruptedException {
+		long startTime = System.nanoTime();
+		Map<OntologyBean, Future<OWLOntology>> futures = new LinkedHashMap<OntologyBean, Future<OWLOntology>>();
+		try {
+			Map<OntologyBean, OntologyDocumentHeader> headers = readHeaders();
+			OntologyDocumentHeader masterHeader = headers.get(master);
+			if (masterHeader == null) {
+				log.info("No ontology header found in master file, imports are not preloaded");
+				return 0;
+			}
+
+			Map<String, OntologyBean> beansByIRI = new HashMap<String, OntologyBean>();
+			for (Map.Entry<OntologyBean, OntologyDocumentHeader> entry : headers.entrySet()) {
+				beansByIRI.put(entry.getValue().getOntologyIRI(), entry.getKey());
+				if (entry.getValue().getVersionIRI() != null) {
+					beansByIRI.put(entry.getValue().getVersionIRI(), entry.getKey());
+				}
+			}
+
+			Set<OntologyBean> closure = findLocalImportClosure(master, headers, beansByIRI);
+			if (closure.isEmpty()) {
+				return 0;
+			}
+
+			for (OntologyBean bean : closure) {
+				final OntologyDocumentHeader header = headers.get(bean);
+				futures.put(bean, executors.getCPUExecutor().submit(() -> load(bean, header)));
+			}
+
+			int preloaded = 0;
+			for (Map.Entry<OntologyBean, Future<OWLOntology>> entry : futures.entrySet()) {
+				try {
+					OWLOntology ontology = entry.getValue().get();
+					sourceManager.copyOntology(ontology, OntologyCopy.MOVE);
+					loadedAxioms.accept(ontology.getAxiomCount());
+					preloaded++;
+				} catch (ExecutionException | OWLOntologyCreationException e) {
+					Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+					log.warn("Cannot preload {}, leaving it to the master load: {}", entry.getKey().getPath(), cause.getMessage());
+				}
+			}
+
+			long estimatedTime = (System.nanoTime() - startTime) / 1000000;
+			log.info("Preloaded {} imported ontologies on {} threads in {} milliseconds", preloaded,
+					executors.getCPUThreads(), estimatedTime);
+			return preloaded;
+		} finally {
+			cancel(futures.values());
+		}
+	}
+
+	private Map<OntologyBean, OntologyDocumentHeader> readHeaders() throws InterruptedException {
+		Map<OntologyBean, Future<OntologyDocumentHeader>> futures = new LinkedHashMap<OntologyBean, Future<OntologyDocumentHeader>>();
+		try {
+			for (OntologyBean bean : ontologies) {
+				futures.put(bean, executors.getIOExecutor().submit(() -> {
+					try (InputStream in = InputCompression.open(bean.getPath())) {
+						return OntologyDocumentHeader.read(in);
+					}
+				}));
+			}
+
+			Map<OntologyBean, OntologyDocumentHeader> headers = new HashMap<OntologyBean, OntologyDocumentHeader>();
+			for (Map.Entry<OntologyBean, Future<OntologyDocumentHeader>> entry : futures.entrySet()) {
+				try {
+					OntologyDocumentHeader header = entry.getValue().get();
+					if (header != null) {
+						headers.put(entry.getKey(), header);
+					}
+				} catch (ExecutionException e) {
+					log.warn("Cannot read ontology header of {}: {}", entry.getKey().getPath(), e.getCause().getMessage());
+				}
+			}
+			return headers;
+		} finally {
+			cancel(futures.values());
+		}
+	}
+
+	/**
+	 * Cancels the tasks left running when the preload is interrupted, since the executors are shared
+	 * with the rest of the parse.
+	 */
+	private static void cancel(Collection<? extends Future<?>> futures) {
+		for (Future<?> future : futures) {
+			future.cancel(true);
+		}
+	}
+
+	/**
+	 * Returns the documents transitively imported by the master whose own import closure can be
+	 * resolved entirely from local documents.
+	 */
+	private Set<OntologyBean> findLocalImportClosure(OntologyBean master, Map<OntologyBean, OntologyDocumentHeader> headers,
+			Map<String, OntologyBean> beansByIRI) {
+		Set<OntologyBean> closure = new LinkedHashSet<OntologyBean>();
+		Set<OntologyBean> remote = new HashSet<OntologyBean>();
+		Deque<OntologyBean> queue = new ArrayDeque<OntologyBean>();
+		queue.add(master);
+		while (!queue.isEmpty()) {
+			OntologyBean bean = queue.poll();
+			for (String imported : headers.get(bean).getImports()) {
+				OntologyBean importedBean = beansByIRI.get(imported);
+				if (importedBean == null) {
+					remote.add(bean);
+				} else if (importedBean != master && closure.add(importedBean)) {
+					queue.add(importedBean);
+				}
+			}
+		}
+
+		// Drop documents that depend, directly or not, on imports that are not available locally
+		boolean changed = !remote.isEmpty();
+		closure.removeAll(remote);
+		while (changed) {
+			changed = false;
+			for (Iterator<OntologyBean> it = closure.iterator(); it.hasNext(); ) {
+				OntologyBean bean = it.next();
+				for (String imported : headers.get(bean).getImports()) {
+					OntologyBean importedBean = beansByIRI.get(imported);
+					if (importedBean != master && !closure.contains(importedBean)) {
+						it.remove();
+						changed = true;
+						break;
+					}
+				}
+			}
+		}
+		return closure;
+	}
+
+	private OWLOntology load(OntologyBean bean, OntologyDocumentHeader header) throws OWLOntologyCreationException, IOException {
+		OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+		manager.getOntologyParsers().set(sourceManager.getOntologyParsers());
+		OWLOntologyLoaderConfiguration conf = configuration;
+		for (String imported : header.getImports()) {
+			conf = conf.addIgnoredImport(IRI.create(imported));
+		}
+		log.debug("Preloading {}", bean.getPath());
+		return OntologyFormatSniffer.load(manager, bean, conf);
+	}
+}
@@ -0,0 +1,153 @@
+package org.stanford.ncbo.oapiwrapper;
+
+import org.apache.commons.io.IOUtils;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Parses ontologies in-process and returns the target ontology and its metrics as objects, without
+ * writing the output and metrics files of the command line.
+ * <p>
+ * Every parse runs its own {@link OntologyParser}, with its own ontology managers, executors and
+ * log, so that one instance may be shared and several parses may run concurrently in one JVM. The
+ * options of the parses are copied from the invocation given to the constructor, which should not
+ * be changed while parses are running.
+ */
+public class InMemoryOntologyParser {
+	private final static Logger log = LoggerFactory.getLogger(InMemoryOntologyParser.class.getName());
+
+	private static final AtomicInteger invocations = new AtomicInteger();
+
+	private final ParserInvocation options;
+
+	public InMemoryOntologyParser() {
+		this(new ParserInvocation(null, null, null, true));
+	}
+
+	/**
+	 * @param options	the parsing options, its folders and master file name are ignored
+	 */
+	public InMemoryOntologyParser(ParserInvocation options) {
+		this.options = options;
+	}
+
+	/**
+	 * Parses a single ontology document, resolving its imports remotely or from the import mirror.
+	 */
+	public Result parse(Path document) {
+		return parse(new ParserInvocation(null, null, document.toString(), options.isUseReasoner()));
+	}
+
+	/**
+	 * Parses the master file of an input repository, a folder or zip archive whose documents its
+	 * imports are resolved to.
+	 */
+	public Result parse(Path inputRepository, String masterFileName) {
+		return parse(new ParserInvocation(inputRepository.toString(), null, masterFileName, options.isUseReasoner()));
+	}
+
+	/**
+	 * Parses an ontology document read from a stream, which is not closed.
+	 *
+	 * @param fileName	the name of the document, whose extension is used to guess its format and
+	 * 					compression, e.g. <code>envo.obo.gz</code>
+	 */
+	public Result parse(InputStream in, String fileName) throws IOException {
+		ParserInvocation invocation = new ParserInvocation(null, null, fileName, options.isUseReasoner());
+		invocation.setMasterDocument(IOUtils.toByteArray(in));
+		return parse(invocation);
+	}
+
+	private Result parse(ParserInvocation invocation) {
+		invocation.copyOptionsFrom(options);
+		invocation.setInvocationId(invocations.incrementAndGet());
+
+		OntologyParser parser;
+		try {
+			parser = new OntologyParser(invocation);
+		} catch (OntologyParserException e) {
+			log.error("Invalid invocation: {}", invocation.getParserLog());
+			return new Result(false, null, invocation);
+		}
+		boolean success = false;
+		try {
+			success = parser.parse();
+		} catch (Exception e) {
+			log.error("Parsing error", e);
+			invocation.getParserLog().addError(ParserError.UNKNOWN, "Error " + e.getMessage());
+		}
+		return new Result(success, parser, invocation);
+	}
+
+	/**
+	 * The outcome of a parse. The source ontologies are not kept, only the target ontology built from
+	 * them.
+	 */
+	public static class Result {
+		private final boolean success;
+		private final OWLOntology ontology;
+		private final OntologyMetrics metrics;
+		private final ParserLog parserLog;
+		private final String oboVersion;
+
+		Result(boolean success, OntologyParser parser, ParserInvocation invocation) {
+			this.success = success;
+			this.ontology = success ? parser.getTargetOntology() : null;
+			this.metrics = parser != null ? parser.getMetrics() : null;
+			this.parserLog = invocation.getParserLog();
+			this.oboVersion = invocation.getOBOVersion();
+		}
+
+		public boolean isSuccess() {
+			return success;
+		}
+
+		/**
+		 * Returns the target ontology, as it would have been serialized, or null if the parse failed.
+		 */
+		public OWLOntology getOntology() {
+			return ontology;
+		}
+
+		/**
+		 * Returns the axioms of the target ontology, none if the parse failed.
+		 */
+		public Iterator<OWLAxiom> axioms() {
+			if (ontology == null) {
+				return Collections.emptyIterator();
+			}
+			return ontology.getAxioms().iterator();
+		}
+
+		/**
+		 * Returns the metrics of the master ontology, or null if it could not be loaded.
+		 */
+		public OntologyMetrics getMetrics() {
+			return metrics;
+		}
+
+		/**
+		 * Returns the errors recorded by the parse, which may have succeeded with some, e.g. missing
+		 * imports.
+		 */
+		public ParserLog getParserLog() {
+			return parserLog;
+		}
+
+		/**
+		 * Returns the data version of the OBO documents parsed, or null if there is none.
+		 */
+		public String getOBOVersion() {
+			return oboVersion;
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package org.stanford.ncbo.oapiwrapper;
+
+import org.tukaani.xz.XZInputStream;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Compression of input ontology documents, recognised from the file name suffix, such as
+ * <code>envo.obo.gz</code> or <code>chebi.owl.xz</code>.
+ */
+public enum InputCompression {
+	NONE(""),
+	GZIP(".gz"),
+	XZ(".xz");
+
+	private final String fileSuffix;
+
+	InputCompression(String fileSuffix) {
+		this.fileSuffix = fileSuffix;
+	}
+
+	public String getFileSuffix() {
+		return fileSuffix;
+	}
+
+	/**
+	 * Decompresses a stream of compressed data as it is read. The compressed data is read with a
+	 * large buffer, the decompressed stream should be buffered by the caller as needed.
+	 */
+	public InputStream wrap(InputStream in) throws IOException {
+		switch (this) {
+			case GZIP:
+				return new GZIPInputStream(in, OntologyParserConstants.INPUT_BUFFER_SIZE);
+			case XZ:
+				return new XZInputStream(new BufferedInputStream(in, OntologyParserConstants.INPUT_BUFFER_SIZE));
+			default:
+				return in;
+		}
+	}
+
+	public static InputCompression fromFileName(String fileName) {
+		String lower = fileName.toLowerCase(Locale.ROOT);
+		for (InputCompression compression : values()) {
+			if (compression != NONE && lower.endsWith(compression.fileSuffix)) {
+				return compression;
+			}
+		}
+		return NONE;
+	}
+
+	/**
+	 * Returns the file name without its compression suffix, e.g. <code>envo.obo</code> for
+	 * <code>envo.obo.gz</code>.
+	 */
+	public static String stripSuffix(String fileName) {
+		InputCompression compression = fromFileName(fileName);
+		return fileName.substring(0, fileName.length() - compression.fileSuffix.length());
+	}
+
+	/**
+	 * Opens a document, decompressing it on the fly if its name has a compression suffix.
+	 */
+	public static InputStream open(Path path) throws IOException {
+		return fromFileName(path.getFileName().toString()).wrap(Files.newInputStream(path));
+	}
+}
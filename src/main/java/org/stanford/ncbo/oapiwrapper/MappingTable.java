@@ -0,0 +1,123 @@
+package org.stanford.ncbo.oapiwrapper;
+
+import org.semanticweb.owlapi.model.*;
+import org.semanticweb.owlapi.model.parameters.Imports;
+import org.semanticweb.owlapi.vocab.OWLRDFVocabulary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Collects the cross-references and mappings of the classes of the source ontologies as they are
+ * traversed, and writes them as a sorted TSV file that mapping loaders can bulk import.
+ * <p>
+ * Every row holds a subject class IRI, the mapping property IRI and the mapped value, which is an IRI
+ * or, for database cross-references, the literal identifier. The rows come from:
+ * <ul>
+ * <li>oboInOwl:hasDbXref annotations</li>
+ * <li>skos:exactMatch, closeMatch, broadMatch, narrowMatch and relatedMatch annotations</li>
+ * <li>equivalent class axioms, one row per ordered pair of distinct named classes, with owl:equivalentClass</li>
+ * </ul>
+ * Rows are distinct and sorted, after a header line. Tabs, line breaks and backslashes in the values
+ * are escaped with a backslash.
+ */
+public class MappingTable {
+	private final static Logger log = LoggerFactory.getLogger(MappingTable.class.getName());
+
+	private static final String HEADER = "subject\tpredicate\tobject";
+
+	private static final Set<IRI> PROPERTIES = new HashSet<IRI>(Arrays.asList(
+			IRI.create("http://www.geneontology.org/formats/oboInOwl#hasDbXref"),
+			IRI.create("http://www.w3.org/2004/02/skos/core#exactMatch"),
+			IRI.create("http://www.w3.org/2004/02/skos/core#closeMatch"),
+			IRI.create("http://www.w3.org/2004/02/skos/core#broadMatch"),
+			IRI.create("http://www.w3.org/2004/02/skos/core#narrowMatch"),
+			IRI.create("http://www.w3.org/2004/02/skos/core#relatedMatch")));
+
+	private static final String EQUIVALENT_CLASS = OWLRDFVocabulary.OWL_EQUIVALENT_CLASS.getIRI().toString();
+
+	private final List<String> rows = new ArrayList<String>();
+
+	/**
+	 * Adds the rows of an axiom, if it is a mapping of a class.
+	 *
+	 * @param source	the source ontology of the axiom, whose imports closure the classes are looked up in
+	 */
+	public void add(OWLAxiom axiom, OWLOntology source) {
+		if (axiom instanceof OWLAnnotationAssertionAxiom) {
+			OWLAnnotationAssertionAxiom ann = (OWLAnnotationAssertionAxiom) axiom;
+			if (!ann.getSubject().isIRI() || !PROPERTIES.contains(ann.getProperty().getIRI())
+					|| !source.containsClassInSignature((IRI) ann.getSubject(), Imports.INCLUDED)) {
+				return;
+			}
+			String value;
+			if (ann.getValue() instanceof OWLLiteral) {
+				value = ((OWLLiteral) ann.getValue()).getLiteral();
+			} else if (ann.getValue() instanceof IRI) {
+				value = ann.getValue().toString();
+			} else {
+				return;
+			}
+			add(ann.getSubject().toString(), ann.getProperty().getIRI().toString(), value);
+		} else if (axiom instanceof OWLEquivalentClassesAxiom) {
+			Set<OWLClass> classes = ((OWLEquivalentClassesAxiom) axiom).getNamedClasses();
+			for (OWLClass subject : classes) {
+				for (OWLClass object : classes) {
+					if (!subject.equals(object) && !subject.isBuiltIn() && !object.isBuiltIn()) {
+						add(subject.getIRI().toString(), EQUIVALENT_CLASS, object.getIRI().toString());
+					}
+				}
+			}
+		}
+	}
+
+	private void add(String subject, String predicate, String object) {
+		rows.add(escape(subject) + '\t' + predicate + '\t' + escape(object));
+	}
+
+	/**
+	 * Sorts the rows and writes the distinct ones, replacing the file atomically.
+	 *
+	 * @return	the number of rows written
+	 */
+	public int write(File file, OutputCompression compression) throws IOException {
+		Collections.sort(rows);
+		int written = 0;
+		try (AtomicOutputFile outputFile = new AtomicOutputFile(file)) {
+			Writer out = new OutputStreamWriter(compression.wrap(outputFile.getOutputStream()), StandardCharsets.UTF_8);
+			out.write(HEADER);
+			out.write('\n');
+			String previous = null;
+			for (String row : rows) {
+				if (!row.equals(previous)) {
+					out.write(row);
+					out.write('\n');
+					written++;
+					previous = row;
+				}
+			}
+			out.close();
+			outputFile.commit();
+		}
+		log.info("Wrote {} mappings to {}", written, file.getName());
+		return written;
+	}
+
+	private static String escape(String value) {
+		if (value.indexOf('\t') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0 && value.indexOf('\\') < 0) {
+			return value;
+		}
+		return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+	}
+}
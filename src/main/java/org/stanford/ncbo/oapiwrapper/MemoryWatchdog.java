@@ -0,0 +1,124 @@
+package org.stanford.ncbo.oapiwrapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import java.io.Closeable;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Watches the tenured heap pools while an ontology is parsed, so that the parser can drop optional
+ * work before the JVM runs out of memory.
+ * <p>
+ * Two levels are tracked, both measured on the heap that is still in use right after a garbage
+ * collection, so that garbage waiting to be collected does not count. Once usage crosses the low
+ * memory ratio the parser switches to cheaper strategies; once it crosses the critical ratio the
+ * parse is aborted. Crossing the low memory ratio is signalled by a JMX collection threshold
+ * notification, and both levels are also polled with {@link #check()} between stages. They stay
+ * raised until the watchdog is closed.
+ * <p>
+ * The thresholds are set on the JVM-wide memory pools, so they are shared by the watchdogs of
+ * concurrent parses and only cleared when the last of them is closed.
+ */
+public class MemoryWatchdog implements NotificationListener, Closeable {
+	private final static Logger log = LoggerFactory.getLogger(MemoryWatchdog.class.getName());
+
+	private static final AtomicInteger openWatchdogs = new AtomicInteger();
+
+	private final double lowMemoryRatio;
+	private final double criticalRatio;
+	private final List<MemoryPoolMXBean> pools = new ArrayList<MemoryPoolMXBean>();
+	private volatile boolean lowMemory = false;
+	private volatile boolean critical = false;
+
+	public MemoryWatchdog() {
+		this(OntologyParserConstants.LOW_MEMORY_RATIO, OntologyParserConstants.CRITICAL_MEMORY_RATIO);
+	}
+
+	public MemoryWatchdog(double lowMemoryRatio, double criticalRatio) {
+		this.lowMemoryRatio = lowMemoryRatio;
+		this.criticalRatio = criticalRatio;
+
+		openWatchdogs.incrementAndGet();
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			long max = pool.getUsage().getMax();
+			if (pool.getType() == MemoryType.HEAP && pool.isCollectionUsageThresholdSupported() && max > 0) {
+				pools.add(pool);
+				pool.setCollectionUsageThreshold((long) (max * lowMemoryRatio));
+			}
+		}
+		((NotificationEmitter) ManagementFactory.getMemoryMXBean()).addNotificationListener(this, null, null);
+	}
+
+	public boolean isLowMemory() {
+		return lowMemory;
+	}
+
+	public boolean isCritical() {
+		return critical;
+	}
+
+	@Override
+	public void handleNotification(Notification notification, Object handback) {
+		if (MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(notification.getType())) {
+			check();
+		}
+	}
+
+	/**
+	 * Polls the heap usage measured after the most recent garbage collection.
+	 */
+	public void check() {
+		for (MemoryPoolMXBean pool : pools) {
+			MemoryUsage usage = pool.getCollectionUsage();
+			if (usage == null || usage.getMax() <= 0) {
+				continue;
+			}
+			if (usage.getUsed() >= usage.getMax() * criticalRatio) {
+				raiseCritical();
+			} else if (usage.getUsed() >= usage.getMax() * lowMemoryRatio) {
+				raiseLowMemory();
+			}
+		}
+	}
+
+	private void raiseLowMemory() {
+		if (!lowMemory) {
+			lowMemory = true;
+			log.warn("Heap usage above {}% of the maximum, switching to low memory mode", Math.round(lowMemoryRatio * 100));
+		}
+	}
+
+	private void raiseCritical() {
+		lowMemory = true;
+		if (!critical) {
+			critical = true;
+			log.error("Heap usage after garbage collection above {}% of the maximum", Math.round(criticalRatio * 100));
+		}
+	}
+
+	@Override
+	public void close() {
+		try {
+			((NotificationEmitter) ManagementFactory.getMemoryMXBean()).removeNotificationListener(this);
+		} catch (ListenerNotFoundException e) {
+			log.debug("Memory listener already removed");
+		}
+		if (openWatchdogs.decrementAndGet() == 0) {
+			for (MemoryPoolMXBean pool : pools) {
+				pool.setCollectionUsageThreshold(0);
+			}
+		}
+	}
+}
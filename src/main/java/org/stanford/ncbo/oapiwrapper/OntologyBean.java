@@ -1,24 +1,108 @@
 package org.stanford.ncbo.oapiwrapper;
 
+import org.semanticweb.owlapi.io.FileDocumentSource;
+import org.semanticweb.owlapi.io.OWLOntologyDocumentSource;
+import org.semanticweb.owlapi.io.StreamDocumentSource;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLDocumentFormat;
+
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 public class OntologyBean {
 	private File file = null;
+	private Path path = null;
+	private byte[] content = null;
 	
 	@Override
 	public String toString() {
-		return "OntologyBean [file=" + file.getAbsolutePath() + "]";
+		return "OntologyBean [file=" + path.toAbsolutePath() + "]";
 	}
 
+	/**
+	 * Returns the ontology file, or null if the ontology is an entry of an input archive.
+	 */
 	public File getFile() {
 		return file;
 	}
 
 	public void setFile(File file) {
 		this.file = file;
+		this.path = file.toPath();
+	}
+
+	public Path getPath() {
+		return path;
 	}
 
 	public OntologyBean(File file) {
-		this.file = file;
+		setFile(file);
+	}
+
+	public OntologyBean(Path path) {
+		this.path = path;
+		this.file = path.getFileSystem() == FileSystems.getDefault() ? path.toFile() : null;
+	}
+
+	/**
+	 * An ontology document held in memory, named by its file name.
+	 */
+	public OntologyBean(String fileName, byte[] content) {
+		this.path = Paths.get(fileName).getFileName();
+		this.content = content;
+	}
+
+	/**
+	 * Returns the document IRI of the ontology, in the {@link OntologyParserConstants#IN_MEMORY_DOCUMENT_SCHEME}
+	 * scheme for a document held in memory.
+	 */
+	public IRI getDocumentIRI() {
+		if (content == null) {
+			return IRI.create(path.toUri());
+		}
+		try {
+			return IRI.create(new URI(OntologyParserConstants.IN_MEMORY_DOCUMENT_SCHEME, null, "/" + path, null));
+		} catch (URISyntaxException e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+
+	/**
+	 * Opens the document, decompressed according to its file name.
+	 */
+	public InputStream openInputStream() throws IOException {
+		if (content != null) {
+			return InputCompression.fromFileName(path.toString()).wrap(new ByteArrayInputStream(content));
+		}
+		return InputCompression.open(path);
+	}
+
+	/**
+	 * Creates the document source to load this ontology from, whether it is a plain file, a
+	 * compressed file, an entry of an input archive or a document held in memory.
+	 */
+	public OWLOntologyDocumentSource createDocumentSource() throws IOException {
+		return createDocumentSource(null);
+	}
+
+	/**
+	 * Creates the document source to load this ontology from, restricted to the parsers of the given
+	 * format unless it is null.
+	 */
+	public OWLOntologyDocumentSource createDocumentSource(OWLDocumentFormat format) throws IOException {
+		if (content != null) {
+			return new StreamDocumentSource(openInputStream(), getDocumentIRI(), format, null);
+		}
+		if (file != null && InputCompression.fromFileName(file.getName()) == InputCompression.NONE) {
+			return new FileDocumentSource(file, format);
+		}
+		return new PathDocumentSource(path, format);
 	}
 }
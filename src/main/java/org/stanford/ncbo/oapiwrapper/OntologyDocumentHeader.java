@@ -0,0 +1,188 @@
+package org.stanford.ncbo.oapiwrapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The ontology IRI, version IRI and imports declared at the top of an XML ontology document
+ * (RDF/XML or OWL/XML), read without parsing the rest of the document.
+ * <p>
+ * Used to map ontology IRIs to documents that {@link org.semanticweb.owlapi.util.AutoIRIMapper}
+ * cannot scan, and to find the import closure of a repository before loading it.
+ */
+public class OntologyDocumentHeader {
+	private final static Logger log = LoggerFactory.getLogger(OntologyDocumentHeader.class.getName());
+
+	private static final String RDF_NS = "http://www.w3.org/1999/02/22-rdf-syntax-ns#";
+	private static final String OWL_NS = "http://www.w3.org/2002/07/owl#";
+	private static final String XML_NS = "http://www.w3.org/XML/1998/namespace";
+
+	/** Top-level elements to look at before giving up on finding the ontology header. */
+	private static final int MAX_TOP_LEVEL_ELEMENTS = 64;
+
+	private static final XMLInputFactory inputFactory = createInputFactory();
+
+	private String ontologyIRI = null;
+	private String versionIRI = null;
+	private final List<String> imports = new ArrayList<String>();
+
+	private OntologyDocumentHeader() {
+	}
+
+	public String getOntologyIRI() {
+		return ontologyIRI;
+	}
+
+	public String getVersionIRI() {
+		return versionIRI;
+	}
+
+	public List<String> getImports() {
+		return Collections.unmodifiableList(imports);
+	}
+
+	/**
+	 * Reads the header of an ontology document. The stream is not closed.
+	 *
+	 * @return	the header, or null if the document is not RDF/XML or OWL/XML or declares no ontology
+	 */
+	public static OntologyDocumentHeader read(InputStream in) throws IOException {
+		XMLStreamReader reader = null;
+		try {
+			reader = inputFactory.createXMLStreamReader(in);
+			OntologyDocumentHeader header = new OntologyDocumentHeader();
+			if (!nextStartElement(reader)) {
+				return null;
+			}
+			String base = reader.getAttributeValue(XML_NS, "base");
+			if ("RDF".equals(reader.getLocalName()) && RDF_NS.equals(reader.getNamespaceURI())) {
+				header.readRDFXML(reader, base);
+			} else if ("Ontology".equals(reader.getLocalName()) && OWL_NS.equals(reader.getNamespaceURI())) {
+				header.readOWLXML(reader, base);
+			}
+			return header.ontologyIRI != null ? header : null;
+		} catch (XMLStreamException e) {
+			log.debug("Cannot read ontology header: {}", e.getMessage());
+			return null;
+		} finally {
+			if (reader != null) {
+				try {
+					reader.close();
+				} catch (XMLStreamException e) {
+					log.debug("Cannot close ontology header reader: {}", e.getMessage());
+				}
+			}
+		}
+	}
+
+	private void readRDFXML(XMLStreamReader reader, String base) throws XMLStreamException {
+		for (int i = 0; i < MAX_TOP_LEVEL_ELEMENTS; i++) {
+			if (!nextStartElement(reader)) {
+				return;
+			}
+			if ("Ontology".equals(reader.getLocalName()) && OWL_NS.equals(reader.getNamespaceURI())) {
+				String about = reader.getAttributeValue(RDF_NS, "about");
+				ontologyIRI = about != null ? resolve(base, about) : base;
+				readRDFXMLOntologyProperties(reader, base);
+				return;
+			}
+			skipElement(reader);
+		}
+	}
+
+	private void readRDFXMLOntologyProperties(XMLStreamReader reader, String base) throws XMLStreamException {
+		int depth = 1;
+		while (depth > 0 && reader.hasNext()) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				depth++;
+				if (depth == 2 && OWL_NS.equals(reader.getNamespaceURI())) {
+					String resource = reader.getAttributeValue(RDF_NS, "resource");
+					if (resource != null && "imports".equals(reader.getLocalName())) {
+						imports.add(resolve(base, resource));
+					} else if (resource != null && "versionIRI".equals(reader.getLocalName())) {
+						versionIRI = resolve(base, resource);
+					}
+				}
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				depth--;
+			}
+		}
+	}
+
+	private void readOWLXML(XMLStreamReader reader, String base) throws XMLStreamException {
+		ontologyIRI = reader.getAttributeValue(null, "ontologyIRI");
+		versionIRI = reader.getAttributeValue(null, "versionIRI");
+		for (int i = 0; i < MAX_TOP_LEVEL_ELEMENTS; i++) {
+			if (!nextStartElement(reader)) {
+				return;
+			}
+			if ("Import".equals(reader.getLocalName())) {
+				imports.add(resolve(base, reader.getElementText().trim()));
+			} else if (!"Prefix".equals(reader.getLocalName())) {
+				return;
+			} else {
+				skipElement(reader);
+			}
+		}
+	}
+
+	private static boolean nextStartElement(XMLStreamReader reader) throws XMLStreamException {
+		while (reader.hasNext()) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				return true;
+			}
+			if (event == XMLStreamConstants.END_ELEMENT) {
+				return false;
+			}
+		}
+		return false;
+	}
+
+	private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+		int depth = 1;
+		while (depth > 0 && reader.hasNext()) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				depth++;
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				depth--;
+			}
+		}
+	}
+
+	private static String resolve(String base, String reference) {
+		if (base == null) {
+			return reference;
+		}
+		if (reference.isEmpty()) {
+			return base;
+		}
+		try {
+			return URI.create(base).resolve(reference).toString();
+		} catch (IllegalArgumentException e) {
+			return reference;
+		}
+	}
+
+	private static XMLInputFactory createInputFactory() {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+		// Internal DTD entities (&owl; etc.) are common in RDF/XML, external ones are never fetched
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, true);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		return factory;
+	}
+}
@@ -0,0 +1,193 @@
+package org.stanford.ncbo.oapiwrapper;
+
+import org.semanticweb.owlapi.formats.*;
+import org.semanticweb.owlapi.io.OWLParserFactory;
+import org.semanticweb.owlapi.io.UnparsableOntologyException;
+import org.semanticweb.owlapi.model.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Guesses the syntax of an ontology document from its first bytes and its file name, so that the
+ * OWL API tries the matching parser only instead of every registered parser in turn.
+ * <p>
+ * The guess always names the format of the parser that would have succeeded first without it, so a
+ * hinted load gives the same ontology as an unhinted one; N-Triples, for instance, are handed to the
+ * Turtle parser like before. When the hinted parser fails the document is loaded again without a
+ * hint, which reports the errors of all parsers as usual.
+ */
+public class OntologyFormatSniffer {
+	private final static Logger log = LoggerFactory.getLogger(OntologyFormatSniffer.class.getName());
+
+	private static final Pattern XML_NAME = Pattern.compile("[A-Za-z_][\\w.-]*(:[A-Za-z_][\\w.-]*)?");
+	private static final Pattern OBO_STANZA = Pattern.compile("^\\[(Term|Typedef|Instance)\\]\\s*$", Pattern.MULTILINE);
+
+	private OntologyFormatSniffer() {
+	}
+
+	/**
+	 * Guesses the format of an ontology document.
+	 *
+	 * @return	the format, or null if the document cannot be read or its syntax is not recognised
+	 */
+	public static OWLDocumentFormat sniff(Path path) {
+		return sniff(new OntologyBean(path));
+	}
+
+	/**
+	 * Guesses the format of an ontology document, which may be held in memory.
+	 *
+	 * @return	the format, or null if the document cannot be read or its syntax is not recognised
+	 */
+	public static OWLDocumentFormat sniff(OntologyBean bean) {
+		byte[] buffer = new byte[OntologyParserConstants.SNIFF_BUFFER_SIZE];
+		int length = 0;
+		try (InputStream in = bean.openInputStream()) {
+			int read;
+			while (length < buffer.length && (read = in.read(buffer, length, buffer.length - length)) > 0) {
+				length += read;
+			}
+		} catch (IOException e) {
+			log.debug("Cannot read {} to guess its format: {}", bean.getPath(), e.getMessage());
+			return null;
+		}
+		return sniff(new String(buffer, 0, length, StandardCharsets.UTF_8),
+				InputCompression.stripSuffix(bean.getPath().getFileName().toString()));
+	}
+
+	static OWLDocumentFormat sniff(String text, String fileName) {
+		String extension = fileName.substring(fileName.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+		int start = skipPrologue(text);
+		String rest = text.substring(start);
+
+		if (rest.startsWith("<!DOCTYPE")) {
+			// A valid document type declaration names the root element
+			return xmlFormat(rest.substring("<!DOCTYPE".length()).trim());
+		}
+		if (isStartTag(rest)) {
+			return xmlFormat(rest.substring(1));
+		}
+		if (rest.startsWith("Prefix(") || rest.startsWith("Ontology(")) {
+			return new FunctionalSyntaxDocumentFormat();
+		}
+		if (rest.startsWith("Prefix:") || rest.startsWith("Ontology:")) {
+			return new ManchesterSyntaxDocumentFormat();
+		}
+		if ("n3".equals(extension)) {
+			// N3 is only partly Turtle, leave it to the parsers to sort out
+			return null;
+		}
+		String lower = rest.toLowerCase(Locale.ROOT);
+		if (lower.startsWith("@prefix") || lower.startsWith("@base") || lower.startsWith("prefix ") || lower.startsWith("base ")) {
+			return new RioTurtleDocumentFormat();
+		}
+		if (rest.startsWith("<") || rest.startsWith("_:")) {
+			return "nq".equals(extension) ? new NQuadsDocumentFormat() : new RioTurtleDocumentFormat();
+		}
+		if (rest.startsWith("format-version:") || OBO_STANZA.matcher(rest).find()) {
+			return new OBODocumentFormat();
+		}
+		return null;
+	}
+
+	/**
+	 * Skips a byte order mark, white space, XML declarations, processing instructions and comments,
+	 * and the comment lines of line based syntaxes.
+	 */
+	private static int skipPrologue(String text) {
+		int i = text.startsWith("\uFEFF") ? 1 : 0;
+		while (i < text.length()) {
+			if (Character.isWhitespace(text.charAt(i))) {
+				i++;
+			} else if (text.startsWith("<?", i)) {
+				int end = text.indexOf("?>", i);
+				i = end < 0 ? text.length() : end + 2;
+			} else if (text.startsWith("<!--", i)) {
+				int end = text.indexOf("-->", i);
+				i = end < 0 ? text.length() : end + 3;
+			} else if (text.charAt(i) == '#') {
+				int end = text.indexOf('\n', i);
+				i = end < 0 ? text.length() : end + 1;
+			} else {
+				break;
+			}
+		}
+		return i;
+	}
+
+	/**
+	 * Tells an XML start tag from the IRI that starts an N-Triples or N-Quads line.
+	 */
+	private static boolean isStartTag(String text) {
+		if (!text.startsWith("<")) {
+			return false;
+		}
+		Matcher name = XML_NAME.matcher(text).region(1, text.length());
+		if (!name.lookingAt()) {
+			return false;
+		}
+		int end = name.end();
+		return end == text.length() || Character.isWhitespace(text.charAt(end)) || text.charAt(end) == '>' || text.charAt(end) == '/';
+	}
+
+	private static OWLDocumentFormat xmlFormat(String root) {
+		Matcher name = XML_NAME.matcher(root);
+		if (!name.lookingAt()) {
+			return null;
+		}
+		String qName = name.group();
+		if (qName.endsWith(":RDF") || qName.equals("RDF")) {
+			return new RDFXMLDocumentFormat();
+		}
+		if (qName.equals("Ontology")) {
+			return new OWLXMLDocumentFormat();
+		}
+		// Anything else may be RDF/XML without an rdf:RDF root, or not an ontology at all
+		return null;
+	}
+
+	/**
+	 * Loads an ontology with the parser matching its guessed format, and with all parsers if the
+	 * format cannot be guessed or the guess turns out to be wrong.
+	 */
+	public static OWLOntology load(OWLOntologyManager manager, OntologyBean bean, OWLOntologyLoaderConfiguration conf)
+			throws OWLOntologyCreationException, IOException {
+		long startTime = System.nanoTime();
+		OWLDocumentFormat format = sniff(bean);
+		long sniffTime = (System.nanoTime() - startTime) / 1000;
+		if (format == null) {
+			log.info("Format of {} not recognised in {} microseconds, trying all parsers", bean.getPath(), sniffTime);
+			return manager.loadOntologyFromOntologyDocument(bean.createDocumentSource(), conf);
+		}
+
+		int parsers = 0;
+		int skipped = 0;
+		for (OWLParserFactory parser : manager.getOntologyParsers()) {
+			parsers++;
+			if (!parser.getSupportedFormat().getKey().equals(format.getKey())) {
+				skipped++;
+			}
+		}
+		log.info("Guessed {} for {} in {} microseconds, skipping {} of {} parsers",
+				format.getKey(), bean.getPath(), sniffTime, skipped, parsers);
+		return load(manager, bean, format, conf);
+	}
+
+	static OWLOntology load(OWLOntologyManager manager, OntologyBean bean, OWLDocumentFormat format,
+			OWLOntologyLoaderConfiguration conf) throws OWLOntologyCreationException, IOException {
+		try {
+			return manager.loadOntologyFromOntologyDocument(bean.createDocumentSource(format), conf);
+		} catch (UnparsableOntologyException e) {
+			log.warn("Cannot load {} as {}, trying all parsers", bean.getPath(), format.getKey());
+			return manager.loadOntologyFromOntologyDocument(bean.createDocumentSource(), conf);
+		}
+	}
+}
@@ -11,7 +11,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
@@ -59,34 +58,40 @@ public class OntologyMetrics {
         long estimatedTime = (System.nanoTime() - startTime) / 1000000;
         logger.info(String.format("Finished metrics calculation for %s in %d milliseconds", ontologyFileName, estimatedTime));
 
-        write();
+        if (!parserInvocation.isInMemory()) {
+            write();
+        }
+    }
+
+    public int getClassCount() {
+        return total_classes;
+    }
+
+    public int getIndividualCount() {
+        return total_individuals;
+    }
+
+    /**
+     * Returns the number of object and data properties.
+     */
+    public int getPropertyCount() {
+        return total_properties;
     }
 
     private void write() {
-        String path = parserInvocation.getOutputRepositoryFolder() + File.separator + OntologyParserConstants.METRICS_FILE;
-        FileWriter fileWriter = null;
-        CSVPrinter csvPrinter = null;
+        File file = new File(parserInvocation.getOutputRepositoryFolder() + File.separator + OntologyParserConstants.METRICS_FILE);
 
-        try {
-            fileWriter = new FileWriter(new File(path));
+        try (AtomicOutputFile outputFile = new AtomicOutputFile(file)) {
             CSVFormat csvFormat = CSVFormat.DEFAULT.withHeader(OntologyParserConstants.METRICS_FILE_HEADERS);
-            csvPrinter = new CSVPrinter(fileWriter, csvFormat);
+            CSVPrinter csvPrinter = new CSVPrinter(outputFile.getWriter(), csvFormat);
 
             List countRecord = Arrays.asList(total_classes, total_individuals, total_properties);
             csvPrinter.printRecord(countRecord);
+            csvPrinter.close();
+            outputFile.commit();
             logger.info(String.format("Generated metrics CSV file for %s", parserInvocation.getMasterFileName()));
         } catch (IOException e) {
             logger.error("Error generating metrics CSV file", e);
-            e.printStackTrace();
-        } finally {
-            try {
-                fileWriter.flush();
-                fileWriter.close();
-                csvPrinter.close();
-            } catch (IOException e) {
-                logger.error("Error flushing/closing metrics CSV file", e);
-                e.printStackTrace();
-            }
         }
     }
 
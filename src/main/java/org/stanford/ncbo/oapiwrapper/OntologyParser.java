@@ -5,10 +5,11 @@ import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.filefilter.TrueFileFilter;
 import org.coode.owlapi.obo12.parser.OBO12DocumentFormat;
 import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.formats.NQuadsDocumentFormatFactory;
 import org.semanticweb.owlapi.formats.OBODocumentFormat;
 import org.semanticweb.owlapi.formats.PrefixDocumentFormat;
-import org.semanticweb.owlapi.formats.RDFXMLDocumentFormat;
-import org.semanticweb.owlapi.io.FileDocumentSource;
+import org.semanticweb.owlapi.formats.RioTurtleDocumentFormatFactory;
+import org.semanticweb.owlapi.io.OWLParserFactory;
 import org.semanticweb.owlapi.model.*;
 import org.semanticweb.owlapi.reasoner.OWLReasoner;
 import org.semanticweb.owlapi.reasoner.OWLReasonerFactory;
@@ -19,12 +20,29 @@ import org.semanticweb.owlapi.util.InferredSubClassAxiomGenerator;
 import org.semanticweb.owlapi.vocab.OWLRDFVocabulary;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import uk.ac.manchester.cs.owl.owlapi.OWLLiteralImplString;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 public class OntologyParser {
 	private final static Logger log = LoggerFactory.getLogger(OntologyParser.class.getName());
@@ -35,10 +53,29 @@ public class OntologyParser {
 	private OWLOntologyManager sourceOwlManager = null;
 	private OWLOntologyManager targetOwlManager = null;
 	private OWLOntology targetOwlOntology = null;
+	private OntologyMetrics metrics = null;
+	private final Supplier<MemoryWatchdog> memoryWatchdogFactory;
+	private MemoryWatchdog memoryWatchdog = null;
+	private ParserExecutors executors = null;
+	private ProgressReporter progress = null;
+	private FileSystem inputArchive = null;
+	private ParallelOBOParser.Factory parallelOBOParser = null;
+	private List<Path> oboDocuments = new ArrayList<Path>();
+	private final AtomicLong loadedAxioms = new AtomicLong();
 
 	public OntologyParser(ParserInvocation parserInvocation) throws OntologyParserException {
+		this(parserInvocation, MemoryWatchdog::new);
+	}
+
+	/**
+	 * Creates a parser that watches the heap of every parse with a watchdog from the given factory,
+	 * so that tests can set the memory ratios.
+	 */
+	OntologyParser(ParserInvocation parserInvocation, Supplier<MemoryWatchdog> memoryWatchdogFactory)
+			throws OntologyParserException {
 		super();
 		log.info("executor ...");
+		this.memoryWatchdogFactory = memoryWatchdogFactory;
 
 		if (!parserInvocation.valid()) {
 			throw new OntologyParserException(parserInvocation.getParserLog());
@@ -47,18 +84,106 @@ public class OntologyParser {
 		this.parserLog = this.parserInvocation.getParserLog();
 
 		this.sourceOwlManager = OWLManager.createOWLOntologyManager();
+		logTimeToFirstAxiom(this.sourceOwlManager);
+		countLoadedAxioms(this.sourceOwlManager);
+		if (this.parserInvocation.isStreamingRDFXML()) {
+			addPreferredParser(new StreamingRDFXMLParser.Factory());
+		}
+		// Mappers added later take precedence, so local documents are always preferred to the mirror
+		setImportMirrorMapping(this.sourceOwlManager);
 		setLocalFileRepositaryMapping(this.sourceOwlManager, this.parserInvocation.getInputRepositoryFolder());
 
 		this.targetOwlManager = OWLManager.createOWLOntologyManager();
 	}
 
+	/**
+	 * Registers a parser to be tried before the default parser of its format. The owlapi tries all the
+	 * parsers in registration order, but only the parsers of the format guessed by
+	 * {@link OntologyFormatSniffer} in the reverse order, so the parser is registered both in front of
+	 * the others, for the imports, and after them, for the documents loaded with a guessed format.
+	 */
+	private void addPreferredParser(OWLParserFactory factory) {
+		List<OWLParserFactory> parsers = new ArrayList<OWLParserFactory>();
+		parsers.add(factory);
+		for (OWLParserFactory parser : sourceOwlManager.getOntologyParsers()) {
+			parsers.add(parser);
+		}
+		parsers.add(factory);
+		sourceOwlManager.getOntologyParsers().set(parsers);
+	}
+
+	/**
+	 * Logs the time from the start of the process to the first ontology document parsed, the startup
+	 * cost reduced by the AppCDS archive and the native executable of the <code>appcds</code> and
+	 * <code>native</code> build profiles. The manager does not broadcast the axioms added while a
+	 * document is loaded, so the end of the first load stands for the first axiom.
+	 */
+	private void logTimeToFirstAxiom(OWLOntologyManager m) {
+		AtomicBoolean logged = new AtomicBoolean();
+		m.addOntologyLoaderListener(new OWLOntologyLoaderListener() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public void startedLoadingOntology(LoadingStartedEvent event) {
+			}
+
+			@Override
+			public void finishedLoadingOntology(LoadingFinishedEvent event) {
+				if (event.isSuccessful() && logged.compareAndSet(false, true)) {
+					long uptime = ProcessHandle.current().info().startInstant()
+							.map(start -> Duration.between(start, Instant.now()).toMillis())
+							.orElse(ManagementFactory.getRuntimeMXBean().getUptime());
+					log.info("First ontology document parsed {} milliseconds after process start: {}", uptime, event.getDocumentIRI());
+					m.removeOntologyLoaderListener(this);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Adds the axioms of every ontology document loaded to {@link #loadedAxioms}, on the loading thread,
+	 * so that the progress reporter does not read the ontologies of the manager while they are loaded.
+	 * The imports preloaded by {@link ImportPreloader} are moved into the manager without loader events,
+	 * and are counted through its callback instead.
+	 */
+	private void countLoadedAxioms(OWLOntologyManager m) {
+		m.addOntologyLoaderListener(new OWLOntologyLoaderListener() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public void startedLoadingOntology(LoadingStartedEvent event) {
+			}
+
+			@Override
+			public void finishedLoadingOntology(LoadingFinishedEvent event) {
+				OWLOntology ontology = event.isSuccessful() ? m.getOntology(event.getOntologyID()) : null;
+				if (ontology != null) {
+					loadedAxioms.addAndGet(ontology.getAxiomCount());
+				}
+			}
+		});
+	}
+
 	public List<OntologyBean> getLocalOntologies() {
 		return ontologies;
 	}
 
+	private void setImportMirrorMapping(OWLOntologyManager m) throws OntologyParserException {
+		if (this.parserInvocation.getImportMirrorFolder() != null) {
+			try {
+				m.getIRIMappers().add(new ImportMirror(new File(this.parserInvocation.getImportMirrorFolder()),
+						this.parserInvocation.isOfflineImports(), this.parserInvocation.getImportTimeout()));
+			} catch (IOException e) {
+				log.error(e.getMessage());
+				parserLog.addError(ParserError.IMPORT_MIRROR_MISSING, "Import mirror cannot be opened: " + e.getMessage());
+				throw new OntologyParserException(parserLog);
+			}
+		}
+	}
+
 	private void setLocalFileRepositaryMapping(OWLOntologyManager m,
 			String folder) {
-		if (this.parserInvocation.getInputRepositoryFolder() != null) {
+		if (this.parserInvocation.getInputRepositoryFolder() != null && !this.parserInvocation.isInputArchive()) {
 			File rooDirectory = new File(folder);
 			m.getIRIMappers().add(new AutoIRIMapper(rooDirectory, true));
 		}
@@ -66,24 +191,28 @@ public class OntologyParser {
 
 
 	public String getOBODataVersion(String file) {
-		String result = null;
+		return getOBODataVersion(Paths.get(file));
+	}
+
+	public String getOBODataVersion(Path file) {
+		return getOBODataVersion(new OntologyBean(file));
+	}
+
+	private String getOBODataVersion(OntologyBean bean) {
 		String line = null;
-		try {
-			BufferedReader reader = new BufferedReader(new FileReader(file));
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(bean.openInputStream(), StandardCharsets.UTF_8))) {
 			while ((line = reader.readLine()) != null) {
 				if (line.contains("data-version:")) {
 					String[] version = line.split(" ");
 					if (version.length > 1) {
-						reader.close();
 						return version[1];
 					}
 				}
 			}
-			reader.close();
 		} catch (Exception e) {
-			e.printStackTrace();
+			log.error("Cannot read the data version of {}: {}", bean.getPath(), e.getMessage());
 		}
-		return result;
+		return null;
 	}
 
 	/**
@@ -95,7 +224,9 @@ public class OntologyParser {
 		String masterFileName = parserInvocation.getMasterFileName();
 		int invocationId = parserInvocation.getInvocationId();
 
-		if (inputRepositoryFolder != null) {
+		if (parserInvocation.isInputArchive()) {
+			oboVersion = findArchiveOntologies();
+		} else if (inputRepositoryFolder != null) {
 			log.info(String.format("[%d] findLocalOntologies in %s", invocationId, inputRepositoryFolder));
 
 			File repo = new File(inputRepositoryFolder);
@@ -103,18 +234,27 @@ public class OntologyParser {
 				@SuppressWarnings("unchecked")
 				Iterator<File> files = FileUtils.iterateFiles(repo, new OntologySuffixFileFilter(), TrueFileFilter.INSTANCE);
 				ontologies = new ArrayList<OntologyBean>();
+				List<Path> documents = new ArrayList<Path>();
 				while (files.hasNext()) {
 					File f = files.next();
-					if (f.getAbsolutePath().toLowerCase().endsWith("obo")) {
-						oboVersion = getOBODataVersion(f.getAbsolutePath());
-					}
+					documents.add(f.toPath());
 					ontologies.add(new OntologyBean(f));
 					log.info(String.format("[%d] Found ontology: %s", invocationId, f.getName()));
 				}
+				oboVersion = findOBODataVersion(documents);
+				// The AutoIRIMapper of the folder does not read compressed documents
+				new ArchiveIRIMapper(documents).register(sourceOwlManager);
+			}
+		} else if (parserInvocation.getMasterDocument() != null) {
+			OntologyBean bean = new OntologyBean(masterFileName, parserInvocation.getMasterDocument());
+			if (parallelOBOParser == null && InputCompression.stripSuffix(masterFileName).toLowerCase().endsWith("obo")) {
+				oboVersion = getOBODataVersion(bean);
 			}
+			ontologies.add(bean);
+			log.info("Input repository folder is null. Document being parsed from memory.");
 		} else {
-			if (masterFileName.toLowerCase().endsWith("obo")) {
-				oboVersion = getOBODataVersion(masterFileName);
+			if (InputCompression.stripSuffix(masterFileName).toLowerCase().endsWith("obo")) {
+				oboVersion = findOBODataVersion(Collections.singletonList(Paths.get(masterFileName)));
 			}
 			ontologies.add(new OntologyBean(new File(masterFileName)));
 			log.info("Input repository folder is null. Unique file being parsed.");
@@ -124,6 +264,111 @@ public class OntologyParser {
 		}
 	}
 
+	/**
+	 * Lists the ontology documents inside a zip archive input, and resolves imports to them.
+	 * The archive stays open as a zip file system until the parse is finished.
+	 *
+	 * @return	the OBO data version, if an OBO document was found
+	 */
+	private String findArchiveOntologies() {
+		String oboVersion = null;
+		int invocationId = parserInvocation.getInvocationId();
+		Path archive = Paths.get(parserInvocation.getInputRepositoryFolder()).toAbsolutePath().normalize();
+		log.info(String.format("[%d] findLocalOntologies in archive %s", invocationId, archive));
+
+		List<Path> documents = new ArrayList<Path>();
+		OntologySuffixFileFilter filter = new OntologySuffixFileFilter();
+		try {
+			inputArchive = FileSystems.newFileSystem(archive, (ClassLoader) null);
+			for (Path root : inputArchive.getRootDirectories()) {
+				try (Stream<Path> paths = Files.walk(root)) {
+					paths.filter(p -> Files.isRegularFile(p) && filter.accept(null, p.getFileName().toString()))
+							.forEach(documents::add);
+				}
+			}
+		} catch (IOException e) {
+			log.error(e.getMessage());
+			parserLog.addError(ParserError.OWL_PARSE_EXCEPTION, "Error reading archive " + archive + ": " + e.getMessage());
+			return null;
+		}
+
+		ontologies = new ArrayList<OntologyBean>();
+		for (Path document : documents) {
+			ontologies.add(new OntologyBean(document));
+			log.info(String.format("[%d] Found ontology: %s", invocationId, document));
+		}
+		oboVersion = findOBODataVersion(documents);
+		new ArchiveIRIMapper(documents).register(sourceOwlManager);
+		return oboVersion;
+	}
+
+	/**
+	 * Scans the OBO documents for their data version concurrently on the I/O executor. With the
+	 * parallel OBO parser, the documents are only remembered: the data version is then read from the
+	 * header of the master document as it is parsed, see {@link #findParsedOBODataVersion}.
+	 *
+	 * @return	the data version of the last OBO document in discovery order, or null if it has none
+	 */
+	private String findOBODataVersion(List<Path> documents) {
+		List<Path> obo = new ArrayList<Path>();
+		for (Path document : documents) {
+			if (InputCompression.stripSuffix(document.getFileName().toString()).toLowerCase().endsWith("obo")) {
+				obo.add(document);
+			}
+		}
+		if (parallelOBOParser != null) {
+			oboDocuments = obo;
+			return null;
+		}
+		return scanOBODataVersion(obo);
+	}
+
+	private String scanOBODataVersion(List<Path> obo) {
+		List<Future<String>> versions = new ArrayList<Future<String>>();
+		for (Path document : obo) {
+			versions.add(executors.getIOExecutor().submit(() -> getOBODataVersion(document)));
+		}
+
+		String oboVersion = null;
+		for (Future<String> version : versions) {
+			try {
+				oboVersion = version.get();
+			} catch (ExecutionException e) {
+				log.warn("Cannot read OBO data version: {}", e.getCause().getMessage());
+				oboVersion = null;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return null;
+			}
+		}
+		return oboVersion;
+	}
+
+	/**
+	 * Sets the OBO data version from the header of the master document read by the parallel OBO
+	 * parser, or scans the OBO documents found if the master document was not read by it.
+	 */
+	private void findParsedOBODataVersion(OWLOntology master) {
+		String oboVersion = parallelOBOParser.getDataVersion(sourceOwlManager.getOntologyDocumentIRI(master));
+		if (oboVersion == null && !oboDocuments.isEmpty()) {
+			oboVersion = scanOBODataVersion(oboDocuments);
+		}
+		if (oboVersion != null) {
+			parserInvocation.setOBOVersion(oboVersion);
+		}
+	}
+
+	private void closeInputArchive() {
+		if (inputArchive != null) {
+			try {
+				inputArchive.close();
+			} catch (IOException e) {
+				log.warn("Cannot close input archive: {}", e.getMessage());
+			}
+			inputArchive = null;
+		}
+	}
+
 	private boolean isOBO(OWLOntology ontology) {
 		boolean isOBO = false;
 		OWLDocumentFormat format = sourceOwlManager.getOntologyFormat(ontology);
@@ -143,10 +388,12 @@ public class OntologyParser {
 	 * @param documentIRI		the document IRI of the source ontology
 	 * @param factory			the OWL data factory of the source ontology
 	 * @param sourceOntology	the source ontology
+	 * @param derivedTriples	the derived annotation triples for the target ontology
 	 */
-	private void addGroundMetadata(IRI documentIRI, OWLDataFactory factory, OWLOntology sourceOntology) {
+	private void addGroundMetadata(IRI documentIRI, OWLDataFactory factory, OWLOntology sourceOntology, AnnotationTripleBuffer derivedTriples) {
 		OWLOntologyID ontologyID = sourceOntology.getOntologyID();
-		boolean isFile = documentIRI.toString().startsWith("file:/");
+		boolean isFile = documentIRI.toString().startsWith("file:/") || documentIRI.toString().startsWith("jar:file:/")
+				|| OntologyParserConstants.IN_MEMORY_DOCUMENT_SCHEME.equals(documentIRI.getScheme());
 
 		if (ontologyID.isAnonymous()) {
 			return;
@@ -161,18 +408,19 @@ public class OntologyParser {
 			targetOwlManager.addAxiom(targetOwlOntology, annotationAssertionAxiom);
 
 			if (isFile && (annotationProperty.toString().contains("versionInfo"))) {
-				IRI versionSubjectIRI = IRI.create("http://bioportal.bioontology.org/ontologies/versionSubject");
-				OWLAnnotationProperty versionAnnotationProperty = factory.getOWLAnnotationProperty(OWLRDFVocabulary.OWL_VERSION_INFO.getIRI());
+				IRI versionSubjectIRI = VocabularyCache.getIRI("http://bioportal.bioontology.org/ontologies/versionSubject");
+				OWLAnnotationProperty versionAnnotationProperty = VocabularyCache.getAnnotationProperty(factory, OWLRDFVocabulary.OWL_VERSION_INFO.getIRI());
 				OWLAnnotationAssertionAxiom versionAnnotationAssertionAxiom = factory.getOWLAnnotationAssertionAxiom(versionAnnotationProperty, versionSubjectIRI, annotationValue);
-				targetOwlManager.addAxiom(targetOwlOntology, versionAnnotationAssertionAxiom);
+				derivedTriples.add(versionAnnotationAssertionAxiom);
 			}
 		}
 	}
 
+	/**
+	 * Builds the target ontology from the source ontologies with a {@link TransformationPipeline},
+	 * which visits every source axiom and class once for all the transformations below.
+	 */
 	private boolean buildOWLOntology(boolean isOBO) {
-
-		Set<OWLAxiom> allAxioms = new HashSet<OWLAxiom>();
-
 		OWLDataFactory fact = sourceOwlManager.getOWLDataFactory();
 		try {
 			targetOwlOntology = targetOwlManager.createOntology();
@@ -182,139 +430,278 @@ public class OntologyParser {
 			return false;
 		}
 
-		for (OWLOntology sourceOnt : sourceOwlManager.getOntologies()) {
-			IRI documentIRI = sourceOwlManager.getOntologyDocumentIRI(sourceOnt);
+		AnnotationTripleBuffer derivedTriples = new AnnotationTripleBuffer();
+		List<OntologyStage> stages = new ArrayList<OntologyStage>();
+		stages.add(new GroundMetadataStage(fact, derivedTriples));
+		stages.add(new AxiomCollectionStage());
+		stages.add(new OBORelationStage(fact, derivedTriples));
+		if (isOBO) {
+			stages.add(new OBONotationStage(fact, derivedTriples));
+		}
+		stages.add(new PrefixNotationStage(isOBO, fact, derivedTriples));
+		stages.add(new DerivedTriplesStage(isOBO, fact, derivedTriples));
+		stages.add(new XMLLiteralStage(derivedTriples));
+		stages.add(new InferredHierarchyStage());
+		stages.add(new DeprecatedBranchStage());
+		log.info("isOBO: {}", isOBO);
+		if (isOBO) {
+			stages.add(new TreeViewStage(fact));
+		}
+		if (parserInvocation.isSearchDocuments() && !parserInvocation.isInMemory()) {
+			stages.add(new SearchDocumentStage());
+		}
+		if (parserInvocation.isHierarchyExport() && !parserInvocation.isInMemory()) {
+			stages.add(new HierarchyStage(isOBO));
+		}
+		if (parserInvocation.isMappingsExport() && !parserInvocation.isInMemory()) {
+			stages.add(new MappingStage());
+		}
 
-			addGroundMetadata(documentIRI, fact, sourceOnt);
-			generateGroundTriplesForAxioms(allAxioms, fact, sourceOnt);
+		Set<OWLOntology> sources = sourceOwlManager.getOntologies();
+		TransformationPipeline pipeline = new TransformationPipeline(stages, parserInvocation, targetOwlOntology);
+		progress.startStage("transformation");
+		progress.trackStep(pipeline::getCurrentStage);
+		progress.trackAxioms(pipeline::getAxiomCount, () -> sources.stream().mapToLong(OWLOntology::getAxiomCount).sum());
+		progress.trackClasses(pipeline::getClassCount,
+				() -> sources.stream().mapToLong(source -> source.getClassesInSignature().size()).sum());
+		pipeline.run(sources);
+		return true;
+	}
 
-			if (isOBO) {
-				if (!documentIRI.toString().startsWith("owlapi:ontology")) {
-					generateSKOSInObo(allAxioms, fact, sourceOnt);
-				}
-			}
+	/**
+	 * Copies the ontology annotations of every source ontology to the target ontology, along with
+	 * their ground metadata.
+	 */
+	private class GroundMetadataStage implements OntologyStage {
+		private final OWLDataFactory factory;
+		private final AnnotationTripleBuffer derivedTriples;
 
-			boolean isPrefixedOWL = sourceOwlManager.getOntologyFormat(sourceOnt).isPrefixOWLOntologyFormat();
-			log.info("isPrefixOWLOntologyFormat: {}", isPrefixedOWL);
-			if (isPrefixedOWL == true && !isOBO) {
-				generateSKOSInOwl(allAxioms, fact, sourceOnt);
-			}
+		GroundMetadataStage(OWLDataFactory factory, AnnotationTripleBuffer derivedTriples) {
+			this.factory = factory;
+			this.derivedTriples = derivedTriples;
 		}
 
-		targetOwlManager.addAxioms(targetOwlOntology, allAxioms);
-		for (OWLAnnotation ann : targetOwlOntology.getAnnotations()) {
-			AddOntologyAnnotation addAnn = new AddOntologyAnnotation(targetOwlOntology, ann);
-			targetOwlManager.applyChange(addAnn);
+		@Override
+		public String getName() {
+			return "ground metadata";
 		}
 
-		if (isOBO) {
-			String oboVersion = parserInvocation.getOBOVersion();
-			if (oboVersion != null) {
-				log.info("Adding version: {}", oboVersion);
-				OWLAnnotationProperty prop = fact.getOWLAnnotationProperty(IRI.create(OWLRDFVocabulary.OWL_VERSION_INFO.toString()));
-				IRI versionSubjectIRI = IRI.create("http://bioportal.bioontology.org/ontologies/versionSubject");
-				OWLAnnotationAssertionAxiom annVersion = fact.getOWLAnnotationAssertionAxiom(prop, versionSubjectIRI, fact.getOWLLiteral(oboVersion));
-				targetOwlManager.addAxiom(targetOwlOntology, annVersion);
+		@Override
+		public boolean startOntology(OWLOntology sourceOntology) {
+			addGroundMetadata(sourceOwlManager.getOntologyDocumentIRI(sourceOntology), factory, sourceOntology, derivedTriples);
+			for (OWLAnnotation ann : sourceOntology.getAnnotations()) {
+				AddOntologyAnnotation addAnn = new AddOntologyAnnotation(targetOwlOntology, ann);
+				targetOwlManager.applyChange(addAnn);
 			}
+			return false;
 		}
+	}
 
-		for (OWLOntology sourceOnt : sourceOwlManager.getOntologies()) {
-			for (OWLAnnotation ann : sourceOnt.getAnnotations()) {
-				AddOntologyAnnotation addAnn = new AddOntologyAnnotation(targetOwlOntology, ann);
-				targetOwlManager.applyChange(addAnn);
+	/**
+	 * Collects the distinct axioms of all the source ontologies and adds them to the target ontology.
+	 */
+	private class AxiomCollectionStage implements OntologyStage {
+		private final int sourceAxiomCount;
+		private AxiomFingerprintSet allAxioms;
+
+		AxiomCollectionStage() {
+			int count = 0;
+			for (OWLOntology sourceOnt : sourceOwlManager.getOntologies()) {
+				count += sourceOnt.getAxiomCount();
 			}
+			this.sourceAxiomCount = count;
+			this.allAxioms = new AxiomFingerprintSet(count);
 		}
 
-		escapeXMLLiterals(targetOwlOntology);
+		@Override
+		public String getName() {
+			return "axiom collection";
+		}
 
-		OWLReasonerFactory reasonerFactory = new StructuralReasonerFactory();
-		OWLReasoner reasoner = reasonerFactory.createReasoner(targetOwlOntology);
- 		InferredSubClassAxiomGenerator isc = new InferredSubClassAxiomGenerator();
-		Set<OWLSubClassOfAxiom> subAxs = isc.createAxioms(targetOwlOntology.getOWLOntologyManager().getOWLDataFactory(), reasoner);
-		targetOwlManager.addAxioms(targetOwlOntology, subAxs);
-		deprecateBranch();
+		@Override
+		public boolean isAxiomVisitor() {
+			return true;
+		}
 
-		log.info("isOBO: {}", isOBO);
-		if (isOBO) {
-			replicateHierarchyAsTreeview(fact);
+		@Override
+		public void visitAxiom(OWLAxiom axiom) {
+			allAxioms.add(axiom);
+		}
+
+		@Override
+		public void finish() {
+			log.info("Collected {} distinct axioms out of {} source axioms with {} equality checks",
+					allAxioms.size(), sourceAxiomCount, allAxioms.getEqualityChecks());
+			targetOwlManager.addAxioms(targetOwlOntology, allAxioms);
+			allAxioms = null;
 		}
-		return true;
 	}
 
-	private void replicateHierarchyAsTreeview(OWLDataFactory fact) {
-		Set<OWLAxiom> treeViewAxs = new HashSet<OWLAxiom>();
-		for (OWLAxiom axiom : targetOwlOntology.getAxioms()) {
+	/**
+	 * Derives BioPortal annotations from the existential restrictions on OBO relations, such as
+	 * part_of, contains and develops_from, in the superclasses of named classes.
+	 */
+	private class OBORelationStage implements OntologyStage {
+		private final OWLDataFactory fact;
+		private final AnnotationTripleBuffer derivedTriples;
+
+		OBORelationStage(OWLDataFactory fact, AnnotationTripleBuffer derivedTriples) {
+			this.fact = fact;
+			this.derivedTriples = derivedTriples;
+		}
+
+		@Override
+		public String getName() {
+			return "OBO relations";
+		}
+
+		@Override
+		public boolean isAxiomVisitor() {
+			return true;
+		}
+
+		@Override
+		public void visitAxiom(OWLAxiom axiom) {
 			if (axiom instanceof OWLSubClassOfAxiom) {
-				OWLSubClassOfAxiom scAxiom = (OWLSubClassOfAxiom) axiom;
-				OWLAnnotationProperty prop = fact
-						.getOWLAnnotationProperty(IRI
-								.create("http://data.bioontology.org/metadata/treeView"));
-				if (!scAxiom.getSubClass().isAnonymous()
-						&& !scAxiom.getSuperClass().isAnonymous()) {
-					OWLAxiom annAsse = fact.getOWLAnnotationAssertionAxiom(
-							prop, scAxiom.getSubClass().asOWLClass().getIRI(),
-							scAxiom.getSuperClass().asOWLClass().getIRI());
-					treeViewAxs.add(annAsse);
+				OWLSubClassOfAxiom sc = (OWLSubClassOfAxiom) axiom;
+				OWLClassExpression ce = sc.getSuperClass();
+				try {
+					sc.getSubClass().asOWLClass().getIRI();
+				} catch (OWLRuntimeException exc) {
+					return;
+				}
+
+				if (ce instanceof OWLObjectSomeValuesFrom) {
+					OWLObjectSomeValuesFrom some = (OWLObjectSomeValuesFrom) ce;
+
+					if (!some.getProperty().isAnonymous() && !some.getFiller().isAnonymous()) {
+						String propSome = some.getProperty().asOWLObjectProperty().getIRI().toString().toLowerCase();
+
+						if (propSome.contains("obo")) {
+
+							if (propSome.endsWith("part_of")
+									|| propSome.endsWith("bfo_0000050")
+									|| propSome.endsWith("contains")
+									|| propSome.endsWith("ro_0001019")
+									|| propSome.endsWith("develops_from")
+									|| propSome.endsWith("ro_0002202")) {
+
+								OWLAnnotationProperty prop = null;
+								if (propSome.endsWith("contains") || propSome.endsWith("ro_0001019")) {
+									prop = VocabularyCache.getAnnotationProperty(fact, "http://data.bioontology.org/metadata/obo/contains");
+									derivedTriples.add(prop, some.getFiller().asOWLClass().getIRI(), sc.getSubClass().asOWLClass().getIRI());
+
+									prop = VocabularyCache.getAnnotationProperty(fact, "http://data.bioontology.org/metadata/treeView");
+									derivedTriples.add(prop, some.getFiller().asOWLClass().getIRI(), sc.getSubClass().asOWLClass().getIRI());
+								} else {
+									if (propSome.endsWith("part_of") || propSome.endsWith("bfo_0000050"))
+										prop = VocabularyCache.getAnnotationProperty(fact, "http://data.bioontology.org/metadata/obo/part_of");
+									else {
+										prop = VocabularyCache.getAnnotationProperty(fact, "http://data.bioontology.org/metadata/obo/develops_from");
+									}
+
+									derivedTriples.add(prop, sc.getSubClass().asOWLClass().getIRI(), some.getFiller().asOWLClass().getIRI());
+
+									prop = VocabularyCache.getAnnotationProperty(fact, "http://data.bioontology.org/metadata/treeView");
+									derivedTriples.add(prop, sc.getSubClass().asOWLClass().getIRI(), some.getFiller().asOWLClass().getIRI());
+								}
+							} else {
+								if (!some.getFiller().isAnonymous() && !sc.getSubClass().isAnonymous()) {
+									OWLAnnotationProperty prop = VocabularyCache.getAnnotationProperty(fact, some.getProperty().asOWLObjectProperty().getIRI());
+									derivedTriples.add(prop, sc.getSubClass().asOWLClass().getIRI(), some.getFiller().asOWLClass().getIRI());
+								}
+							}
+						}
+					}
 				}
 			}
 		}
-		targetOwlManager.addAxioms(targetOwlOntology, treeViewAxs);
 	}
 
 	/**
-	 * Checks all root-level ontology classes for deprecation markers. If such a marker is found,
-	 * i.e. owl:deprecated, the ontology class is removed from the list of roots.
+	 * Generates a set of annotation axioms for the target ontology.
 	 * <p>
-	 * Facilitates desired functionality in the <a href="http://bioportal.bioontology.org/">BioPortal</a>
-	 * application for the display of ontology class trees without deprecated branches.
+	 * The purpose of the axioms is to add a skos:notation annotation property to every class in the ontology,
+	 * where the value is set to the OBO term ID. The notation property is meant to act as a unique code for ontology
+	 * classes, which facilitates class ID lookups across various ontology formats in the BioPortal application.
 	 */
-	private void deprecateBranch() {
-		OWLClass thing = targetOwlManager.getOWLDataFactory().getOWLThing();
-
-		Set<OWLSubClassOfAxiom> rootsEdges = targetOwlOntology.getSubClassAxiomsForSuperClass(thing);
-		for (OWLSubClassOfAxiom rootEdge : rootsEdges) {
-			if (!rootEdge.getSubClass().isAnonymous()) {
-				OWLClass subClass = (OWLClass) rootEdge.getSubClass();
-				String rootID = subClass.getIRI().toString();
-				if (rootID.toLowerCase().contains("obo")) {
-					Collection<OWLAnnotation> annotationsRoot = EntitySearcher.getAnnotations(subClass, targetOwlOntology);
-					boolean hasLabel = false;
-
-					for (OWLAnnotation annRoot : annotationsRoot) {
-						hasLabel = hasLabel
-								|| annRoot.getProperty().toString().equals("http://www.w3.org/2000/01/rdf-schema#label")
-								|| annRoot.getProperty().toString().equals("rdfs:label");
-						if (annRoot.isDeprecatedIRIAnnotation()) {
-							if (annRoot.getValue().toString().contains("true")) {
-								RemoveAxiom remove = new RemoveAxiom(targetOwlOntology, rootEdge);
-								targetOwlManager.applyChange(remove);
-							}
-						}
-					}
+	private class OBONotationStage implements OntologyStage {
+		private final OWLAnnotationProperty property;
+		private final AnnotationTripleBuffer derivedTriples;
 
-					Collection<OWLAnnotationAssertionAxiom> assRoot = EntitySearcher.getAnnotationAssertionAxioms(subClass, targetOwlOntology);
-					for (OWLAnnotationAssertionAxiom annRoot : assRoot) {
-						if (annRoot.getProperty().toString().contains("treeView")) {
-							RemoveAxiom remove = new RemoveAxiom(targetOwlOntology, rootEdge);
-							targetOwlManager.applyChange(remove);
-						}
-					}
+		OBONotationStage(OWLDataFactory factory, AnnotationTripleBuffer derivedTriples) {
+			this.property = VocabularyCache.getAnnotationProperty(factory, "http://www.w3.org/2004/02/skos/core#notation");
+			this.derivedTriples = derivedTriples;
+		}
 
-					if (!hasLabel) {
-						RemoveAxiom remove = new RemoveAxiom(targetOwlOntology, rootEdge);
-						targetOwlManager.applyChange(remove);
-					}
-				}
+		@Override
+		public String getName() {
+			return "OBO notations";
+		}
+
+		@Override
+		public boolean isClassVisitor() {
+			return true;
+		}
+
+		@Override
+		public boolean startOntology(OWLOntology sourceOntology) {
+			IRI documentIRI = sourceOwlManager.getOntologyDocumentIRI(sourceOntology);
+			return !documentIRI.toString().startsWith("owlapi:ontology");
+		}
+
+		@Override
+		public void visitClass(OWLClass c) {
+			Optional<String> remainder = c.getIRI().getRemainder();
+			if (remainder.isPresent()) {
+				String classID = remainder.get().replace("_", ":");
+				derivedTriples.add(property, c.getIRI(), classID);
 			}
 		}
 	}
 
-	private void generateSKOSInOwl(Set<OWLAxiom> allAxioms, OWLDataFactory fact, OWLOntology sourceOnt) {
-		OWLDocumentFormat docFormat = this.sourceOwlManager.getOntologyFormat(sourceOnt);
-		PrefixDocumentFormat prefixFormat = docFormat.asPrefixOWLOntologyFormat();
+	/**
+	 * Adds a skos:notation to the classes of OWL ontologies from their oboInOwl#id annotation, or
+	 * failing that a prefixIRI annotation with the prefixed name of the class.
+	 */
+	private class PrefixNotationStage implements OntologyStage {
+		private final boolean isOBO;
+		private final OWLDataFactory fact;
+		private final AnnotationTripleBuffer derivedTriples;
+		private OWLOntology sourceOnt;
+		private PrefixDocumentFormat prefixFormat;
+
+		PrefixNotationStage(boolean isOBO, OWLDataFactory fact, AnnotationTripleBuffer derivedTriples) {
+			this.isOBO = isOBO;
+			this.fact = fact;
+			this.derivedTriples = derivedTriples;
+		}
+
+		@Override
+		public String getName() {
+			return "prefix notations";
+		}
+
+		@Override
+		public boolean isClassVisitor() {
+			return true;
+		}
+
+		@Override
+		public boolean startOntology(OWLOntology sourceOntology) {
+			OWLDocumentFormat docFormat = sourceOwlManager.getOntologyFormat(sourceOntology);
+			boolean isPrefixedOWL = docFormat.isPrefixOWLOntologyFormat();
+			log.info("isPrefixOWLOntologyFormat: {}", isPrefixedOWL);
+			if (isPrefixedOWL == true && !isOBO) {
+				this.sourceOnt = sourceOntology;
+				this.prefixFormat = docFormat.asPrefixOWLOntologyFormat();
+				return true;
+			}
+			return false;
+		}
 
-		Set<OWLClass> classes = sourceOnt.getClassesInSignature();
-		for (OWLClass cls : classes) {
+		@Override
+		public void visitClass(OWLClass cls) {
 			if (!cls.isAnonymous()) {
 				boolean notationFound = false;
 
@@ -326,21 +713,21 @@ public class OntologyParser {
 				}
 
 				if (notationFound) {
-					continue;
+					return;
 				}
 
 				for (OWLAnnotation ann : EntitySearcher.getAnnotations(cls, sourceOnt)) {
 					if (ann.getProperty().toString().contains("http://www.geneontology.org/formats/oboInOwl#id")) {
-						OWLAnnotationProperty prop = fact.getOWLAnnotationProperty(IRI.create("http://www.w3.org/2004/02/skos/core#notation"));
-						OWLAxiom annAsse = fact.getOWLAnnotationAssertionAxiom(prop, cls.getIRI(), ann.getValue());
-						allAxioms.add(annAsse);
+						OWLAnnotationProperty prop = VocabularyCache.getAnnotationProperty(fact, "http://www.w3.org/2004/02/skos/core#notation");
+						OWLAnnotationAssertionAxiom annAsse = fact.getOWLAnnotationAssertionAxiom(prop, cls.getIRI(), ann.getValue());
+						derivedTriples.add(annAsse);
 						notationFound = true;
 						break;
 					}
 				}
 
 				if (notationFound) {
-					continue;
+					return;
 				}
 
 				String prefixIRI = prefixFormat.getPrefixIRI(cls.getIRI());
@@ -358,149 +745,373 @@ public class OntologyParser {
 						prefixIRI = b.toString();
 					}
 
-					OWLAnnotationProperty prop = fact.getOWLAnnotationProperty(IRI.create("http://data.bioontology.org/metadata/prefixIRI"));
-					OWLAxiom annAsse = fact.getOWLAnnotationAssertionAxiom(prop, cls.getIRI(), fact.getOWLLiteral(prefixIRI));
-					allAxioms.add(annAsse);
+					OWLAnnotationProperty prop = VocabularyCache.getAnnotationProperty(fact, "http://data.bioontology.org/metadata/prefixIRI");
+					derivedTriples.add(prop, cls.getIRI(), prefixIRI);
 				}
 			}
 		}
 	}
 
 	/**
-	 * Generates a set of annotation axioms for the target ontology.
-	 * <p>
-	 * The purpose of the axioms is to add a skos:notation annotation property to every class in the ontology,
-	 * where the value is set to the OBO term ID. The notation property is meant to act as a unique code for ontology
-	 * classes, which facilitates class ID lookups across various ontology formats in the BioPortal application.
-	 *
-	 * @param allAxioms			the set of axioms for the target ontology
-	 * @param factory			the OWL data factory of the source ontology
-	 * @param sourceOntology	the source ontology
+	 * Adds the derived annotation triples to the target ontology, with the version of OBO ontologies.
 	 */
-	private void generateSKOSInObo(Set<OWLAxiom> allAxioms, OWLDataFactory factory, OWLOntology sourceOntology) {
-		IRI notationPropertyIRI = IRI.create("http://www.w3.org/2004/02/skos/core#notation");
-		OWLAnnotationProperty property = factory.getOWLAnnotationProperty(notationPropertyIRI);
-
-		Set<OWLClass> classes = sourceOntology.getClassesInSignature();
-		for (OWLClass c : classes) {
-			Optional<String> remainder = c.getIRI().getRemainder();
-			if (remainder.isPresent()) {
-				OWLAnnotationSubject subject = c.getIRI();
+	private class DerivedTriplesStage implements OntologyStage {
+		private final boolean isOBO;
+		private final OWLDataFactory fact;
+		private final AnnotationTripleBuffer derivedTriples;
+
+		DerivedTriplesStage(boolean isOBO, OWLDataFactory fact, AnnotationTripleBuffer derivedTriples) {
+			this.isOBO = isOBO;
+			this.fact = fact;
+			this.derivedTriples = derivedTriples;
+		}
 
-				String classID = remainder.get().replace("_", ":");
-				OWLLiteralImplString value = new OWLLiteralImplString(classID);
+		@Override
+		public String getName() {
+			return "derived triples";
+		}
 
-				OWLAnnotationAssertionAxiom annotationAssertionAxiom = factory.getOWLAnnotationAssertionAxiom(property, subject, value);
-				allAxioms.add(annotationAssertionAxiom);
+		@Override
+		public void finish() {
+			if (isOBO) {
+				String oboVersion = parserInvocation.getOBOVersion();
+				if (oboVersion != null) {
+					log.info("Adding version: {}", oboVersion);
+					OWLAnnotationProperty prop = VocabularyCache.getAnnotationProperty(fact, OWLRDFVocabulary.OWL_VERSION_INFO.getIRI());
+					IRI versionSubjectIRI = VocabularyCache.getIRI("http://bioportal.bioontology.org/ontologies/versionSubject");
+					derivedTriples.add(prop, versionSubjectIRI, oboVersion);
+				}
 			}
+			derivedTriples.addTo(targetOwlManager, targetOwlOntology);
 		}
 	}
 
-	private void escapeXMLLiterals(OWLOntology target) {
-		OWLDataFactory td = targetOwlManager.getOWLDataFactory();
-		Set<OWLClass> classes = target.getClassesInSignature();
-		for (OWLClass cls : classes) {
-			if (!cls.isAnonymous()) {
-				for (OWLAnnotationAssertionAxiom ann : EntitySearcher.getAnnotationAssertionAxioms(cls, target)) {
-					for (OWLDatatype t : ann.getValue().getDatatypesInSignature()) {
-						if (t.toString().contains("XMLLiteral")) {
-							System.out.println("stripping xml " + cls.getIRI().toString() +" "+ ann.getProperty().toString());
-							String noXMLString = ann.getValue().asLiteral().get().getLiteral().replaceAll("\\<.*?\\>", "");
-							System.out.println(ann.getValue().toString());
-							System.out.println(noXMLString);
-							OWLAnnotationAssertionAxiom annAsse = td.getOWLAnnotationAssertionAxiom(
-									ann.getProperty(), cls.getIRI(), td.getOWLLiteral(noXMLString));
-							targetOwlManager.addAxiom(target, annAsse);
-							Set<OWLAnnotationAssertionAxiom> del = new HashSet<OWLAnnotationAssertionAxiom>();
-							del.add(ann);
-							targetOwlManager.removeAxioms(target,del); 
-						}
+	/**
+	 * Strips the markup from the XMLLiteral annotations of the classes in the target ontology.
+	 * <p>
+	 * The annotation assertions with an XMLLiteral value are picked out while the source ontologies
+	 * are traversed, and from the ground metadata and derived triples, so that only those have to be
+	 * checked against the classes of the target ontology when it is complete.
+	 */
+	private class XMLLiteralStage implements OntologyStage {
+		private final AnnotationTripleBuffer derivedTriples;
+		private final List<OWLAnnotationAssertionAxiom> candidates = new ArrayList<OWLAnnotationAssertionAxiom>();
+
+		XMLLiteralStage(AnnotationTripleBuffer derivedTriples) {
+			this.derivedTriples = derivedTriples;
+		}
+
+		@Override
+		public String getName() {
+			return "XML literals";
+		}
+
+		@Override
+		public boolean isAxiomVisitor() {
+			return true;
+		}
+
+		@Override
+		public boolean startOntology(OWLOntology sourceOntology) {
+			OWLOntologyID ontologyID = sourceOntology.getOntologyID();
+			if (!ontologyID.isAnonymous()) {
+				OWLDataFactory factory = sourceOwlManager.getOWLDataFactory();
+				for (OWLAnnotation annotation : sourceOntology.getAnnotations()) {
+					if (isXMLLiteral(annotation.getValue())) {
+						candidates.add(factory.getOWLAnnotationAssertionAxiom(annotation.getProperty(),
+								ontologyID.getOntologyIRI().get(), annotation.getValue()));
 					}
 				}
 			}
+			return true;
 		}
-	}
 
-	private void generateGroundTriplesForAxioms(Set<OWLAxiom> allAxioms, OWLDataFactory fact, OWLOntology sourceOnt) {
+		@Override
+		public void visitAxiom(OWLAxiom axiom) {
+			if (axiom instanceof OWLAnnotationAssertionAxiom && isXMLLiteral(((OWLAnnotationAssertionAxiom) axiom).getValue())) {
+				candidates.add((OWLAnnotationAssertionAxiom) axiom);
+			}
+		}
 
-		for (OWLAxiom axiom : sourceOnt.getAxioms()) {
-			allAxioms.add(axiom);
+		@Override
+		public void finish() {
+			for (OWLAnnotationAssertionAxiom ann : derivedTriples.getOtherAxioms()) {
+				if (isXMLLiteral(ann.getValue())) {
+					candidates.add(ann);
+				}
+			}
 
-			if (axiom instanceof OWLSubClassOfAxiom) {
-				OWLSubClassOfAxiom sc = (OWLSubClassOfAxiom) axiom;
-				OWLClassExpression ce = sc.getSuperClass();
-				try {
-					sc.getSubClass().asOWLClass().getIRI();
-				} catch (OWLRuntimeException exc) {
+			OWLDataFactory td = targetOwlManager.getOWLDataFactory();
+			for (OWLAnnotationAssertionAxiom ann : candidates) {
+				if (!ann.getSubject().isIRI() || !targetOwlOntology.containsClassInSignature((IRI) ann.getSubject())
+						|| !targetOwlOntology.containsAxiom(ann)) {
 					continue;
 				}
+				IRI clsIRI = (IRI) ann.getSubject();
+				String noXMLString = ann.getValue().asLiteral().get().getLiteral().replaceAll("\\<.*?\\>", "");
+				log.debug("Stripping XML from {} {}: {} -> {}", clsIRI, ann.getProperty(), ann.getValue(), noXMLString);
+				OWLAnnotationAssertionAxiom annAsse = td.getOWLAnnotationAssertionAxiom(
+						ann.getProperty(), clsIRI, td.getOWLLiteral(noXMLString));
+				targetOwlManager.addAxiom(targetOwlOntology, annAsse);
+				Set<OWLAnnotationAssertionAxiom> del = new HashSet<OWLAnnotationAssertionAxiom>();
+				del.add(ann);
+				targetOwlManager.removeAxioms(targetOwlOntology, del);
+			}
+		}
 
-				if (ce instanceof OWLObjectSomeValuesFrom) {
-					OWLObjectSomeValuesFrom some = (OWLObjectSomeValuesFrom) ce;
-
-					if (!some.getProperty().isAnonymous() && !some.getFiller().isAnonymous()) {
-						String propSome = some.getProperty().asOWLObjectProperty().getIRI().toString().toLowerCase();
+		private boolean isXMLLiteral(OWLAnnotationValue value) {
+			for (OWLDatatype t : value.getDatatypesInSignature()) {
+				if (t.toString().contains("XMLLiteral")) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
 
-						if (propSome.contains("obo")) {
+	/**
+	 * Adds the direct subclass axioms inferred by the structural reasoner, which include the edges
+	 * from the root classes to owl:Thing.
+	 */
+	private class InferredHierarchyStage implements OntologyStage {
 
-							if (propSome.endsWith("part_of")
-									|| propSome.endsWith("bfo_0000050")
-									|| propSome.endsWith("contains")
-									|| propSome.endsWith("ro_0001019")
-									|| propSome.endsWith("develops_from")
-									|| propSome.endsWith("ro_0002202")) {
+		@Override
+		public String getName() {
+			return "inferred hierarchy";
+		}
 
-								OWLAnnotationProperty prop = null;
-								if (propSome.endsWith("contains") || propSome.endsWith("ro_0001019")) {
-									prop = fact.getOWLAnnotationProperty(IRI.create("http://data.bioontology.org/metadata/obo/contains"));
-									OWLAxiom annAsse = fact.getOWLAnnotationAssertionAxiom(prop, some.getFiller().asOWLClass().getIRI(), sc.getSubClass().asOWLClass().getIRI());
-									allAxioms.add(annAsse);
+		@Override
+		public void finish() {
+			memoryWatchdog.check();
+			if (memoryWatchdog.isLowMemory()) {
+				log.warn("Low memory: skipping inferred subclass axioms");
+			} else {
+				OWLReasonerFactory reasonerFactory = new StructuralReasonerFactory();
+				OWLReasoner reasoner = reasonerFactory.createReasoner(targetOwlOntology);
+				InferredSubClassAxiomGenerator isc = new InferredSubClassAxiomGenerator();
+				Set<OWLSubClassOfAxiom> subAxs = isc.createAxioms(targetOwlOntology.getOWLOntologyManager().getOWLDataFactory(), reasoner);
+				targetOwlManager.addAxioms(targetOwlOntology, subAxs);
+			}
+		}
+	}
 
-									prop = fact.getOWLAnnotationProperty(IRI.create("http://data.bioontology.org/metadata/treeView"));
-									annAsse = fact.getOWLAnnotationAssertionAxiom(prop, some.getFiller().asOWLClass().getIRI(), sc.getSubClass().asOWLClass().getIRI());
-									allAxioms.add(annAsse);
-								} else {
-									if (propSome.endsWith("part_of") || propSome.endsWith("bfo_0000050"))
-										prop = fact.getOWLAnnotationProperty(IRI.create("http://data.bioontology.org/metadata/obo/part_of"));
-									else {
-										prop = fact.getOWLAnnotationProperty(IRI.create("http://data.bioontology.org/metadata/obo/develops_from"));
-									}
+	/**
+	 * Checks all root-level ontology classes for deprecation markers. If such a marker is found,
+	 * i.e. owl:deprecated, the ontology class is removed from the list of roots.
+	 * <p>
+	 * Facilitates desired functionality in the <a href="http://bioportal.bioontology.org/">BioPortal</a>
+	 * application for the display of ontology class trees without deprecated branches.
+	 */
+	private class DeprecatedBranchStage implements OntologyStage {
 
-									OWLAxiom annAsse = fact.getOWLAnnotationAssertionAxiom(prop, sc.getSubClass().asOWLClass().getIRI(), some.getFiller().asOWLClass().getIRI());
-									allAxioms.add(annAsse);
+		@Override
+		public String getName() {
+			return "deprecated branches";
+		}
 
-									prop = fact.getOWLAnnotationProperty(IRI.create("http://data.bioontology.org/metadata/treeView"));
-									annAsse = fact.getOWLAnnotationAssertionAxiom(prop, sc.getSubClass().asOWLClass().getIRI(), some.getFiller().asOWLClass().getIRI());
-									allAxioms.add(annAsse);
-								}
-							} else {
-								if (!some.getFiller().isAnonymous() && !sc.getSubClass().isAnonymous()) {
-									OWLAnnotationProperty prop = fact.getOWLAnnotationProperty(some.getProperty().asOWLObjectProperty().getIRI());
-									OWLAxiom annAsse = fact.getOWLAnnotationAssertionAxiom(prop, sc.getSubClass().asOWLClass().getIRI(), some.getFiller().asOWLClass().getIRI());
-									allAxioms.add(annAsse);
+		@Override
+		public void finish() {
+			OWLClass thing = targetOwlManager.getOWLDataFactory().getOWLThing();
+
+			Set<OWLSubClassOfAxiom> rootsEdges = targetOwlOntology.getSubClassAxiomsForSuperClass(thing);
+			for (OWLSubClassOfAxiom rootEdge : rootsEdges) {
+				if (!rootEdge.getSubClass().isAnonymous()) {
+					OWLClass subClass = (OWLClass) rootEdge.getSubClass();
+					String rootID = subClass.getIRI().toString();
+					if (rootID.toLowerCase().contains("obo")) {
+						Collection<OWLAnnotation> annotationsRoot = EntitySearcher.getAnnotations(subClass, targetOwlOntology);
+						boolean hasLabel = false;
+
+						for (OWLAnnotation annRoot : annotationsRoot) {
+							hasLabel = hasLabel
+									|| annRoot.getProperty().toString().equals("http://www.w3.org/2000/01/rdf-schema#label")
+									|| annRoot.getProperty().toString().equals("rdfs:label");
+							if (annRoot.isDeprecatedIRIAnnotation()) {
+								if (annRoot.getValue().toString().contains("true")) {
+									RemoveAxiom remove = new RemoveAxiom(targetOwlOntology, rootEdge);
+									targetOwlManager.applyChange(remove);
 								}
 							}
 						}
+
+						Collection<OWLAnnotationAssertionAxiom> assRoot = EntitySearcher.getAnnotationAssertionAxioms(subClass, targetOwlOntology);
+						for (OWLAnnotationAssertionAxiom annRoot : assRoot) {
+							if (annRoot.getProperty().toString().contains("treeView")) {
+								RemoveAxiom remove = new RemoveAxiom(targetOwlOntology, rootEdge);
+								targetOwlManager.applyChange(remove);
+							}
+						}
+
+						if (!hasLabel) {
+							RemoveAxiom remove = new RemoveAxiom(targetOwlOntology, rootEdge);
+							targetOwlManager.applyChange(remove);
+						}
 					}
 				}
 			}
 		}
 	}
 
+	/**
+	 * Replicates the class hierarchy of OBO ontologies as treeView annotations, from the subclass
+	 * axioms of the target ontology once the inferred hierarchy is added and the deprecated branches
+	 * are removed.
+	 */
+	private class TreeViewStage implements OntologyStage {
+		private final OWLDataFactory fact;
+
+		TreeViewStage(OWLDataFactory fact) {
+			this.fact = fact;
+		}
+
+		@Override
+		public String getName() {
+			return "tree view";
+		}
+
+		@Override
+		public void finish() {
+			memoryWatchdog.check();
+			if (memoryWatchdog.isLowMemory()) {
+				log.warn("Low memory: skipping treeView replication of the class hierarchy");
+				return;
+			}
+
+			AnnotationTripleBuffer treeViewTriples = new AnnotationTripleBuffer();
+			OWLAnnotationProperty prop = VocabularyCache.getAnnotationProperty(fact,
+					"http://data.bioontology.org/metadata/treeView");
+			for (OWLSubClassOfAxiom scAxiom : targetOwlOntology.getAxioms(AxiomType.SUBCLASS_OF)) {
+				if (!scAxiom.getSubClass().isAnonymous()
+						&& !scAxiom.getSuperClass().isAnonymous()) {
+					treeViewTriples.add(prop, scAxiom.getSubClass().asOWLClass().getIRI(),
+							scAxiom.getSuperClass().asOWLClass().getIRI());
+				}
+			}
+			treeViewTriples.addTo(targetOwlManager, targetOwlOntology);
+		}
+	}
+
+	/**
+	 * Exports a search document per class of the complete target ontology. A failed export is
+	 * recorded as an error but does not prevent the serialization of the ontology.
+	 */
+	private class SearchDocumentStage implements OntologyStage {
+
+		@Override
+		public String getName() {
+			return "search documents";
+		}
+
+		@Override
+		public void finish() {
+			try {
+				new SearchDocumentWriter(targetOwlOntology, parserInvocation.getSearchDocumentsFile(),
+						parserInvocation.getOutputCompression()).write();
+			} catch (IOException e) {
+				log.error(e.getMessage());
+				parserLog.addError(ParserError.OWL_STORAGE_EXCEPTION, "Error writing search documents " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Exports the class hierarchy of the complete target ontology, with the treeView edges of OBO
+	 * ontologies. A failed export is recorded as an error but does not prevent the serialization of
+	 * the ontology.
+	 */
+	private class HierarchyStage implements OntologyStage {
+		private final boolean isOBO;
+
+		HierarchyStage(boolean isOBO) {
+			this.isOBO = isOBO;
+		}
+
+		@Override
+		public String getName() {
+			return "hierarchy";
+		}
+
+		@Override
+		public void finish() {
+			try {
+				HierarchyFile.write(targetOwlOntology, isOBO, parserInvocation.getHierarchyFile());
+			} catch (IOException e) {
+				log.error(e.getMessage());
+				parserLog.addError(ParserError.OWL_STORAGE_EXCEPTION, "Error writing the hierarchy " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Collects the cross-references and mappings while the source axioms are traversed, and exports
+	 * them once the traversal is done. A failed export is recorded as an error but does not prevent
+	 * the serialization of the ontology.
+	 */
+	private class MappingStage implements OntologyStage {
+		private MappingTable mappings = new MappingTable();
+		private OWLOntology sourceOnt;
+
+		@Override
+		public String getName() {
+			return "mappings";
+		}
+
+		@Override
+		public boolean isAxiomVisitor() {
+			return true;
+		}
+
+		@Override
+		public boolean startOntology(OWLOntology sourceOntology) {
+			this.sourceOnt = sourceOntology;
+			return true;
+		}
+
+		@Override
+		public void visitAxiom(OWLAxiom axiom) {
+			mappings.add(axiom, sourceOnt);
+		}
+
+		@Override
+		public void finish() {
+			try {
+				mappings.write(parserInvocation.getMappingsFile(), parserInvocation.getOutputCompression());
+			} catch (IOException e) {
+				log.error(e.getMessage());
+				parserLog.addError(ParserError.OWL_STORAGE_EXCEPTION, "Error writing mappings " + e.getMessage());
+			}
+			mappings = null;
+		}
+	}
+
 	/*
 	 * Parses one or more ontology files.
 	 */
 	public boolean parse() throws Exception {
 		boolean result = false;
 
-		try {
+		try (MemoryWatchdog watchdog = memoryWatchdogFactory.get();
+				ParserExecutors parserExecutors = new ParserExecutors(parserInvocation.isVirtualThreads());
+				ProgressReporter progressReporter = new ProgressReporter(parserInvocation.isInMemory() ? null
+						: new File(parserInvocation.getOutputRepositoryFolder(), OntologyParserConstants.PROGRESS_FILE))) {
+			this.memoryWatchdog = watchdog;
+			this.executors = parserExecutors;
+			this.progress = progressReporter;
 			result = internalParse();
+			progress.startStage(result ? "done" : "failed");
+		} catch (OutOfMemoryError e) {
+			releaseOntologies();
+			log.error("Out of memory while parsing {}", parserInvocation.getMasterFileName());
+			parserLog.addError(ParserError.MEMORY_LIMIT_EXCEEDED, "Out of memory while parsing " + parserInvocation.getMasterFileName());
 		} catch (Exception e) {
 			log.error(e.getMessage());
 			parserLog.addError(ParserError.UNKNOWN, "Error " + e.getMessage());
+		} finally {
+			closeInputArchive();
+			VocabularyCache.logStats();
 		}
 
-		if (parserLog.getErrors().size() > 0) {
+		if (parserLog.hasErrors() && !parserInvocation.isInMemory()) {
 			parserInvocation.saveErrors();
 		}
 
@@ -508,9 +1119,28 @@ public class OntologyParser {
 	}
 
 	private boolean internalParse() {
+		if (parserInvocation.isParallelOBO()) {
+			parallelOBOParser = new ParallelOBOParser.Factory(executors.getCPUExecutor(), OntologyParserConstants.OBO_CHUNK_SIZE);
+			addPreferredParser(parallelOBOParser);
+		}
+		if (parserInvocation.isParallelNTriples()) {
+			// N-Triples documents are read by the Turtle parser by default
+			addPreferredParser(new ParallelNTriplesParser.Factory(new RioTurtleDocumentFormatFactory(), "nt",
+					executors.getCPUExecutor(), OntologyParserConstants.NTRIPLES_CHUNK_SIZE));
+			addPreferredParser(new ParallelNTriplesParser.Factory(new NQuadsDocumentFormatFactory(), "nq",
+					executors.getCPUExecutor(), OntologyParserConstants.NTRIPLES_CHUNK_SIZE));
+		}
+		ParserStageEvent event = startStage("discovery");
 		findLocalOntologies();
+		event.finish(sourceOwlManager.getOntologies(), null);
 
+		event = startStage("load");
+		progress.trackAxioms(loadedAxioms::get, () -> -1);
 		OWLOntology ontology = findMasterFile();
+		if (ontology != null && parallelOBOParser != null) {
+			findParsedOBODataVersion(ontology);
+		}
+		event.finish(sourceOwlManager.getOntologies(), null);
 
 		if (ontology == null) {
 			String msg = String.format("Can't process %s in input folder! Allowed file extensions are the following ones : %s.", parserInvocation.getMasterFileName(), Arrays.toString(OntologySuffixFileFilter.acceptedFileExtensions));
@@ -519,81 +1149,189 @@ public class OntologyParser {
 			return false;
 		}
 
-		OntologyMetrics metrics = new OntologyMetrics(ontology, parserInvocation);
+		if (isMemoryExhausted("metrics")) return false;
+
+		event = startStage("metrics");
+		metrics = new OntologyMetrics(ontology, parserInvocation);
 		metrics.generate();
+		event.finish(sourceOwlManager.getOntologies(), null);
 
 		boolean isOBO = isOBO(ontology);
 
+		if (isMemoryExhausted("building the target ontology")) return false;
+
 		if (!buildOWLOntology(isOBO)) return false;
 
-		if (!serializeOntology()) return false;
+		if (parserInvocation.isInMemory()) return true;
 
-		return true;
+		if (isMemoryExhausted("serialization")) return false;
+
+		if (memoryWatchdog.isLowMemory()) {
+			log.warn("Low memory: releasing source ontologies before serialization");
+			removeAllOntologies(sourceOwlManager);
+		}
+
+		event = startStage("serialization");
+		boolean serialized = serializeOntology();
+		event.finish(sourceOwlManager.getOntologies(), targetOwlOntology);
+		return serialized;
+	}
+
+	/**
+	 * Reports a stage of the parse as running, and begins its event.
+	 */
+	private ParserStageEvent startStage(String stage) {
+		progress.startStage(stage);
+		return ParserStageEvent.start(parserInvocation, stage);
+	}
+
+	/**
+	 * Checks the memory watchdog before starting a stage, and records an error if there
+	 * is not enough heap left to continue.
+	 */
+	private boolean isMemoryExhausted(String stage) {
+		memoryWatchdog.check();
+		if (memoryWatchdog.isCritical()) {
+			String msg = String.format("Not enough memory to continue parsing %s, aborted before %s",
+					parserInvocation.getMasterFileName(), stage);
+			log.error(msg);
+			parserLog.addError(ParserError.MEMORY_LIMIT_EXCEEDED, msg);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Drops all loaded ontologies so that the heap can be reclaimed after an out of memory error.
+	 */
+	private void releaseOntologies() {
+		targetOwlOntology = null;
+		removeAllOntologies(targetOwlManager);
+		removeAllOntologies(sourceOwlManager);
+	}
+
+	private void removeAllOntologies(OWLOntologyManager manager) {
+		for (OWLOntology ontology : manager.getOntologies()) {
+			manager.removeOntology(ontology);
+		}
 	}
 
 	private boolean serializeOntology() {
-		log.info("Serializing ontology in RDF ...");
-		File output = new File(parserInvocation.getOutputRepositoryFolder()
-				+ File.separator + "owlapi.xrdf");
-		IRI newPath = IRI.create("file:" + output.getAbsolutePath());
-		try {
-			this.targetOwlManager.saveOntology(this.targetOwlOntology, new RDFXMLDocumentFormat(),newPath);
-		} catch (OWLOntologyStorageException e) {
+		if (parserInvocation.isShardedOutput()) {
+			return serializeOntologyShards();
+		}
+
+		OutputFormat outputFormat = parserInvocation.getOutputFormat();
+		OutputCompression outputCompression = parserInvocation.getOutputCompression();
+		log.info("Serializing ontology as {} (compression: {}) ...", outputFormat.getName(), outputCompression.getName());
+
+		File output = parserInvocation.getOutputFile();
+		long startTime = System.nanoTime();
+		try (AtomicOutputFile outputFile = new AtomicOutputFile(output)) {
+			OutputStream out = outputCompression.wrap(outputFile.getOutputStream());
+			this.targetOwlManager.saveOntology(this.targetOwlOntology, outputFormat.createDocumentFormat(), out);
+			out.close();
+			outputFile.commit();
+		} catch (OWLOntologyStorageException | IOException e) {
 			log.error(e.getMessage());
 			parserLog.addError(ParserError.OWL_STORAGE_EXCEPTION, "Error buildOWLOntology" + e.getMessage());
-			if (output.exists()) {
-				output.renameTo(new File(parserInvocation.getOutputRepositoryFolder() + File.separator + "owlapi.xrdf.incomplete"));
+			return false;
+		}
+		long estimatedTime = (System.nanoTime() - startTime) / 1000000;
+		log.info("Serialization done in {} milliseconds, wrote {} bytes to {}", estimatedTime, output.length(), output.getName());
+		return true;
+	}
+
+	private boolean serializeOntologyShards() {
+		int shardCount = parserInvocation.getOutputShards();
+		log.info("Serializing ontology as {} N-Triples shards ...", shardCount);
+
+		long startTime = System.nanoTime();
+		ShardedNTriplesWriter writer = new ShardedNTriplesWriter(targetOwlOntology, shardCount,
+				new File(parserInvocation.getOutputRepositoryFolder()), parserInvocation.getOutputCompression(),
+				executors.getIOExecutor());
+		memoryWatchdog.check();
+		if (memoryWatchdog.isLowMemory()) {
+			log.warn("Low memory: writing the shards one at a time");
+			writer.setSequential(true);
+		}
+		try {
+			long triples = 0;
+			for (ShardedNTriplesWriter.Shard shard : writer.write()) {
+				triples += shard.getTriples();
 			}
+			long estimatedTime = (System.nanoTime() - startTime) / 1000000;
+			log.info("Serialization done in {} milliseconds, wrote {} triples in {} shards", estimatedTime, triples, shardCount);
+		} catch (OWLOntologyStorageException | IOException e) {
+			log.error(e.getMessage());
+			parserLog.addError(ParserError.OWL_STORAGE_EXCEPTION, "Error serializeOntologyShards" + e.getMessage());
 			return false;
 		}
-		log.info("Serialization done!");
 		return true;
 	}
 
 	private OWLOntology findMasterFile() {
 		OWLOntologyLoaderConfiguration conf = new OWLOntologyLoaderConfiguration();
 		conf = conf.setMissingImportHandlingStrategy(MissingImportHandlingStrategy.SILENT);
+		conf = conf.setConnectionTimeout(parserInvocation.getImportTimeout());
 		LogMissingImports missingHandler = new LogMissingImports(parserLog);
 		sourceOwlManager.addMissingImportListener(missingHandler);
 
 		if (parserInvocation.getInputRepositoryFolder() == null) {
 			try {
-				File file = new File(parserInvocation.getMasterFileName());
-				FileDocumentSource fileDocumentSource = new FileDocumentSource(file);
-				OWLOntology ontology = sourceOwlManager.loadOntologyFromOntologyDocument(fileDocumentSource, conf);
+				OWLOntology ontology = OntologyFormatSniffer.load(sourceOwlManager, ontologies.get(0), conf);
 				return ontology;
-			} catch (OWLOntologyCreationException e) {
+			} catch (OWLOntologyCreationException | IOException e) {
 				log.error(e.getMessage());
 				parserLog.addError(ParserError.OWL_PARSE_EXCEPTION, e.getMessage());
 				return null;
 			}
 		}
 
-		// repo input for zip files
-		File master = new File(new File(parserInvocation.getInputRepositoryFolder()), parserInvocation.getMasterFileName());
-		log.info("master.getAbsolutePath(): {}", master.getAbsolutePath());
+		Path master;
+		if (inputArchive != null) {
+			master = inputArchive.getPath("/", parserInvocation.getMasterFileName());
+		} else {
+			master = new File(new File(parserInvocation.getInputRepositoryFolder()), parserInvocation.getMasterFileName()).toPath();
+		}
+		log.info("master.getAbsolutePath(): {}", master.toAbsolutePath());
 
 		OntologyBean selectedBean = null;
 		for (OntologyBean b : ontologies) {
-			if (b.getFile().getAbsolutePath().equals(master.getAbsolutePath())) {
+			if (b.getPath().toAbsolutePath().equals(master.toAbsolutePath())) {
 				selectedBean = b;
 			}
 		}
 		if (selectedBean == null) {
 			for (OntologyBean b : ontologies) {
-				if (b.getFile().getName().equals(parserInvocation.getMasterFileName())) {
+				if (b.getPath().getFileName().toString().equals(parserInvocation.getMasterFileName())) {
+					selectedBean = b;
+				}
+			}
+		}
+		if (selectedBean == null) {
+			// A compressed master file named without its compression suffix
+			for (OntologyBean b : ontologies) {
+				if (InputCompression.stripSuffix(b.getPath().getFileName().toString()).equals(parserInvocation.getMasterFileName())) {
 					selectedBean = b;
 				}
 			}
 		}
 
 		if (selectedBean != null) {
-			log.info("Selected master file: {}", selectedBean.getFile().getAbsolutePath());
+			log.info("Selected master file: {}", selectedBean.getPath().toAbsolutePath());
+			if (parserInvocation.isParallelImports()) {
+				try {
+					new ImportPreloader(sourceOwlManager, ontologies, conf, executors, loadedAxioms::addAndGet).preload(selectedBean);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return null;
+				}
+			}
 			try {
-				FileDocumentSource documentSource = new FileDocumentSource(selectedBean.getFile());
-				OWLOntology ontology = sourceOwlManager.loadOntologyFromOntologyDocument(documentSource, conf);
+				OWLOntology ontology = OntologyFormatSniffer.load(sourceOwlManager, selectedBean, conf);
 				return ontology;
-			} catch (OWLOntologyCreationException e) {
+			} catch (OWLOntologyCreationException | IOException e) {
 				log.error(e.getMessage());
 				parserLog.addError(ParserError.OWL_PARSE_EXCEPTION, e.getMessage());
 				return null;
@@ -606,4 +1344,25 @@ public class OntologyParser {
 		return this.sourceOwlManager.getOntologies();
 	}
 
+	/**
+	 * Returns the target ontology built by the parse, or null if it did not get that far.
+	 */
+	public OWLOntology getTargetOntology() {
+		return this.targetOwlOntology;
+	}
+
+	/**
+	 * Returns the number of axioms of the source ontologies loaded, including the preloaded imports.
+	 */
+	public long getLoadedAxioms() {
+		return this.loadedAxioms.get();
+	}
+
+	/**
+	 * Returns the metrics of the master ontology, or null if it could not be loaded.
+	 */
+	public OntologyMetrics getMetrics() {
+		return this.metrics;
+	}
+
 }
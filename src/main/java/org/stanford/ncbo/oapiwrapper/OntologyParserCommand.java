@@ -18,7 +18,35 @@ public class OntologyParserCommand {
 				.addOption("o","output-repository", true,
 						"Path to folder where output data repository is located")
 				.addOption("r","reasoner", true,
-						"Option to use the reasoner");
+						"Option to use the reasoner")
+				.addOption("f","output-format", true,
+						"Output serialization: rdfxml (default), ntriples or turtle")
+				.addOption("c","output-compression", true,
+						"Output compression: none (default) or gzip")
+				.addOption("s","output-shards", true,
+						"Split the output into this many N-Triples shard files for parallel bulk loading")
+				.addOption("d","search-documents", false,
+						"Export a search document per class as JSON lines")
+				.addOption("e","hierarchy", false,
+						"Export the class hierarchy with its ancestor closure as a binary file")
+				.addOption("g","mappings", false,
+						"Export the cross-references and mappings of the classes as a sorted TSV file")
+				.addOption("p","parallel-imports", false,
+						"Parse the local documents imported by the master file concurrently")
+				.addOption("x","streaming-rdfxml", false,
+						"Read RDF/XML source documents with the streaming parser")
+				.addOption("b","parallel-obo", false,
+						"Parse the stanzas of OBO source documents concurrently")
+				.addOption("q","parallel-ntriples", false,
+						"Parse the lines of N-Triples and N-Quads source documents concurrently")
+				.addOption("t","virtual-threads", false,
+						"Run OBO version scans, import header reads and shard writes on virtual threads (Java 21 or later)")
+				.addOption("l","import-mirror", true,
+						"Path to folder where remote imports are mirrored")
+				.addOption("n","offline", false,
+						"Resolve remote imports from the import mirror only")
+				.addOption("w","import-timeout", true,
+						"Timeout of remote import downloads in milliseconds");
 		
 		CommandLineParser clp = new DefaultParser();
 		try {
@@ -26,10 +54,51 @@ public class OntologyParserCommand {
 			String inputRepoPath = call.getOptionValue("i");
 			String outputRepoPath = call.getOptionValue("o");
 			String masterFileName = call.getOptionValue("m");
+			if (outputRepoPath == null) {
+				throw new ParseException("Missing output repository folder");
+			}
 			String reasoner = call.getOptionValue("r");
 			Boolean bReasoner = reasoner == null || reasoner.equals("true");
 
 			ParserInvocation pi = new ParserInvocation(inputRepoPath, outputRepoPath, masterFileName, bReasoner);
+			if (call.hasOption("f")) {
+				OutputFormat outputFormat = OutputFormat.fromName(call.getOptionValue("f"));
+				if (outputFormat == null) {
+					throw new ParseException("Unknown output format: " + call.getOptionValue("f"));
+				}
+				pi.setOutputFormat(outputFormat);
+			}
+			if (call.hasOption("c")) {
+				OutputCompression outputCompression = OutputCompression.fromName(call.getOptionValue("c"));
+				if (outputCompression == null) {
+					throw new ParseException("Unknown output compression: " + call.getOptionValue("c"));
+				}
+				pi.setOutputCompression(outputCompression);
+			}
+			pi.setSearchDocuments(call.hasOption("d"));
+			pi.setHierarchyExport(call.hasOption("e"));
+			pi.setMappingsExport(call.hasOption("g"));
+			pi.setParallelImports(call.hasOption("p"));
+			pi.setStreamingRDFXML(call.hasOption("x"));
+			pi.setParallelOBO(call.hasOption("b"));
+			pi.setParallelNTriples(call.hasOption("q"));
+			pi.setVirtualThreads(call.hasOption("t"));
+			pi.setImportMirrorFolder(call.getOptionValue("l"));
+			pi.setOfflineImports(call.hasOption("n"));
+			if (call.hasOption("w")) {
+				try {
+					pi.setImportTimeout(Integer.parseInt(call.getOptionValue("w")));
+				} catch (NumberFormatException e) {
+					throw new ParseException("Invalid import timeout: " + call.getOptionValue("w"));
+				}
+			}
+			if (call.hasOption("s")) {
+				try {
+					pi.setOutputShards(Integer.parseInt(call.getOptionValue("s")));
+				} catch (NumberFormatException e) {
+					throw new ParseException("Invalid number of output shards: " + call.getOptionValue("s"));
+				}
+			}
 			if (!pi.valid()) {
 				log.info("Parsing invocation with values: {}", pi.toString());
 				log.error("Invalid invocation!");
@@ -54,7 +123,7 @@ public class OntologyParserCommand {
 				log.error(pi.getParserLog().toString());
 				System.exit(-1);
 			}
-			File f = new File(pi.getOutputRepositoryFolder() + File.separator + "owlapi.xrdf");
+			File f = pi.getOutputFile();
 			log.info("Parse result: {}", parseResult);
 			log.info("Output triples in: {}" + f.getAbsolutePath());
 		} catch (ParseException e) {
@@ -14,4 +14,106 @@ public final class OntologyParserConstants {
 
     public static final String [] METRICS_FILE_HEADERS = { METRICS_CLASS_COUNT, METRICS_INDIVIDUAL_COUNT, METRICS_PROPERY_COUNT };
 
+    // Errors
+
+    public static final String ERRORS_FILE = "errors.log";
+
+    public static final String ERRORS_JSON_FILE = "errors.json";
+
+    public static final int ERROR_SAMPLES_PER_CODE = 20;
+
+    // Input
+
+    public static final String ARCHIVE_FILE_SUFFIX = ".zip";
+
+    public static final int INPUT_BUFFER_SIZE = 1 << 20;
+
+    public static final int SNIFF_BUFFER_SIZE = 8 << 10;
+
+    public static final int OBO_CHUNK_SIZE = 4 << 20;
+
+    public static final int NTRIPLES_CHUNK_SIZE = 4 << 20;
+
+    public static final String IN_MEMORY_DOCUMENT_SCHEME = "memory";
+
+    // Import mirror
+
+    public static final String IMPORT_MIRROR_INDEX_FILE = "index.properties";
+
+    public static final String IMPORT_MIRROR_OBJECTS_FOLDER = "objects";
+
+    public static final String IMPORT_MIRROR_UNAVAILABLE = "unavailable";
+
+    public static final int IMPORT_TIMEOUT = 20000;
+
+    public static final int IMPORT_MAX_REDIRECTS = 8;
+
+    // Output
+
+    public static final String OUTPUT_FILE_RDF_XML = "owlapi.xrdf";
+
+    public static final String OUTPUT_FILE_N_TRIPLES = "owlapi.nt";
+
+    public static final String OUTPUT_FILE_TURTLE = "owlapi.ttl";
+
+    public static final String INCOMPLETE_FILE_SUFFIX = ".incomplete";
+
+    public static final int OUTPUT_BUFFER_SIZE = 1 << 20;
+
+    // Sharded output
+
+    public static final String SHARD_FILE_PATTERN = "owlapi-%05d.nt";
+
+    public static final String SHARD_MANIFEST_FILE = "owlapi-manifest.csv";
+
+    public static final String SHARD_MANIFEST_FILE_NAME = "File";
+
+    public static final String SHARD_MANIFEST_BYTES = "Bytes";
+
+    public static final String SHARD_MANIFEST_TRIPLES = "Triples";
+
+    public static final String [] SHARD_MANIFEST_HEADERS = { SHARD_MANIFEST_FILE_NAME, SHARD_MANIFEST_BYTES, SHARD_MANIFEST_TRIPLES };
+
+    // Progress
+
+    public static final String PROGRESS_FILE = "progress.json";
+
+    public static final long PROGRESS_INTERVAL = 5000;
+
+    // Exports
+
+    public static final String SEARCH_DOCUMENTS_FILE = "search.jsonl";
+
+    public static final String HIERARCHY_FILE = "hierarchy.bin";
+
+    public static final String MAPPINGS_FILE = "mappings.tsv";
+
+    // Target ontology
+
+    public static final int TERM_DICTIONARY_CHUNK_SIZE = 1 << 20;
+
+    public static final int AXIOM_BATCH_SIZE = 1 << 16;
+
+    // Pipeline
+
+    public static final int STAGE_BATCH_SIZE = 1024;
+
+    // Caches
+
+    public static final int IRI_CACHE_SIZE = 100000;
+
+    public static final int ANNOTATION_PROPERTY_CACHE_SIZE = 10000;
+
+    public static final int LITERAL_CACHE_SIZE = 100000;
+
+    // Threads
+
+    public static final int IO_THREADS = 16;
+
+    // Memory
+
+    public static final double LOW_MEMORY_RATIO = 0.80;
+
+    public static final double CRITICAL_MEMORY_RATIO = 0.95;
+
 }
@@ -0,0 +1,54 @@
+package org.stanford.ncbo.oapiwrapper;
+
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLOntology;
+
+/**
+ * A transformation from the source ontologies to the target ontology, run by a
+ * {@link TransformationPipeline}.
+ * <p>
+ * The pipeline traverses the axioms and the class signature of each source ontology once, handing
+ * every axiom and class to all the stages visiting them, then finishes the stages one after the other
+ * in the order they were registered. Stages should rely on the indexes of the target ontology in
+ * {@link #finish()} rather than scanning it again.
+ */
+public interface OntologyStage {
+
+	String getName();
+
+	/**
+	 * Returns whether the stage visits the axioms of the source ontologies.
+	 */
+	default boolean isAxiomVisitor() {
+		return false;
+	}
+
+	/**
+	 * Returns whether the stage visits the classes in the signature of the source ontologies.
+	 */
+	default boolean isClassVisitor() {
+		return false;
+	}
+
+	/**
+	 * Called before the traversal of each source ontology.
+	 *
+	 * @return	whether the axioms and classes of the ontology should be visited by this stage
+	 */
+	default boolean startOntology(OWLOntology source) {
+		return isAxiomVisitor() || isClassVisitor();
+	}
+
+	default void visitAxiom(OWLAxiom axiom) {
+	}
+
+	default void visitClass(OWLClass cls) {
+	}
+
+	/**
+	 * Called once all the source ontologies have been traversed.
+	 */
+	default void finish() {
+	}
+}
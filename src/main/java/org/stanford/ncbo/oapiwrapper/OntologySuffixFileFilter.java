@@ -20,9 +20,12 @@ public class OntologySuffixFileFilter extends AbstractFileFilter {
 		"rdfs",
 	};
 	
+	/**
+	 * Accepts the ontology documents, compressed or not.
+	 */
 	@Override
 	public boolean accept(File dir, String name) {
-		final String[] fileNameParts = name.toLowerCase().split("\\.");
+		final String[] fileNameParts = InputCompression.stripSuffix(name).toLowerCase().split("\\.");
 		final String fileExtension = fileNameParts[fileNameParts.length - 1];
 		return Arrays.asList(acceptedFileExtensions).contains(fileExtension);
 	}
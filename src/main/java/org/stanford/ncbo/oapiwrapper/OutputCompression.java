@@ -0,0 +1,45 @@
+package org.stanford.ncbo.oapiwrapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compression applied to serialized output files.
+ */
+public enum OutputCompression {
+	NONE("none", ""),
+	GZIP("gzip", ".gz");
+
+	private final String name;
+	private final String fileSuffix;
+
+	OutputCompression(String name, String fileSuffix) {
+		this.name = name;
+		this.fileSuffix = fileSuffix;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getFileSuffix() {
+		return fileSuffix;
+	}
+
+	public OutputStream wrap(OutputStream out) throws IOException {
+		if (this == GZIP) {
+			return new GZIPOutputStream(out, OntologyParserConstants.OUTPUT_BUFFER_SIZE);
+		}
+		return out;
+	}
+
+	public static OutputCompression fromName(String name) {
+		for (OutputCompression compression : values()) {
+			if (compression.name.equalsIgnoreCase(name)) {
+				return compression;
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,60 @@
+package org.stanford.ncbo.oapiwrapper;
+
+import org.semanticweb.owlapi.formats.NTriplesDocumentFormat;
+import org.semanticweb.owlapi.formats.RDFXMLDocumentFormat;
+import org.semanticweb.owlapi.formats.TurtleDocumentFormat;
+import org.semanticweb.owlapi.model.OWLDocumentFormat;
+
+/**
+ * Serializations supported for the target ontology written to the output repository.
+ * <p>
+ * RDF/XML remains the default. N-Triples is line-oriented, which makes it the cheapest format for
+ * triple store bulk loaders to split and ingest.
+ */
+public enum OutputFormat {
+	RDF_XML("rdfxml", OntologyParserConstants.OUTPUT_FILE_RDF_XML),
+	N_TRIPLES("ntriples", OntologyParserConstants.OUTPUT_FILE_N_TRIPLES),
+	TURTLE("turtle", OntologyParserConstants.OUTPUT_FILE_TURTLE);
+
+	private final String name;
+	private final String fileName;
+
+	OutputFormat(String name, String fileName) {
+		this.name = name;
+		this.fileName = fileName;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getFileName() {
+		return fileName;
+	}
+
+	public OWLDocumentFormat createDocumentFormat() {
+		switch (this) {
+			case N_TRIPLES:
+				return new NTriplesDocumentFormat();
+			case TURTLE:
+				return new TurtleDocumentFormat();
+			default:
+				return new RDFXMLDocumentFormat();
+		}
+	}
+
+	/**
+	 * Looks up an output format by its command line name, e.g. "ntriples".
+	 *
+	 * @param name	the format name, case insensitive
+	 * @return		the matching format, or null if the name is unknown
+	 */
+	public static OutputFormat fromName(String name) {
+		for (OutputFormat format : values()) {
+			if (format.name.equalsIgnoreCase(name)) {
+				return format;
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,228 @@
+package org.stanford.ncbo.oapiwrapper;
+
+import org.eclipse.rdf4j.model.BNode;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.rio.RDFHandlerException;
+import org.eclipse.rdf4j.rio.RDFParseException;
+import org.eclipse.rdf4j.rio.RDFParser;
+import org.eclipse.rdf4j.rio.Rio;
+import org.eclipse.rdf4j.rio.helpers.AbstractRDFHandler;
+import org.eclipse.rdf4j.rio.helpers.BasicParserSettings;
+import org.eclipse.rdf4j.rio.helpers.XMLParserSettings;
+import org.semanticweb.owlapi.annotations.HasPriority;
+import org.semanticweb.owlapi.formats.RioRDFDocumentFormatFactory;
+import org.semanticweb.owlapi.io.AbstractOWLParser;
+import org.semanticweb.owlapi.io.OWLOntologyDocumentSource;
+import org.semanticweb.owlapi.io.OWLParser;
+import org.semanticweb.owlapi.io.OWLParserException;
+import org.semanticweb.owlapi.io.OWLParserFactoryImpl;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLDocumentFormat;
+import org.semanticweb.owlapi.model.OWLDocumentFormatFactory;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyLoaderConfiguration;
+import org.semanticweb.owlapi.rio.RioMemoryTripleSource;
+import org.semanticweb.owlapi.rio.RioParserImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * A parser for N-Triples and N-Quads documents that splits the document at line boundaries and
+ * parses the lines of large documents concurrently, as an alternative to the single-threaded Rio
+ * parsers the owlapi uses for these documents.
+ * <p>
+ * The document is read as a {@link ChunkedDocument}, memory-mapped if it is a local uncompressed
+ * file, and divided into chunks of about {@link OntologyParserConstants#NTRIPLES_CHUNK_SIZE} bytes
+ * of whole lines. Each chunk is parsed by its own Rio parser, of the same syntax and with the same
+ * settings as the default parser. The owlapi triple consumer is not thread-safe, so the statements
+ * are handed to it through the default parser in document order, a chunk at a time as the chunks
+ * are parsed. Blank node labels are scoped to the document rather than to the chunk, so the
+ * resulting axioms are identical.
+ * <p>
+ * Only documents named <code>.nt</code> or <code>.nq</code> are read; anything else, and any chunk
+ * that cannot be parsed, raises an {@link OWLParserException}, which makes the ontology manager fall
+ * back to the next parser for the document. Register {@link Factory} with a manager to put this
+ * parser in front of it.
+ */
+public class ParallelNTriplesParser extends AbstractOWLParser {
+	private final static Logger log = LoggerFactory.getLogger(ParallelNTriplesParser.class.getName());
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Registers the parallel parser with an ontology manager for a Rio syntax, ahead of the default
+	 * parser of that syntax. N-Triples documents are parsed by the Turtle parser by default, see
+	 * {@link OntologyFormatSniffer}.
+	 */
+	@HasPriority(-1)
+	public static class Factory extends OWLParserFactoryImpl {
+		private static final long serialVersionUID = 1L;
+
+		private final RioRDFDocumentFormatFactory format;
+		private final String fileExtension;
+		private final transient ExecutorService executor;
+		private final int chunkSize;
+
+		public Factory(RioRDFDocumentFormatFactory format, String fileExtension, ExecutorService executor, int chunkSize) {
+			super(format);
+			this.format = format;
+			this.fileExtension = fileExtension;
+			this.executor = executor;
+			this.chunkSize = chunkSize;
+		}
+
+		@Override
+		public OWLParser createParser() {
+			return new ParallelNTriplesParser(format, fileExtension, executor, chunkSize);
+		}
+	}
+
+	private final RioRDFDocumentFormatFactory format;
+	private final String fileExtension;
+	private final transient ExecutorService executor;
+	private final int chunkSize;
+
+	/**
+	 * @param format		the syntax of the default parser, Turtle for N-Triples documents
+	 * @param fileExtension	the extension of the documents read, <code>nt</code> or <code>nq</code>
+	 */
+	public ParallelNTriplesParser(RioRDFDocumentFormatFactory format, String fileExtension, ExecutorService executor, int chunkSize) {
+		this.format = format;
+		this.fileExtension = fileExtension;
+		this.executor = executor;
+		this.chunkSize = chunkSize;
+	}
+
+	@Override
+	public String getName() {
+		return "ParallelNTriplesParser";
+	}
+
+	@Override
+	public OWLDocumentFormatFactory getSupportedFormat() {
+		return format;
+	}
+
+	@Override
+	public OWLDocumentFormat parse(OWLOntologyDocumentSource documentSource, OWLOntology ontology,
+			OWLOntologyLoaderConfiguration configuration) throws IOException {
+		IRI documentIRI = documentSource.getDocumentIRI();
+		if (!hasFileExtension(documentIRI)) {
+			throw new OWLParserException("Not a ." + fileExtension + " document: " + documentIRI);
+		}
+		long startTime = System.nanoTime();
+		ChunkedDocument document = ChunkedDocument.read(documentSource);
+		List<int[]> chunks = document.split(0, chunkSize, (d, offset) -> d.get(offset - 1) == '\n');
+
+		// Relative IRIs are resolved against the document IRI, as by the default parser
+		String baseURI = documentIRI.toString();
+		String blankNodePrefix = "genid-" + UUID.randomUUID().toString().replace("-", "") + "-";
+		Iterator<List<Statement>> parsed = document.parse(chunks,
+				(d, chunk) -> parseChunk(d, chunk, baseURI, blankNodePrefix), executor);
+		StatementIterator statements = new StatementIterator(parsed);
+		OWLDocumentFormat parsedFormat = new RioParserImpl(format).parse(new RioMemoryTripleSource(statements), ontology, configuration);
+
+		long estimatedTime = Math.max(1, (System.nanoTime() - startTime) / 1000000);
+		log.info("Parsed {} triples from {} in {} chunks in {} milliseconds ({} triples per second)",
+				statements.count, documentIRI, chunks.size(), estimatedTime, statements.count * 1000 / estimatedTime);
+		return parsedFormat;
+	}
+
+	private boolean hasFileExtension(IRI documentIRI) {
+		String name = InputCompression.stripSuffix(documentIRI.toString()).toLowerCase(Locale.ROOT);
+		return name.endsWith("." + fileExtension);
+	}
+
+	private List<Statement> parseChunk(ChunkedDocument document, int[] chunk, String baseURI, String blankNodePrefix) {
+		RDFParser parser = Rio.createParser(format.getRioFormat());
+		parser.getParserConfig().addNonFatalError(BasicParserSettings.VERIFY_DATATYPE_VALUES);
+		parser.getParserConfig().addNonFatalError(BasicParserSettings.VERIFY_LANGUAGE_TAGS);
+		parser.getParserConfig().addNonFatalError(XMLParserSettings.DISALLOW_DOCTYPE_DECL);
+		parser.getParserConfig().set(XMLParserSettings.DISALLOW_DOCTYPE_DECL, Boolean.FALSE);
+		parser.getParserConfig().set(BasicParserSettings.PRESERVE_BNODE_IDS, Boolean.TRUE);
+		StatementCollector collector = new StatementCollector(blankNodePrefix);
+		parser.setRDFHandler(collector);
+		try {
+			parser.parse(new StringReader(document.decode(chunk[0], chunk[1])), baseURI);
+		} catch (RDFParseException | RDFHandlerException | IOException e) {
+			throw new OWLParserException(e);
+		}
+		return collector.statements;
+	}
+
+	/**
+	 * Collects the statements of a chunk, with the blank node labels of the chunk prefixed by a
+	 * label unique to the document.
+	 */
+	private static class StatementCollector extends AbstractRDFHandler {
+		private static final ValueFactory factory = SimpleValueFactory.getInstance();
+
+		private final String blankNodePrefix;
+		final List<Statement> statements = new ArrayList<Statement>();
+
+		StatementCollector(String blankNodePrefix) {
+			this.blankNodePrefix = blankNodePrefix;
+		}
+
+		@Override
+		public void handleStatement(Statement st) {
+			Resource subject = st.getSubject();
+			Value object = st.getObject();
+			if (subject instanceof BNode || object instanceof BNode) {
+				if (subject instanceof BNode) {
+					subject = factory.createBNode(blankNodePrefix + ((BNode) subject).getID());
+				}
+				if (object instanceof BNode) {
+					object = factory.createBNode(blankNodePrefix + ((BNode) object).getID());
+				}
+				st = factory.createStatement(subject, st.getPredicate(), object, st.getContext());
+			}
+			statements.add(st);
+		}
+	}
+
+	/**
+	 * Iterates over the statements of the chunks in document order, releasing each chunk once its
+	 * statements are handed over.
+	 */
+	private static class StatementIterator implements Iterator<Statement> {
+		private final Iterator<List<Statement>> chunks;
+		private Iterator<Statement> current = Collections.<Statement>emptyList().iterator();
+		long count = 0;
+
+		StatementIterator(Iterator<List<Statement>> chunks) {
+			this.chunks = chunks;
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (!current.hasNext() && chunks.hasNext()) {
+				current = chunks.next().iterator();
+			}
+			return current.hasNext();
+		}
+
+		@Override
+		public Statement next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			count++;
+			return current.next();
+		}
+	}
+}
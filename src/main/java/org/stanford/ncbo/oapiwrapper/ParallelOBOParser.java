@@ -0,0 +1,227 @@
+package org.stanford.ncbo.oapiwrapper;
+
+import org.obolibrary.obo2owl.OWLAPIObo2Owl;
+import org.obolibrary.oboformat.model.Clause;
+import org.obolibrary.oboformat.model.Frame;
+import org.obolibrary.oboformat.model.FrameMergeException;
+import org.obolibrary.oboformat.model.OBODoc;
+import org.obolibrary.oboformat.parser.OBOFormatConstants.OboFormatTag;
+import org.obolibrary.oboformat.parser.OBOFormatParser;
+import org.semanticweb.owlapi.annotations.HasPriority;
+import org.semanticweb.owlapi.formats.OBODocumentFormat;
+import org.semanticweb.owlapi.formats.OBODocumentFormatFactory;
+import org.semanticweb.owlapi.io.AbstractOWLParser;
+import org.semanticweb.owlapi.io.OWLOntologyDocumentSource;
+import org.semanticweb.owlapi.io.OWLParser;
+import org.semanticweb.owlapi.io.OWLParserException;
+import org.semanticweb.owlapi.io.OWLParserFactoryImpl;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLDocumentFormat;
+import org.semanticweb.owlapi.model.OWLDocumentFormatFactory;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyLoaderConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * An OBO parser that splits the document at its stanza boundaries and parses the stanzas of large
+ * documents concurrently, as an alternative to the single-threaded default OBO parser.
+ * <p>
+ * The document is read as a {@link ChunkedDocument}, memory-mapped if it is a local uncompressed
+ * file. The header frame is parsed once, then the stanzas are divided into chunks of about
+ * {@link OntologyParserConstants#OBO_CHUNK_SIZE} bytes, each parsed by its own owlapi
+ * {@link OBOFormatParser}. The frames of the chunks are merged in document order and the default
+ * namespace is added to them as the default parser does, and the document is translated by
+ * {@link OWLAPIObo2Owl}, so the resulting axioms are identical.
+ * <p>
+ * A chunk that cannot be parsed raises an {@link OWLParserException}, which makes the ontology
+ * manager fall back to the default OBO parser, and to its error messages with line numbers. Register
+ * {@link Factory} with a manager to put this parser in front of it.
+ */
+public class ParallelOBOParser extends AbstractOWLParser {
+	private final static Logger log = LoggerFactory.getLogger(ParallelOBOParser.class.getName());
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Registers the parallel parser with an ontology manager, ahead of the default OBO parser. The
+	 * data version found in the header of each document parsed is kept by the factory.
+	 */
+	@HasPriority(-1)
+	public static class Factory extends OWLParserFactoryImpl {
+		private static final long serialVersionUID = 1L;
+
+		private final transient ExecutorService executor;
+		private final int chunkSize;
+		private final Map<IRI, String> dataVersions = new ConcurrentHashMap<IRI, String>();
+
+		public Factory(ExecutorService executor, int chunkSize) {
+			super(new OBODocumentFormatFactory());
+			this.executor = executor;
+			this.chunkSize = chunkSize;
+		}
+
+		@Override
+		public OWLParser createParser() {
+			return new ParallelOBOParser(executor, chunkSize, dataVersions);
+		}
+
+		/**
+		 * Returns the <code>data-version</code> header value of a document parsed by this factory's
+		 * parsers, or null if it has none or was not parsed by them.
+		 */
+		public String getDataVersion(IRI documentIRI) {
+			return documentIRI == null ? null : dataVersions.get(documentIRI);
+		}
+	}
+
+	private final ExecutorService executor;
+	private final int chunkSize;
+	private final Map<IRI, String> dataVersions;
+
+	public ParallelOBOParser(ExecutorService executor, int chunkSize) {
+		this(executor, chunkSize, new ConcurrentHashMap<IRI, String>());
+	}
+
+	private ParallelOBOParser(ExecutorService executor, int chunkSize, Map<IRI, String> dataVersions) {
+		this.executor = executor;
+		this.chunkSize = chunkSize;
+		this.dataVersions = dataVersions;
+	}
+
+	@Override
+	public String getName() {
+		return "ParallelOBOParser";
+	}
+
+	@Override
+	public OWLDocumentFormatFactory getSupportedFormat() {
+		return new OBODocumentFormatFactory();
+	}
+
+	@Override
+	public OWLDocumentFormat parse(OWLOntologyDocumentSource documentSource, OWLOntology ontology,
+			OWLOntologyLoaderConfiguration configuration) throws IOException {
+		long startTime = System.nanoTime();
+		IRI documentIRI = documentSource.getDocumentIRI();
+		ChunkedDocument document = ChunkedDocument.read(documentSource);
+
+		int headerEnd = findHeaderEnd(document);
+		OBODoc obodoc = new OBOFormatParser().parse(new BufferedReader(new StringReader(document.decode(0, headerEnd))));
+		List<int[]> chunks = document.split(headerEnd, chunkSize, ParallelOBOParser::isStanzaStart);
+		Iterator<OBODoc> parsed = document.parse(chunks, ParallelOBOParser::parseChunk, executor);
+		while (parsed.hasNext()) {
+			OBODoc chunk = parsed.next();
+			try {
+				for (Frame frame : chunk.getTermFrames()) {
+					obodoc.addTermFrame(frame);
+				}
+				for (Frame frame : chunk.getTypedefFrames()) {
+					obodoc.addTypedefFrame(frame);
+				}
+				for (Frame frame : chunk.getInstanceFrames()) {
+					obodoc.addInstanceFrame(frame);
+				}
+			} catch (FrameMergeException e) {
+				throw new OWLParserException(e);
+			}
+		}
+
+		Frame header = obodoc.getHeaderFrame();
+		String defaultNamespace = header.getTagValue(OboFormatTag.TAG_DEFAULT_NAMESPACE, String.class);
+		if (defaultNamespace != null) {
+			addNamespace(obodoc.getTermFrames(), defaultNamespace);
+			addNamespace(obodoc.getTypedefFrames(), defaultNamespace);
+			addNamespace(obodoc.getInstanceFrames(), defaultNamespace);
+		}
+		String dataVersion = header.getTagValue(OboFormatTag.TAG_DATA_VERSION, String.class);
+		if (dataVersion != null) {
+			dataVersions.put(documentIRI, dataVersion);
+		}
+		long parseTime = (System.nanoTime() - startTime) / 1000000;
+
+		new OWLAPIObo2Owl(ontology.getOWLOntologyManager()).convert(obodoc, ontology);
+		long estimatedTime = (System.nanoTime() - startTime) / 1000000;
+		log.debug("Parsed {} bytes of {} in {} chunks in {} milliseconds, translated in {} milliseconds",
+				document.length(), documentIRI, chunks.size(), parseTime, estimatedTime - parseTime);
+		return new OBODocumentFormat();
+	}
+
+	/**
+	 * Returns the offset of the first line starting with <code>[</code>, where the header frame ends.
+	 */
+	private static int findHeaderEnd(ChunkedDocument document) {
+		int length = document.length();
+		for (int i = 0; i < length; i++) {
+			if (document.get(i) == '[' && (i == 0 || document.get(i - 1) == '\n')) {
+				return i;
+			}
+		}
+		return length;
+	}
+
+	private static final byte[][] STANZAS = {
+			"[Term]".getBytes(StandardCharsets.US_ASCII),
+			"[Typedef]".getBytes(StandardCharsets.US_ASCII),
+			"[Instance]".getBytes(StandardCharsets.US_ASCII) };
+
+	/**
+	 * Chunks end before a <code>[Term]</code>, <code>[Typedef]</code> or <code>[Instance]</code> line.
+	 */
+	private static boolean isStanzaStart(ChunkedDocument document, int offset) {
+		if (document.get(offset) != '[' || document.get(offset - 1) != '\n') {
+			return false;
+		}
+		// A line ending with a backslash is continued on the next line
+		int previous = offset - 2;
+		if (previous >= 0 && document.get(previous) == '\r') {
+			previous--;
+		}
+		if (previous >= 0 && document.get(previous) == '\\') {
+			return false;
+		}
+		for (byte[] stanza : STANZAS) {
+			int end = offset + stanza.length;
+			if (end <= document.length() && matches(document, offset, stanza)
+					&& (end == document.length() || Character.isWhitespace(document.get(end)))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean matches(ChunkedDocument document, int offset, byte[] bytes) {
+		for (int i = 0; i < bytes.length; i++) {
+			if (document.get(offset + i) != bytes[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static OBODoc parseChunk(ChunkedDocument document, int[] chunk) {
+		OBOFormatParser parser = new OBOFormatParser();
+		parser.setReader(new BufferedReader(new StringReader(document.decode(chunk[0], chunk[1]))));
+		OBODoc obodoc = new OBODoc();
+		parser.parseOBODoc(obodoc);
+		return obodoc;
+	}
+
+	private static void addNamespace(Collection<Frame> frames, String namespace) {
+		for (Frame frame : frames) {
+			if (frame.getClause(OboFormatTag.TAG_NAMESPACE) == null) {
+				frame.addClause(new Clause(OboFormatTag.TAG_NAMESPACE, namespace));
+			}
+		}
+	}
+}
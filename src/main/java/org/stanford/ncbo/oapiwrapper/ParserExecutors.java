@@ -0,0 +1,106 @@
+package org.stanford.ncbo.oapiwrapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The executors a parse runs its concurrent stages on: one for blocking file I/O (OBO version scans,
+ * import header reads and shard writes) and a bounded pool of platform threads for the CPU-bound work
+ * such as parsing imported documents.
+ * <p>
+ * In virtual thread mode the I/O executor starts a virtual thread per task, so that a repository with
+ * thousands of small files overlaps its I/O without as many platform threads. Virtual threads need
+ * JDK 21; they are looked up by reflection since the parser is built for an older release, and on an
+ * older runtime the I/O executor falls back to a bounded platform pool.
+ */
+public class ParserExecutors implements Closeable {
+	private final static Logger log = LoggerFactory.getLogger(ParserExecutors.class.getName());
+
+	private final boolean virtualThreads;
+	private ExecutorService ioExecutor = null;
+	private ExecutorService cpuExecutor = null;
+
+	public ParserExecutors(boolean virtualThreads) {
+		this.virtualThreads = virtualThreads;
+	}
+
+	/**
+	 * Returns the executor for blocking I/O tasks, creating it on first use.
+	 */
+	public synchronized ExecutorService getIOExecutor() {
+		if (ioExecutor == null) {
+			if (virtualThreads) {
+				ioExecutor = newVirtualThreadExecutor();
+			}
+			if (ioExecutor == null) {
+				ioExecutor = Executors.newFixedThreadPool(OntologyParserConstants.IO_THREADS, new NamedThreadFactory("parser-io"));
+			}
+		}
+		return ioExecutor;
+	}
+
+	/**
+	 * Returns the executor for CPU-bound tasks, creating it on first use. It has one platform thread
+	 * per available processor.
+	 */
+	public synchronized ExecutorService getCPUExecutor() {
+		if (cpuExecutor == null) {
+			cpuExecutor = Executors.newFixedThreadPool(getCPUThreads(), new NamedThreadFactory("parser-cpu"));
+		}
+		return cpuExecutor;
+	}
+
+	public int getCPUThreads() {
+		return Runtime.getRuntime().availableProcessors();
+	}
+
+	@Override
+	public synchronized void close() {
+		if (ioExecutor != null) {
+			ioExecutor.shutdownNow();
+			ioExecutor = null;
+		}
+		if (cpuExecutor != null) {
+			cpuExecutor.shutdownNow();
+			cpuExecutor = null;
+		}
+	}
+
+	private static ExecutorService newVirtualThreadExecutor() {
+		try {
+			Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			log.info("Running I/O tasks on virtual threads");
+			return (ExecutorService) factory.invoke(null);
+		} catch (ReflectiveOperationException e) {
+			log.warn("Virtual threads need Java 21 or later, running I/O tasks on {} platform threads",
+					OntologyParserConstants.IO_THREADS);
+			return null;
+		}
+	}
+
+	/**
+	 * Names the pool threads and makes them daemons, so that a stuck task cannot keep the JVM alive.
+	 */
+	private static class NamedThreadFactory implements ThreadFactory {
+		private final String prefix;
+		private final AtomicInteger count = new AtomicInteger();
+
+		NamedThreadFactory(String prefix) {
+			this.prefix = prefix;
+		}
+
+		@Override
+		public Thread newThread(Runnable task) {
+			Thread thread = new Thread(task, prefix + "-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
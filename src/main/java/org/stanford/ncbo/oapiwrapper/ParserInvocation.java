@@ -19,8 +19,38 @@ public class ParserInvocation {
 
 	private String masterFileName = null;
 
+	private byte[] masterDocument = null;
+
 	private String oboVersion;
 
+	private OutputFormat outputFormat = OutputFormat.RDF_XML;
+
+	private OutputCompression outputCompression = OutputCompression.NONE;
+
+	private int outputShards = 1;
+
+	private boolean searchDocuments = false;
+
+	private boolean hierarchyExport = false;
+
+	private boolean mappingsExport = false;
+
+	private boolean parallelImports = false;
+
+	private boolean streamingRDFXML = false;
+
+	private boolean parallelOBO = false;
+
+	private boolean parallelNTriples = false;
+
+	private boolean virtualThreads = false;
+
+	private String importMirrorFolder = null;
+
+	private boolean offlineImports = false;
+
+	private int importTimeout = OntologyParserConstants.IMPORT_TIMEOUT;
+
 	public ParserInvocation(String inputRepositoryFolder,
 							String outputRepositoryFolder, String masterFileName,
 							Boolean useReasoner) {
@@ -39,6 +69,15 @@ public class ParserInvocation {
 		this.inputRepositoryFolder = inputRepositoryFolder;
 	}
 
+	/**
+	 * Returns true if the input repository is a zip archive that is read in place rather than a folder.
+	 */
+	public boolean isInputArchive() {
+		return inputRepositoryFolder != null
+				&& inputRepositoryFolder.toLowerCase().endsWith(OntologyParserConstants.ARCHIVE_FILE_SUFFIX)
+				&& new File(inputRepositoryFolder).isFile();
+	}
+
 	public String getOutputRepositoryFolder() {
 		return outputRepositoryFolder;
 	}
@@ -55,6 +94,27 @@ public class ParserInvocation {
 		this.masterFileName = masterFileName;
 	}
 
+	public byte[] getMasterDocument() {
+		return masterDocument;
+	}
+
+	/**
+	 * Sets the content of the master file, parsed from memory instead of the file system. The master
+	 * file name then only names the document, and its extension is used to guess its format and
+	 * compression. Only valid without an input repository folder.
+	 */
+	public void setMasterDocument(byte[] masterDocument) {
+		this.masterDocument = masterDocument;
+	}
+
+	/**
+	 * Returns true if the invocation has no output folder, in which case the target ontology and its
+	 * metrics are kept in memory by the parser rather than written, see {@link InMemoryOntologyParser}.
+	 */
+	public boolean isInMemory() {
+		return outputRepositoryFolder == null;
+	}
+
 	public String getOBOVersion() {
 		return oboVersion;
 	}
@@ -79,6 +139,224 @@ public class ParserInvocation {
 		this.useReasoner = useReasoner;
 	}
 
+	public OutputFormat getOutputFormat() {
+		return outputFormat;
+	}
+
+	public void setOutputFormat(OutputFormat outputFormat) {
+		this.outputFormat = outputFormat;
+	}
+
+	public OutputCompression getOutputCompression() {
+		return outputCompression;
+	}
+
+	public void setOutputCompression(OutputCompression outputCompression) {
+		this.outputCompression = outputCompression;
+	}
+
+	public int getOutputShards() {
+		return outputShards;
+	}
+
+	/**
+	 * Sets the number of N-Triples shard files to split the output into. Values above 1 replace the
+	 * single output file with shards and a manifest, regardless of the output format.
+	 */
+	public void setOutputShards(int outputShards) {
+		this.outputShards = outputShards;
+	}
+
+	public boolean isShardedOutput() {
+		return outputShards > 1;
+	}
+
+	/**
+	 * Returns the file the target ontology is serialized to, e.g. owlapi.xrdf or owlapi.nt.gz.
+	 * For sharded output this is the shard manifest.
+	 */
+	public File getOutputFile() {
+		if (isShardedOutput()) {
+			return new File(outputRepositoryFolder + File.separator + OntologyParserConstants.SHARD_MANIFEST_FILE);
+		}
+		return new File(outputRepositoryFolder + File.separator
+				+ outputFormat.getFileName() + outputCompression.getFileSuffix());
+	}
+
+	public boolean isSearchDocuments() {
+		return searchDocuments;
+	}
+
+	/**
+	 * Enables the export of a search document per class of the target ontology, see
+	 * {@link SearchDocumentWriter}.
+	 */
+	public void setSearchDocuments(boolean searchDocuments) {
+		this.searchDocuments = searchDocuments;
+	}
+
+	/**
+	 * Returns the file the search documents are exported to, e.g. search.jsonl or search.jsonl.gz.
+	 */
+	public File getSearchDocumentsFile() {
+		return new File(outputRepositoryFolder + File.separator
+				+ OntologyParserConstants.SEARCH_DOCUMENTS_FILE + outputCompression.getFileSuffix());
+	}
+
+	public boolean isHierarchyExport() {
+		return hierarchyExport;
+	}
+
+	/**
+	 * Enables the export of the class hierarchy of the target ontology, see {@link HierarchyFile}.
+	 */
+	public void setHierarchyExport(boolean hierarchyExport) {
+		this.hierarchyExport = hierarchyExport;
+	}
+
+	/**
+	 * Returns the file the class hierarchy is exported to, which is never compressed.
+	 */
+	public File getHierarchyFile() {
+		return new File(outputRepositoryFolder + File.separator + OntologyParserConstants.HIERARCHY_FILE);
+	}
+
+	public boolean isMappingsExport() {
+		return mappingsExport;
+	}
+
+	/**
+	 * Enables the export of the cross-references and mappings of the source ontologies, see
+	 * {@link MappingTable}.
+	 */
+	public void setMappingsExport(boolean mappingsExport) {
+		this.mappingsExport = mappingsExport;
+	}
+
+	/**
+	 * Returns the file the mappings are exported to, e.g. mappings.tsv or mappings.tsv.gz.
+	 */
+	public File getMappingsFile() {
+		return new File(outputRepositoryFolder + File.separator
+				+ OntologyParserConstants.MAPPINGS_FILE + outputCompression.getFileSuffix());
+	}
+
+	public boolean isParallelImports() {
+		return parallelImports;
+	}
+
+	/**
+	 * Enables parsing the local documents imported by the master file concurrently before the
+	 * master file itself is loaded.
+	 */
+	public void setParallelImports(boolean parallelImports) {
+		this.parallelImports = parallelImports;
+	}
+
+	public boolean isStreamingRDFXML() {
+		return streamingRDFXML;
+	}
+
+	/**
+	 * Enables the streaming RDF/XML parser for source documents, with the default RDF/XML parser
+	 * as a fallback for the constructs it does not handle.
+	 */
+	public void setStreamingRDFXML(boolean streamingRDFXML) {
+		this.streamingRDFXML = streamingRDFXML;
+	}
+
+	public boolean isParallelOBO() {
+		return parallelOBO;
+	}
+
+	/**
+	 * Enables the parallel OBO parser for source documents, which parses the stanzas of large OBO
+	 * documents concurrently and takes the data version from the header of the master document.
+	 */
+	public void setParallelOBO(boolean parallelOBO) {
+		this.parallelOBO = parallelOBO;
+	}
+
+	public boolean isParallelNTriples() {
+		return parallelNTriples;
+	}
+
+	/**
+	 * Enables the parallel N-Triples and N-Quads parser for source documents, which parses the lines
+	 * of large <code>.nt</code> and <code>.nq</code> documents concurrently.
+	 */
+	public void setParallelNTriples(boolean parallelNTriples) {
+		this.parallelNTriples = parallelNTriples;
+	}
+
+	public boolean isVirtualThreads() {
+		return virtualThreads;
+	}
+
+	/**
+	 * Runs the I/O tasks offloaded to the I/O executor (OBO version scans, import header reads and
+	 * shard writes) on virtual threads where the runtime supports them. The walk of the input
+	 * repository itself stays on the calling thread.
+	 */
+	public void setVirtualThreads(boolean virtualThreads) {
+		this.virtualThreads = virtualThreads;
+	}
+
+	public String getImportMirrorFolder() {
+		return importMirrorFolder;
+	}
+
+	/**
+	 * Sets the folder of the local mirror that remote imports are served from and downloaded to.
+	 * Remote imports are fetched by the OWL API directly when no mirror is set.
+	 */
+	public void setImportMirrorFolder(String importMirrorFolder) {
+		this.importMirrorFolder = importMirrorFolder;
+	}
+
+	public boolean isOfflineImports() {
+		return offlineImports;
+	}
+
+	/**
+	 * Resolves remote imports from the import mirror only; those not in it are reported as missing.
+	 */
+	public void setOfflineImports(boolean offlineImports) {
+		this.offlineImports = offlineImports;
+	}
+
+	public int getImportTimeout() {
+		return importTimeout;
+	}
+
+	/**
+	 * Sets the connect and read timeout of remote import downloads, in milliseconds.
+	 */
+	public void setImportTimeout(int importTimeout) {
+		this.importTimeout = importTimeout;
+	}
+
+	/**
+	 * Copies the parsing options of another invocation, but not its folders, master file or log.
+	 */
+	public void copyOptionsFrom(ParserInvocation options) {
+		this.useReasoner = options.useReasoner;
+		this.outputFormat = options.outputFormat;
+		this.outputCompression = options.outputCompression;
+		this.outputShards = options.outputShards;
+		this.searchDocuments = options.searchDocuments;
+		this.hierarchyExport = options.hierarchyExport;
+		this.mappingsExport = options.mappingsExport;
+		this.parallelImports = options.parallelImports;
+		this.streamingRDFXML = options.streamingRDFXML;
+		this.parallelOBO = options.parallelOBO;
+		this.parallelNTriples = options.parallelNTriples;
+		this.virtualThreads = options.virtualThreads;
+		this.importMirrorFolder = options.importMirrorFolder;
+		this.offlineImports = options.offlineImports;
+		this.importTimeout = options.importTimeout;
+	}
+
 	public ParserLog getParserLog() {
 		return this.parserLog;
 	}
@@ -90,6 +368,20 @@ public class ParserInvocation {
 				+ outputRepositoryFolder + ", masterFileName=" + masterFileName
 				+ ", invocationId=" + invocationId + ", parserLog=" + parserLog
 				+ ", userReasoner= " + useReasoner
+				+ ", outputFormat=" + outputFormat.getName()
+				+ ", outputCompression=" + outputCompression.getName()
+				+ ", outputShards=" + outputShards
+				+ ", searchDocuments=" + searchDocuments
+				+ ", hierarchyExport=" + hierarchyExport
+				+ ", mappingsExport=" + mappingsExport
+				+ ", parallelImports=" + parallelImports
+				+ ", streamingRDFXML=" + streamingRDFXML
+				+ ", parallelOBO=" + parallelOBO
+				+ ", parallelNTriples=" + parallelNTriples
+				+ ", virtualThreads=" + virtualThreads
+				+ ", importMirrorFolder=" + importMirrorFolder
+				+ ", offlineImports=" + offlineImports
+				+ ", importTimeout=" + importTimeout
 				+ "]";
 	}
 	
@@ -100,7 +392,7 @@ public class ParserInvocation {
 			if (!inputFolder.exists()) {
 				parserLog.addError(ParserError.INPUT_REPO_MISSING);
 				return false;
-			} else if (!inputFolder.isDirectory()) {
+			} else if (!inputFolder.isDirectory() && !isInputArchive()) {
 				parserLog.addError(ParserError.INPUT_REPO_NOT_A_FOLDER);
 				return false;
 			}
@@ -110,15 +402,24 @@ public class ParserInvocation {
 				return false;
 			}
 			File masterFile = new File(this.masterFileName);
-			if (!masterFile.exists()) {
+			if (this.masterDocument == null && !masterFile.exists()) {
 				parserLog.addError(ParserError.MASTER_FILE_MISSING);
 				return false;
-			} else if (masterFile.isDirectory()) {
+			} else if (this.masterDocument == null && masterFile.isDirectory()) {
 				parserLog.addError(ParserError.MASTER_FILE_IS_FOLDER);
 				return false;
 			}
 		}
 		
+		if (this.offlineImports && this.importMirrorFolder == null) {
+			parserLog.addError(ParserError.IMPORT_MIRROR_MISSING, "Offline imports need an import mirror");
+			return false;
+		}
+
+		if (isInMemory()) {
+			return !parserLog.hasErrors();
+		}
+
 		File outputFolder = new File(this.outputRepositoryFolder);
 		if (!outputFolder.exists()) {
 			try {
@@ -130,11 +431,15 @@ public class ParserInvocation {
 		else if (!outputFolder.isDirectory())
 			parserLog.addError(ParserError.OUPUT_REPO_NOT_A_FOLDER);
 
-		return parserLog.logErrors.size() == 0;
+		return !parserLog.hasErrors();
 	}
 	
 	public void saveErrors() throws Exception {
-		this.parserLog.writeTo(new File(outputRepositoryFolder + File.separator + "errors.log"));
+		if (isInMemory()) {
+			return;
+		}
+		this.parserLog.writeTo(new File(outputRepositoryFolder + File.separator + OntologyParserConstants.ERRORS_FILE));
+		this.parserLog.writeJsonTo(new File(outputRepositoryFolder + File.separator + OntologyParserConstants.ERRORS_JSON_FILE));
 	}
 
 }
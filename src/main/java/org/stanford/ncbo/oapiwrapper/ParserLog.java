@@ -1,13 +1,23 @@
 package org.stanford.ncbo.oapiwrapper;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.Writer;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 
-import org.semanticweb.owlapi.model.IRI;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 
+/**
+ * The errors recorded while parsing, aggregated by error code.
+ * <p>
+ * Every error is counted, but only the first {@link OntologyParserConstants#ERROR_SAMPLES_PER_CODE}
+ * messages of each code are kept, so that an ontology with thousands of missing imports does not
+ * produce an unbounded log. The log may be written to from concurrent stages of the parse.
+ */
 public class ParserLog {
 	public class Error {
 		public ParserError getParserError() {
@@ -30,51 +40,115 @@ public class ParserLog {
 			e = e2;
 			message = null;
 		}
-				
+
 		@Override
 		public String toString() {
 			return e.toString() + (message != null ? message : "");
 		}
 	}
 
-	List<ParserLog.Error> logErrors = new ArrayList<ParserLog.Error>();
-	
-	public void addError(ParserError e, String message) {
-		logErrors.add(new Error(e, message));
+	private List<ParserLog.Error> samples = new ArrayList<ParserLog.Error>();
+	private Map<ParserError, Long> counts = new EnumMap<ParserError, Long>(ParserError.class);
+
+	public synchronized void addError(ParserError e, String message) {
+		long count = counts.getOrDefault(e, 0L);
+		counts.put(e, count + 1);
+		if (count < OntologyParserConstants.ERROR_SAMPLES_PER_CODE) {
+			samples.add(new Error(e, message));
+		}
 	}
 
 	public void addError(ParserError e) {
-		logErrors.add(new Error(e));
+		addError(e, null);
+	}
+
+	/**
+	 * Returns the recorded errors, limited to the first few of each error code.
+	 */
+	public synchronized List<ParserLog.Error> getErrors() {
+		return new ArrayList<ParserLog.Error>(this.samples);
+	}
+
+	/**
+	 * Returns the number of errors recorded for each error code, including those not kept as samples.
+	 */
+	public synchronized Map<ParserError, Long> getErrorCounts() {
+		return new EnumMap<ParserError, Long>(counts);
 	}
-	
-	public List<ParserLog.Error> getErrors() {
-		return new ArrayList<ParserLog.Error>(this.logErrors);
+
+	public synchronized boolean hasErrors() {
+		return !counts.isEmpty();
 	}
-	
-	public String toString() {
+
+	public synchronized String toString() {
 		StringBuilder str = new StringBuilder();
-		for (Error e : logErrors) {
+		for (Error e : samples) {
 			str.append(e);
 		}
+		for (Map.Entry<ParserError, Long> count : counts.entrySet()) {
+			long omitted = count.getValue() - OntologyParserConstants.ERROR_SAMPLES_PER_CODE;
+			if (omitted > 0) {
+				str.append(" (").append(omitted).append(" more ").append(count.getKey()).append(")");
+			}
+		}
 		return str.toString();
 	}
 
-	public void flush() {
-		logErrors = new ArrayList<ParserLog.Error>();
+	public synchronized void flush() {
+		samples = new ArrayList<ParserLog.Error>();
+		counts = new EnumMap<ParserError, Long>(ParserError.class);
+	}
+
+	public synchronized void writeTo(File file) throws Exception {
+		if (hasErrors()) {
+			try (AtomicOutputFile outputFile = new AtomicOutputFile(file)) {
+				Writer out = outputFile.getWriter();
+				for (Error e : samples) {
+					out.write("++++++++++++++++++++++++++++++++++++++++++++++++++\n");
+					out.write("Error: " + e.getParserError().toString() + "\n");
+					out.write("Message: " + (e.getMessage() != null ? e.getMessage() : "") + "\n");
+					out.write("++++++++++++++++++++++++++++++++++++++++++++++++++\n");
+				}
+				for (Map.Entry<ParserError, Long> count : counts.entrySet()) {
+					long omitted = count.getValue() - OntologyParserConstants.ERROR_SAMPLES_PER_CODE;
+					if (omitted > 0) {
+						out.write("Omitted " + omitted + " more " + count.getKey() + " errors\n");
+					}
+				}
+				out.close();
+				outputFile.commit();
+			}
+		}
 	}
 
-	public void writeTo(File file) throws Exception {
-		if (logErrors.size() > 0) {
-			FileWriter fstream = new FileWriter(file);
-			BufferedWriter out = new BufferedWriter(fstream);
-	
-			for (Error e : logErrors) {
-				out.write("++++++++++++++++++++++++++++++++++++++++++++++++++\n");
-				out.write("Error: " + e.getParserError().toString() + "\n");
-				out.write("Message: " + e.getMessage().toString() + "\n");
-				out.write("++++++++++++++++++++++++++++++++++++++++++++++++++\n");
+	/**
+	 * Writes the error counts and message samples as JSON, one object per error code.
+	 */
+	public synchronized void writeJsonTo(File file) throws Exception {
+		if (hasErrors()) {
+			try (AtomicOutputFile outputFile = new AtomicOutputFile(file)) {
+				JsonGenerator json = new JsonFactory().createGenerator(outputFile.getOutputStream(), JsonEncoding.UTF8);
+				json.useDefaultPrettyPrinter();
+				json.writeStartObject();
+				json.writeArrayFieldStart("errors");
+				for (Map.Entry<ParserError, Long> count : counts.entrySet()) {
+					json.writeStartObject();
+					json.writeStringField("code", count.getKey().name());
+					json.writeNumberField("count", count.getValue());
+					json.writeArrayFieldStart("messages");
+					for (Error e : samples) {
+						if (e.getParserError() == count.getKey() && e.getMessage() != null) {
+							json.writeString(e.getMessage());
+						}
+					}
+					json.writeEndArray();
+					json.writeEndObject();
+				}
+				json.writeEndArray();
+				json.writeEndObject();
+				json.close();
+				outputFile.commit();
 			}
-			out.close();
 		}
 	}
 }
@@ -0,0 +1,86 @@
+package org.stanford.ncbo.oapiwrapper;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import org.semanticweb.owlapi.model.OWLOntology;
+
+import java.util.Collection;
+
+/**
+ * A Java Flight Recorder event for a stage of a parse: discovery, load, metrics and serialization
+ * in {@link OntologyParser}, and each stage of the {@link TransformationPipeline}.
+ * <p>
+ * The axiom counts are only taken if the event is recorded, so the events cost next to nothing when
+ * no recording is running. Enable them with e.g.
+ * <code>-XX:StartFlightRecording=settings=profile,filename=parse.jfr</code>.
+ */
+@Name("org.stanford.ncbo.oapiwrapper.ParserStage")
+@Label("Parser Stage")
+@Category("OWL API Wrapper")
+@Description("A stage of an ontology parse")
+@StackTrace(false)
+public class ParserStageEvent extends Event {
+
+	@Label("Invocation Id")
+	int invocationId;
+
+	@Label("Ontology File")
+	String ontologyFile;
+
+	@Label("Stage")
+	String stage;
+
+	@Label("Source Axioms")
+	@Description("Axioms in the source ontologies at the end of the stage")
+	long sourceAxioms;
+
+	@Label("Target Axioms")
+	@Description("Axioms in the target ontology at the end of the stage")
+	long targetAxioms;
+
+	@Label("Traversal Time")
+	@Description("Time spent by a transformation stage visiting the source ontologies, before the event started")
+	@Timespan(Timespan.NANOSECONDS)
+	long traversalTime;
+
+	/**
+	 * Creates and begins the event of a stage.
+	 *
+	 * @param invocation	the invocation parsed, or null if unknown
+	 */
+	public static ParserStageEvent start(ParserInvocation invocation, String stage) {
+		ParserStageEvent event = new ParserStageEvent();
+		if (invocation != null) {
+			event.invocationId = invocation.getInvocationId();
+			event.ontologyFile = invocation.getMasterFileName();
+		}
+		event.stage = stage;
+		event.begin();
+		return event;
+	}
+
+	/**
+	 * Ends the event, and commits it with the axiom counts of the ontologies if it is recorded.
+	 *
+	 * @param target	the target ontology, or null if it is not built yet
+	 */
+	public void finish(Collection<OWLOntology> sources, OWLOntology target) {
+		end();
+		if (shouldCommit()) {
+			for (OWLOntology source : sources) {
+				sourceAxioms += source.getAxiomCount();
+			}
+			targetAxioms = target != null ? target.getAxiomCount() : 0;
+			commit();
+		}
+	}
+
+	public void setTraversalTime(long traversalTime) {
+		this.traversalTime = traversalTime;
+	}
+}
@@ -0,0 +1,65 @@
+package org.stanford.ncbo.oapiwrapper;
+
+import org.semanticweb.owlapi.io.OWLOntologyDocumentSourceBase;
+import org.semanticweb.owlapi.io.OWLOntologyInputSourceException;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLDocumentFormat;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * A document source reading an ontology from a path, which may be an entry of an input archive or
+ * a compressed file.
+ * <p>
+ * Unlike {@link org.semanticweb.owlapi.io.StreamDocumentSource}, which copies the whole document in
+ * memory so that it can be read again by every parser tried, the document is opened again for each
+ * parser and decompressed as it is parsed.
+ */
+public class PathDocumentSource extends OWLOntologyDocumentSourceBase {
+	private final Path path;
+
+	public PathDocumentSource(Path path, OWLDocumentFormat format) {
+		super(format, null);
+		this.path = path;
+	}
+
+	@Override
+	public IRI getDocumentIRI() {
+		return IRI.create(path.toUri());
+	}
+
+	@Override
+	public boolean isInputStreamAvailable() {
+		return true;
+	}
+
+	@Override
+	public InputStream getInputStream() {
+		try {
+			return new BufferedInputStream(InputCompression.open(path), OntologyParserConstants.INPUT_BUFFER_SIZE);
+		} catch (IOException e) {
+			throw new OWLOntologyInputSourceException(e);
+		}
+	}
+
+	/**
+	 * Returns a UTF-8 reader on the document, like {@link org.semanticweb.owlapi.io.FileDocumentSource}
+	 * does, so that parsers reading characters do not fall back to the platform encoding.
+	 */
+	@Override
+	public boolean isReaderAvailable() {
+		return true;
+	}
+
+	@Override
+	public Reader getReader() {
+		return new BufferedReader(new InputStreamReader(wrap(getInputStream()), StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,192 @@
+package org.stanford.ncbo.oapiwrapper;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Periodically rewrites a progress file in the output repository while an ontology is parsed, so
+ * that a supervisor can tell a slow parse from a hung one.
+ * <p>
+ * The file is a JSON object with the current stage and step, the axioms and classes processed so far
+ * against their expected totals, the processing rate, and the heap in use. It is replaced atomically
+ * every {@link OntologyParserConstants#PROGRESS_INTERVAL} milliseconds, and a last time with
+ * <code>"finished": true</code> when the reporter is closed.
+ * <p>
+ * The counts are read from suppliers on the reporter thread only, from counters that the stages
+ * already maintain, so reporting adds nothing to the loops over axioms. A total that is not known
+ * is written as null.
+ */
+public class ProgressReporter implements Closeable {
+	private final static Logger log = LoggerFactory.getLogger(ProgressReporter.class.getName());
+
+	private static final LongSupplier UNKNOWN = () -> -1;
+
+	private final File file;
+	private final ScheduledExecutorService scheduler;
+	private final long startTime = System.nanoTime();
+
+	private volatile String stage = "starting";
+	private volatile long stageStartTime = startTime;
+	private volatile Supplier<String> step = () -> null;
+	private volatile LongSupplier axioms = UNKNOWN;
+	private volatile LongSupplier totalAxioms = UNKNOWN;
+	private volatile LongSupplier classes = UNKNOWN;
+	private volatile LongSupplier totalClasses = UNKNOWN;
+
+	/**
+	 * @param file	the progress file, or null to report nothing
+	 */
+	public ProgressReporter(File file) {
+		this.file = file;
+		if (file == null) {
+			this.scheduler = null;
+			return;
+		}
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, "progress-reporter");
+			thread.setDaemon(true);
+			return thread;
+		});
+		scheduler.scheduleWithFixedDelay(() -> write(false), 0, OntologyParserConstants.PROGRESS_INTERVAL, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Starts a stage, with no counts until they are tracked.
+	 */
+	public void startStage(String stage) {
+		this.step = () -> null;
+		this.axioms = UNKNOWN;
+		this.totalAxioms = UNKNOWN;
+		this.classes = UNKNOWN;
+		this.totalClasses = UNKNOWN;
+		this.stageStartTime = System.nanoTime();
+		this.stage = stage;
+	}
+
+	/**
+	 * Reports the step of the current stage, e.g. the transformation stage running.
+	 */
+	public void trackStep(Supplier<String> step) {
+		this.step = step;
+	}
+
+	/**
+	 * Reports the axioms processed by the current stage. The total is taken once, on the reporter
+	 * thread, the first time it is needed.
+	 */
+	public void trackAxioms(LongSupplier processed, LongSupplier total) {
+		this.totalAxioms = once(total);
+		this.axioms = processed;
+	}
+
+	/**
+	 * Reports the classes processed by the current stage, see {@link #trackAxioms}.
+	 */
+	public void trackClasses(LongSupplier processed, LongSupplier total) {
+		this.totalClasses = once(total);
+		this.classes = processed;
+	}
+
+	private static LongSupplier once(LongSupplier supplier) {
+		return new LongSupplier() {
+			private long value = -1;
+			private boolean computed = false;
+
+			@Override
+			public synchronized long getAsLong() {
+				if (!computed) {
+					value = supplier.getAsLong();
+					computed = true;
+				}
+				return value;
+			}
+		};
+	}
+
+	private synchronized void write(boolean finished) {
+		long now = System.nanoTime();
+		try (AtomicOutputFile outputFile = new AtomicOutputFile(file)) {
+			String currentStage = stage;
+			long stageNanos = now - stageStartTime;
+			long processedAxioms = axioms.getAsLong();
+			long processedClasses = classes.getAsLong();
+			long processed = processedAxioms >= 0 ? processedAxioms : processedClasses;
+			Runtime runtime = Runtime.getRuntime();
+
+			JsonGenerator json = new JsonFactory().createGenerator(outputFile.getOutputStream(), JsonEncoding.UTF8);
+			json.useDefaultPrettyPrinter();
+			json.writeStartObject();
+			json.writeStringField("stage", currentStage);
+			json.writeStringField("step", step.get());
+			json.writeBooleanField("finished", finished);
+			json.writeStringField("updated", Instant.now().toString());
+			json.writeNumberField("elapsedMillis", (now - startTime) / 1000000);
+			json.writeNumberField("stageElapsedMillis", stageNanos / 1000000);
+			writeCount(json, "axioms", processedAxioms, totalAxioms);
+			writeCount(json, "classes", processedClasses, totalClasses);
+			if (processed >= 0 && stageNanos > 0) {
+				json.writeNumberField("ratePerSecond", processed * 1000000000L / stageNanos);
+			} else {
+				json.writeNullField("ratePerSecond");
+			}
+			json.writeObjectFieldStart("heap");
+			json.writeNumberField("usedBytes", runtime.totalMemory() - runtime.freeMemory());
+			json.writeNumberField("maxBytes", runtime.maxMemory());
+			json.writeEndObject();
+			json.writeEndObject();
+			json.close();
+			outputFile.commit();
+		} catch (IOException | RuntimeException e) {
+			// A reporting failure must not fail the parse
+			log.warn("Cannot write progress to {}: {}", file, e.getMessage());
+		}
+	}
+
+	private static void writeCount(JsonGenerator json, String name, long processed, LongSupplier total) throws IOException {
+		json.writeObjectFieldStart(name);
+		if (processed >= 0) {
+			json.writeNumberField("processed", processed);
+			long expected = total.getAsLong();
+			if (expected >= 0) {
+				json.writeNumberField("total", expected);
+			} else {
+				json.writeNullField("total");
+			}
+		} else {
+			json.writeNullField("processed");
+			json.writeNullField("total");
+		}
+		json.writeEndObject();
+	}
+
+	/**
+	 * Stops reporting, and writes the progress a last time as finished.
+	 */
+	@Override
+	public void close() {
+		if (scheduler == null) {
+			return;
+		}
+		// Not interrupted, so that a report being written is completed
+		scheduler.shutdown();
+		try {
+			scheduler.awaitTermination(OntologyParserConstants.PROGRESS_INTERVAL, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		write(true);
+	}
+}
@@ -0,0 +1,153 @@
+package org.stanford.ncbo.oapiwrapper;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.semanticweb.owlapi.model.*;
+import org.semanticweb.owlapi.vocab.OWLRDFVocabulary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.*;
+
+/**
+ * Writes a search document per class of the target ontology as JSON lines, so that the search index
+ * can be built without reading the serialized ontology back.
+ * <p>
+ * Each line holds the IRI of a class with its preferred label, synonyms, definitions, notation,
+ * prefixIRI and obsolete flag, for example:
+ * <pre>
+ * {"id":"http://purl.obolibrary.org/obo/ENVO_00000014","prefLabel":"canal","synonyms":["canal","watercourse"],
+ *  "definitions":["Artificial watercourse ..."],"notation":"ENVO:00000014","prefixIRI":null,"obsolete":false}
+ * </pre>
+ * The annotations are looked up in the annotation assertion index of the target ontology, which
+ * already holds the notations and prefixIRIs derived by the parser. Classes are written in IRI order
+ * and their synonyms and definitions sorted, so that the output is stable across runs.
+ */
+public class SearchDocumentWriter {
+	private final static Logger log = LoggerFactory.getLogger(SearchDocumentWriter.class.getName());
+
+	private static final IRI SKOS_PREF_LABEL = IRI.create("http://www.w3.org/2004/02/skos/core#prefLabel");
+
+	private static final IRI SKOS_NOTATION = IRI.create("http://www.w3.org/2004/02/skos/core#notation");
+
+	private static final IRI PREFIX_IRI = IRI.create("http://data.bioontology.org/metadata/prefixIRI");
+
+	private static final Set<IRI> SYNONYMS = new HashSet<IRI>(Arrays.asList(
+			IRI.create("http://www.w3.org/2004/02/skos/core#altLabel"),
+			IRI.create("http://www.geneontology.org/formats/oboInOwl#hasExactSynonym"),
+			IRI.create("http://www.geneontology.org/formats/oboInOwl#hasRelatedSynonym"),
+			IRI.create("http://www.geneontology.org/formats/oboInOwl#hasNarrowSynonym"),
+			IRI.create("http://www.geneontology.org/formats/oboInOwl#hasBroadSynonym")));
+
+	private static final Set<IRI> DEFINITIONS = new HashSet<IRI>(Arrays.asList(
+			IRI.create("http://www.w3.org/2004/02/skos/core#definition"),
+			IRI.create("http://purl.obolibrary.org/obo/IAO_0000115")));
+
+	private final OWLOntology ontology;
+	private final File file;
+	private final OutputCompression compression;
+
+	public SearchDocumentWriter(OWLOntology ontology, File file, OutputCompression compression) {
+		this.ontology = ontology;
+		this.file = file;
+		this.compression = compression;
+	}
+
+	/**
+	 * Writes the search documents, replacing the file atomically once they are all written.
+	 *
+	 * @return	the number of documents written
+	 */
+	public long write() throws IOException {
+		long documents = 0;
+		try (AtomicOutputFile outputFile = new AtomicOutputFile(file)) {
+			OutputStream out = compression.wrap(outputFile.getOutputStream());
+			JsonGenerator json = new JsonFactory().setRootValueSeparator(null).createGenerator(out, JsonEncoding.UTF8);
+			for (OWLClass cls : new TreeSet<OWLClass>(ontology.getClassesInSignature())) {
+				if (cls.isBuiltIn()) {
+					continue;
+				}
+				writeDocument(json, cls);
+				documents++;
+			}
+			json.close();
+			outputFile.commit();
+		}
+		log.info("Wrote {} search documents to {}", documents, file.getName());
+		return documents;
+	}
+
+	private void writeDocument(JsonGenerator json, OWLClass cls) throws IOException {
+		String prefLabel = null;
+		String label = null;
+		String notation = null;
+		String prefixIRI = null;
+		boolean obsolete = false;
+		Set<String> synonyms = new TreeSet<String>();
+		Set<String> definitions = new TreeSet<String>();
+
+		for (OWLAnnotationAssertionAxiom ann : ontology.getAnnotationAssertionAxioms(cls.getIRI())) {
+			IRI property = ann.getProperty().getIRI();
+			String value = toString(ann.getValue());
+			if (value == null) {
+				continue;
+			}
+			if (property.equals(SKOS_PREF_LABEL)) {
+				prefLabel = first(prefLabel, value);
+			} else if (property.equals(OWLRDFVocabulary.RDFS_LABEL.getIRI())) {
+				label = first(label, value);
+			} else if (SYNONYMS.contains(property)) {
+				synonyms.add(value);
+			} else if (DEFINITIONS.contains(property)) {
+				definitions.add(value);
+			} else if (property.equals(SKOS_NOTATION)) {
+				notation = first(notation, value);
+			} else if (property.equals(PREFIX_IRI)) {
+				prefixIRI = first(prefixIRI, value);
+			} else if (property.equals(OWLRDFVocabulary.OWL_DEPRECATED.getIRI())) {
+				obsolete = obsolete || Boolean.parseBoolean(value);
+			}
+		}
+
+		json.writeStartObject();
+		json.writeStringField("id", cls.getIRI().toString());
+		json.writeStringField("prefLabel", prefLabel != null ? prefLabel : label);
+		writeArray(json, "synonyms", synonyms);
+		writeArray(json, "definitions", definitions);
+		json.writeStringField("notation", notation);
+		json.writeStringField("prefixIRI", prefixIRI);
+		json.writeBooleanField("obsolete", obsolete);
+		json.writeEndObject();
+		json.writeRaw('\n');
+	}
+
+	private static void writeArray(JsonGenerator json, String name, Collection<String> values) throws IOException {
+		json.writeArrayFieldStart(name);
+		for (String value : values) {
+			json.writeString(value);
+		}
+		json.writeEndArray();
+	}
+
+	/**
+	 * Keeps the smallest of several values of a single-valued field, so that the output does not
+	 * depend on the order of the annotation index.
+	 */
+	private static String first(String current, String value) {
+		return current == null || value.compareTo(current) < 0 ? value : current;
+	}
+
+	private static String toString(OWLAnnotationValue value) {
+		if (value instanceof OWLLiteral) {
+			return ((OWLLiteral) value).getLiteral();
+		}
+		if (value instanceof IRI) {
+			return value.toString();
+		}
+		return null;
+	}
+}
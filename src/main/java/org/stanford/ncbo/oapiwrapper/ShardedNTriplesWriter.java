@@ -0,0 +1,376 @@
+package org.stanford.ncbo.oapiwrapper;
+
+import com.google.common.base.Optional;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.formats.NTriplesDocumentFormat;
+import org.semanticweb.owlapi.model.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Writes the target ontology as a set of N-Triples shard files plus a manifest, so that triple store
+ * bulk loaders can ingest the shards in parallel.
+ * <p>
+ * Axioms are dealt round-robin into shards, and each shard is rendered by its own task on the given
+ * executor with a private ontology manager. Shard ontologies carry a shard version IRI, because the
+ * OWL API caches ontology signatures by ontology ID and a shard with the target ontology's ID would
+ * replace the cached signature of the target ontology. The version IRI is rewritten on output, and
+ * the ontology header is only kept in the first shard. Blank node labels
+ * are prefixed with the shard number, since every shard manager numbers its blank nodes from scratch.
+ * All the axioms mentioning anonymous individuals go to the first shard, so that every anonymous
+ * individual keeps a single blank node and the union of the shards is the same graph as the single
+ * file output.
+ * <p>
+ * Every shard ontology holds references to the axioms of its partition, along with its own indexes.
+ * In {@link #setSequential sequential} mode the shards are rendered one after the other on the calling
+ * thread, and each partition is released once written, so that only one shard ontology is alive at a
+ * time.
+ */
+public class ShardedNTriplesWriter {
+	private final static Logger log = LoggerFactory.getLogger(ShardedNTriplesWriter.class.getName());
+
+	private static final byte[] ONTOLOGY_HEADER = ("<http://www.w3.org/1999/02/22-rdf-syntax-ns#type> "
+			+ "<http://www.w3.org/2002/07/owl#Ontology>").getBytes(StandardCharsets.UTF_8);
+
+	private final OWLOntology ontology;
+	private final int shardCount;
+	private final File outputFolder;
+	private final OutputCompression compression;
+	private final ExecutorService executor;
+	private boolean sequential = false;
+
+	public ShardedNTriplesWriter(OWLOntology ontology, int shardCount, File outputFolder,
+			OutputCompression compression, ExecutorService executor) {
+		this.ontology = ontology;
+		this.shardCount = shardCount;
+		this.outputFolder = outputFolder;
+		this.compression = compression;
+		this.executor = executor;
+	}
+
+	/**
+	 * Renders the shards one at a time on the calling thread rather than concurrently, to bound the
+	 * heap used by the shard ontologies when memory is low.
+	 */
+	public void setSequential(boolean sequential) {
+		this.sequential = sequential;
+	}
+
+	/**
+	 * Describes one written shard file, as listed in the manifest.
+	 */
+	public static class Shard {
+		private final File file;
+		private final long triples;
+
+		Shard(File file, long triples) {
+			this.file = file;
+			this.triples = triples;
+		}
+
+		public File getFile() {
+			return file;
+		}
+
+		public long getTriples() {
+			return triples;
+		}
+
+		public long getBytes() {
+			return file.length();
+		}
+	}
+
+	/**
+	 * Writes all shards, then the manifest.
+	 *
+	 * @return	the shards in manifest order
+	 */
+	public List<Shard> write() throws IOException, OWLOntologyStorageException {
+		List<List<OWLAxiom>> partitions = new ArrayList<List<OWLAxiom>>(shardCount);
+		int expectedSize = ontology.getAxiomCount() / shardCount + 1;
+		for (int i = 0; i < shardCount; i++) {
+			partitions.add(new ArrayList<OWLAxiom>(expectedSize));
+		}
+		int next = 0;
+		int anonymous = 0;
+		for (OWLAxiom axiom : ontology.getAxioms()) {
+			if (!axiom.getAnonymousIndividuals().isEmpty()) {
+				partitions.get(0).add(axiom);
+				anonymous++;
+			} else {
+				partitions.get(next).add(axiom);
+				next = (next + 1) % shardCount;
+			}
+		}
+		if (anonymous > 0) {
+			log.info("Kept {} axioms with anonymous individuals in the first shard", anonymous);
+		}
+
+		List<Shard> shards = sequential ? writeSequentially(partitions) : writeConcurrently(partitions);
+		writeManifest(shards);
+		return shards;
+	}
+
+	private List<Shard> writeSequentially(List<List<OWLAxiom>> partitions) throws IOException, OWLOntologyStorageException {
+		List<Shard> shards = new ArrayList<Shard>(shardCount);
+		for (int i = 0; i < shardCount; i++) {
+			try {
+				shards.add(writeShard(i, partitions.get(i)));
+			} catch (Exception e) {
+				throw rethrow(e);
+			}
+			partitions.set(i, null);
+		}
+		return shards;
+	}
+
+	private List<Shard> writeConcurrently(List<List<OWLAxiom>> partitions) throws IOException, OWLOntologyStorageException {
+		List<Future<Shard>> futures = new ArrayList<Future<Shard>>(shardCount);
+		try {
+			for (int i = 0; i < shardCount; i++) {
+				final int index = i;
+				final List<OWLAxiom> axioms = partitions.get(i);
+				futures.add(executor.submit(() -> writeShard(index, axioms)));
+			}
+
+			List<Shard> shards = new ArrayList<Shard>(shardCount);
+			for (Future<Shard> future : futures) {
+				shards.add(future.get());
+			}
+			return shards;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while writing shards", e);
+		} catch (ExecutionException e) {
+			throw rethrow(e.getCause());
+		} finally {
+			for (Future<Shard> future : futures) {
+				future.cancel(true);
+			}
+		}
+	}
+
+	private static IOException rethrow(Throwable cause) throws OWLOntologyStorageException {
+		if (cause instanceof OWLOntologyStorageException) {
+			throw (OWLOntologyStorageException) cause;
+		}
+		if (cause instanceof IOException) {
+			return (IOException) cause;
+		}
+		return new IOException(cause);
+	}
+
+	private Shard writeShard(int index, List<OWLAxiom> axioms) throws Exception {
+		OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+		IRI shardVersionIRI = null;
+		OWLOntology shardOntology;
+		if (ontology.getOntologyID().isAnonymous()) {
+			shardOntology = manager.createOntology();
+		} else {
+			IRI ontologyIRI = ontology.getOntologyID().getOntologyIRI().get();
+			shardVersionIRI = IRI.create(ontologyIRI + "#shard-" + index);
+			shardOntology = manager.createOntology(new OWLOntologyID(Optional.of(ontologyIRI), Optional.of(shardVersionIRI)));
+		}
+		manager.addAxioms(shardOntology, asSet(axioms));
+		if (index == 0) {
+			for (OWLAnnotation annotation : ontology.getAnnotations()) {
+				manager.applyChange(new AddOntologyAnnotation(shardOntology, annotation));
+			}
+		}
+
+		File file = new File(outputFolder, String.format(OntologyParserConstants.SHARD_FILE_PATTERN, index)
+				+ compression.getFileSuffix());
+		TripleCountingOutputStream counter;
+		try (AtomicOutputFile outputFile = new AtomicOutputFile(file)) {
+			OutputStream out = compression.wrap(outputFile.getOutputStream());
+			counter = new TripleCountingOutputStream(out, index, shardVersionIRI,
+					ontology.getOntologyID().getVersionIRI().orNull());
+			manager.saveOntology(shardOntology, new NTriplesDocumentFormat(), counter);
+			counter.finish();
+			out.close();
+			outputFile.commit();
+		}
+		log.info("Wrote shard {} with {} triples", file.getName(), counter.getTriples());
+		return new Shard(file, counter.getTriples());
+	}
+
+	/**
+	 * Returns a set view of a partition. The axioms of an ontology are distinct, so they need not be
+	 * copied into a hash set for the shard ontology.
+	 */
+	private static Set<OWLAxiom> asSet(List<OWLAxiom> axioms) {
+		return new AbstractSet<OWLAxiom>() {
+			@Override
+			public Iterator<OWLAxiom> iterator() {
+				return axioms.iterator();
+			}
+
+			@Override
+			public int size() {
+				return axioms.size();
+			}
+		};
+	}
+
+	private void writeManifest(List<Shard> shards) throws IOException {
+		File manifest = new File(outputFolder, OntologyParserConstants.SHARD_MANIFEST_FILE);
+		CSVFormat csvFormat = CSVFormat.DEFAULT.withHeader(OntologyParserConstants.SHARD_MANIFEST_HEADERS);
+		try (AtomicOutputFile outputFile = new AtomicOutputFile(manifest)) {
+			CSVPrinter csvPrinter = new CSVPrinter(outputFile.getWriter(), csvFormat);
+			for (Shard shard : shards) {
+				csvPrinter.printRecord(shard.getFile().getName(), shard.getBytes(), shard.getTriples());
+			}
+			csvPrinter.close();
+			outputFile.commit();
+		}
+	}
+
+	/**
+	 * Passes N-Triples output through line by line, counting triples, making blank node labels
+	 * shard-local and dropping the owl:Ontology header from all but the first shard. The shard
+	 * version IRI is replaced by the version IRI of the target ontology, or dropped along with its
+	 * triple when there is none.
+	 */
+	private static class TripleCountingOutputStream extends FilterOutputStream {
+		private final boolean keepHeader;
+		private final byte[] blankNodePrefix;
+		private final byte[] shardVersion;
+		private final byte[] version;
+		private byte[] line = new byte[256];
+		private int length = 0;
+		private long triples = 0;
+
+		TripleCountingOutputStream(OutputStream out, int shardIndex, IRI shardVersionIRI, IRI versionIRI) {
+			super(out);
+			this.keepHeader = shardIndex == 0;
+			this.blankNodePrefix = ("_:s" + shardIndex + "_").getBytes(StandardCharsets.UTF_8);
+			this.shardVersion = shardVersionIRI == null ? null : toBytes(shardVersionIRI);
+			this.version = keepHeader && versionIRI != null ? toBytes(versionIRI) : null;
+		}
+
+		private static byte[] toBytes(IRI iri) {
+			return ("<" + iri + ">").getBytes(StandardCharsets.UTF_8);
+		}
+
+		long getTriples() {
+			return triples;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			if (length == line.length) {
+				byte[] grown = new byte[line.length * 2];
+				System.arraycopy(line, 0, grown, 0, length);
+				line = grown;
+			}
+			line[length++] = (byte) b;
+			if (b == '\n') {
+				endLine();
+			}
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			for (int i = off; i < off + len; i++) {
+				write(b[i]);
+			}
+		}
+
+		/**
+		 * Writes out a trailing line without a line terminator. The underlying stream is owned by
+		 * the caller and is left open.
+		 */
+		void finish() throws IOException {
+			if (length > 0) {
+				endLine();
+			}
+			out.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			finish();
+		}
+
+		private void endLine() throws IOException {
+			int start = 0;
+			while (start < length && Character.isWhitespace(line[start])) {
+				start++;
+			}
+			if (start < length && line[start] != '#') {
+				int shardVersionAt = shardVersion == null ? -1 : indexOf(shardVersion);
+				if ((!keepHeader && indexOf(ONTOLOGY_HEADER) >= 0) || (shardVersionAt >= 0 && version == null)) {
+					length = 0;
+					return;
+				}
+				if (shardVersionAt >= 0) {
+					replace(shardVersionAt, shardVersion.length, version);
+				}
+				triples++;
+				writeWithShardBlankNodes();
+			} else {
+				out.write(line, 0, length);
+			}
+			length = 0;
+		}
+
+		private void writeWithShardBlankNodes() throws IOException {
+			boolean inLiteral = false;
+			int written = 0;
+			for (int i = 0; i < length - 1; i++) {
+				byte b = line[i];
+				if (inLiteral) {
+					if (b == '\\') {
+						i++;
+					} else if (b == '"') {
+						inLiteral = false;
+					}
+				} else if (b == '"') {
+					inLiteral = true;
+				} else if (b == '_' && line[i + 1] == ':' && (i == 0 || line[i - 1] == ' ' || line[i - 1] == '\t')) {
+					out.write(line, written, i - written);
+					out.write(blankNodePrefix);
+					written = i + 2;
+					i++;
+				}
+			}
+			out.write(line, written, length - written);
+		}
+
+		private int indexOf(byte[] bytes) {
+			outer:
+			for (int i = 0; i <= length - bytes.length; i++) {
+				for (int j = 0; j < bytes.length; j++) {
+					if (line[i + j] != bytes[j]) {
+						continue outer;
+					}
+				}
+				return i;
+			}
+			return -1;
+		}
+
+		private void replace(int start, int count, byte[] bytes) {
+			byte[] replaced = new byte[Math.max(line.length, length - count + bytes.length)];
+			System.arraycopy(line, 0, replaced, 0, start);
+			System.arraycopy(bytes, 0, replaced, start, bytes.length);
+			System.arraycopy(line, start + count, replaced, start + bytes.length, length - start - count);
+			length = length - count + bytes.length;
+			line = replaced;
+		}
+	}
+}
@@ -0,0 +1,582 @@
+package org.stanford.ncbo.oapiwrapper;
+
+import org.semanticweb.owlapi.annotations.HasPriority;
+import org.semanticweb.owlapi.formats.RDFXMLDocumentFormat;
+import org.semanticweb.owlapi.formats.RDFXMLDocumentFormatFactory;
+import org.semanticweb.owlapi.io.AbstractOWLParser;
+import org.semanticweb.owlapi.io.OWLOntologyDocumentSource;
+import org.semanticweb.owlapi.io.OWLParser;
+import org.semanticweb.owlapi.io.OWLParserException;
+import org.semanticweb.owlapi.io.OWLParserFactoryImpl;
+import org.semanticweb.owlapi.model.*;
+import org.semanticweb.owlapi.rdf.rdfxml.parser.IRIProvider;
+import org.semanticweb.owlapi.rdf.rdfxml.parser.OWLRDFConsumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.InputSource;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An RDF/XML parser that reads the document with StAX and feeds the triples straight to the owlapi
+ * {@link OWLRDFConsumer}, as an alternative to the SAX state machine of the default RDF/XML parser.
+ * <p>
+ * Element states are kept on a reusable frame stack instead of one object per element, and every
+ * IRI string seen in the document is resolved and turned into an {@link IRI} once, through a
+ * dictionary that the consumer also uses as its {@link IRIProvider}. The triples produced are the
+ * same as those of the default parser, so the resulting axioms are identical.
+ * <p>
+ * Only the common subset of RDF/XML is handled. Reification (<code>rdf:ID</code> and
+ * <code>rdf:bagID</code> on property elements), <code>rdf:parseType="Literal"</code>, XML literals
+ * and <code>include-rdf</code> processing instructions raise an {@link OWLParserException}, which
+ * makes the ontology manager fall back to the next parser for the document, normally the default
+ * RDF/XML parser. Register {@link Factory} with a manager to put this parser in front of it.
+ */
+public class StreamingRDFXMLParser extends AbstractOWLParser {
+	private final static Logger log = LoggerFactory.getLogger(StreamingRDFXMLParser.class.getName());
+	private static final long serialVersionUID = 1L;
+
+	private static final String RDF_NS = "http://www.w3.org/1999/02/22-rdf-syntax-ns#";
+	private static final String XML_NS = "http://www.w3.org/XML/1998/namespace";
+	private static final String RDF_TYPE = RDF_NS + "type";
+	private static final String RDF_FIRST = RDF_NS + "first";
+	private static final String RDF_REST = RDF_NS + "rest";
+	private static final String RDF_NIL = RDF_NS + "nil";
+	private static final String RDF_LIST = RDF_NS + "List";
+	private static final String RDF_XML_LITERAL = RDF_NS + "XMLLiteral";
+
+	/**
+	 * Registers the streaming parser with an ontology manager, ahead of the default RDF/XML parser.
+	 */
+	@HasPriority(-1)
+	public static class Factory extends OWLParserFactoryImpl {
+		private static final long serialVersionUID = 1L;
+
+		public Factory() {
+			super(new RDFXMLDocumentFormatFactory());
+		}
+
+		@Override
+		public OWLParser createParser() {
+			return new StreamingRDFXMLParser();
+		}
+	}
+
+	@Override
+	public String getName() {
+		return "StreamingRDFXMLParser";
+	}
+
+	@Override
+	public OWLDocumentFormatFactory getSupportedFormat() {
+		return new RDFXMLDocumentFormatFactory();
+	}
+
+	@Override
+	public OWLDocumentFormat parse(OWLOntologyDocumentSource documentSource, OWLOntology ontology,
+			OWLOntologyLoaderConfiguration configuration) throws IOException {
+		long startTime = System.nanoTime();
+		InputSource inputSource = getInputSource(documentSource, configuration);
+		RDFXMLDocumentFormat format = new RDFXMLDocumentFormat();
+		IRIDictionary dictionary = new IRIDictionary();
+		OWLRDFConsumer consumer = new OWLRDFConsumer(ontology, configuration) {
+			{
+				setIRIProvider(dictionary);
+			}
+		};
+		consumer.setOntologyFormat(format);
+		XMLStreamReader reader = null;
+		try {
+			XMLInputFactory inputFactory = createInputFactory(configuration);
+			if (inputSource.getByteStream() != null) {
+				reader = inputFactory.createXMLStreamReader(inputSource.getSystemId(), inputSource.getByteStream());
+			} else {
+				reader = inputFactory.createXMLStreamReader(inputSource.getSystemId(), inputSource.getCharacterStream());
+			}
+			TripleReader tripleReader = new TripleReader(reader, consumer, format,
+					IRI.create(new URI(inputSource.getSystemId())));
+			long triples = tripleReader.read();
+			long estimatedTime = (System.nanoTime() - startTime) / 1000000;
+			log.debug("Streamed {} triples from {} in {} milliseconds", triples, documentSource.getDocumentIRI(), estimatedTime);
+			return format;
+		} catch (XMLStreamException | URISyntaxException e) {
+			throw new OWLParserException(e);
+		} catch (OWLParserException e) {
+			log.info("Streaming RDF/XML parser cannot read {}, falling back: {}", documentSource.getDocumentIRI(), e.getMessage());
+			throw e;
+		} finally {
+			if (reader != null) {
+				try {
+					reader.close();
+				} catch (XMLStreamException e) {
+					log.debug("Cannot close RDF/XML reader: {}", e.getMessage());
+				}
+			}
+			if (inputSource.getByteStream() != null) {
+				inputSource.getByteStream().close();
+			} else if (inputSource.getCharacterStream() != null) {
+				inputSource.getCharacterStream().close();
+			}
+		}
+	}
+
+	private static XMLInputFactory createInputFactory(OWLOntologyLoaderConfiguration configuration) {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+		factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+		// Internal DTD entities (&owl; etc.) are common in RDF/XML, external ones are never fetched
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, true);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		// Same entity expansion limit as the SAX parser owlapi sets up for the default parser
+		for (String property : new String[] { "jdk.xml.entityExpansionLimit", "jdk.xml.totalEntitySizeLimit" }) {
+			try {
+				factory.setProperty(property, configuration.getEntityExpansionLimit());
+			} catch (IllegalArgumentException e) {
+				log.debug("XML input factory does not support {}", property);
+			}
+		}
+		return factory;
+	}
+
+	/**
+	 * The kinds of element the reader can be inside of.
+	 */
+	private enum FrameType {
+		/** rdf:RDF, containing node elements. */
+		NODE_LIST,
+		/** A node element, containing property elements. */
+		NODE,
+		/** A property element whose value is either text or a single node element. */
+		RESOURCE_OR_LITERAL,
+		/** A property element with an rdf:resource or rdf:nodeID value. */
+		EMPTY_PROPERTY,
+		/** A property element with rdf:parseType="Collection", containing node elements. */
+		COLLECTION
+	}
+
+	/**
+	 * The state of one open element. Frames are pooled and reused by the frame stack.
+	 */
+	private static class Frame {
+		FrameType type;
+		String subject;
+		String predicate;
+		String datatype;
+		String innerSubject;
+		String lastCell;
+		int nextLi;
+		IRI savedBase;
+		String savedLanguage;
+		final StringBuilder text = new StringBuilder();
+
+		void reset(FrameType type, String subject, String predicate) {
+			this.type = type;
+			this.subject = subject;
+			this.predicate = predicate;
+			this.datatype = null;
+			this.innerSubject = null;
+			this.lastCell = null;
+			this.nextLi = 1;
+			this.text.setLength(0);
+		}
+	}
+
+	/**
+	 * The IRI dictionary the consumer looks IRIs up in, so that each distinct IRI of the document is
+	 * created once. Blank nodes are not kept, they are rarely referenced more than a few times.
+	 */
+	private static class IRIDictionary implements IRIProvider {
+		private final Map<String, IRI> iris = new HashMap<String, IRI>();
+
+		@Override
+		public IRI getIRI(String s) {
+			IRI iri = iris.get(s);
+			if (iri == null) {
+				iri = IRI.create(s);
+				if (!NodeID.isAnonymousNodeIRI(s)) {
+					iris.put(s, iri);
+				}
+			}
+			return iri;
+		}
+	}
+
+	/**
+	 * Walks the StAX events of one document and reports its triples to the consumer.
+	 */
+	private static class TripleReader {
+		private final XMLStreamReader reader;
+		private final OWLRDFConsumer consumer;
+		private final RDFXMLDocumentFormat format;
+
+		private final List<Frame> frames = new ArrayList<Frame>();
+		private int depth = 0;
+
+		private IRI base;
+		private String language = null;
+		private long triples = 0;
+
+		/** Element names by namespace, so property and type IRIs are not concatenated per element. */
+		private final Map<String, Map<String, String>> names = new HashMap<String, Map<String, String>>();
+		/** References resolved against the current base. */
+		private final Map<String, String> resolved = new HashMap<String, String>();
+		private URI baseURI;
+
+		TripleReader(XMLStreamReader reader, OWLRDFConsumer consumer, RDFXMLDocumentFormat format, IRI base) {
+			this.reader = reader;
+			this.consumer = consumer;
+			this.format = format;
+			setBase(base);
+		}
+
+		long read() throws XMLStreamException {
+			consumer.startModel(base);
+			while (reader.hasNext()) {
+				switch (reader.next()) {
+					case XMLStreamConstants.START_ELEMENT:
+						startElement();
+						break;
+					case XMLStreamConstants.END_ELEMENT:
+						endElement();
+						break;
+					case XMLStreamConstants.CHARACTERS:
+					case XMLStreamConstants.CDATA:
+					case XMLStreamConstants.SPACE:
+						characters();
+						break;
+					case XMLStreamConstants.PROCESSING_INSTRUCTION:
+						if ("include-rdf".equals(reader.getPITarget())) {
+							throw unsupported("include-rdf processing instruction");
+						}
+						break;
+					default:
+						break;
+				}
+			}
+			consumer.endModel();
+			return triples;
+		}
+
+		private void startElement() {
+			for (int i = 0; i < reader.getNamespaceCount(); i++) {
+				String prefix = reader.getNamespacePrefix(i);
+				format.setPrefix(prefix == null ? "" : prefix, reader.getNamespaceURI(i));
+			}
+
+			IRI savedBase = base;
+			String savedLanguage = language;
+			String xmlBase = reader.getAttributeValue(XML_NS, "base");
+			if (xmlBase != null) {
+				setBase(IRI.create(resolveAgainst(xmlBase)));
+			}
+			String xmlLang = reader.getAttributeValue(XML_NS, "lang");
+			if (xmlLang != null) {
+				language = xmlLang;
+			}
+
+			Frame parent = depth > 0 ? frames.get(depth - 1) : null;
+			Frame frame;
+			if (parent == null) {
+				if (!isRDF("RDF")) {
+					throw new OWLParserException("Expecting rdf:RDF element.");
+				}
+				if (xmlBase != null) {
+					consumer.logicalURI(base);
+				}
+				frame = push(FrameType.NODE_LIST, null, null);
+			} else {
+				switch (parent.type) {
+					case NODE_LIST:
+						frame = push(FrameType.NODE, nodeElement(), null);
+						break;
+					case NODE:
+						frame = propertyElement(parent);
+						break;
+					case RESOURCE_OR_LITERAL:
+						if (parent.innerSubject != null) {
+							throw unsupported("more than one node element in a property element");
+						}
+						if (isNotBlank(parent.text)) {
+							throw new OWLParserException("Text was seen and new node is started.");
+						}
+						if (parent.datatype != null) {
+							throw new OWLParserException("rdf:datatype specified on a node with resource value.");
+						}
+						parent.innerSubject = nodeElement();
+						frame = push(FrameType.NODE, parent.innerSubject, null);
+						break;
+					case COLLECTION:
+						String item = nodeElement();
+						String cell = NodeID.nextAnonymousIRI();
+						resourceStatement(cell, RDF_FIRST, item);
+						resourceStatement(cell, RDF_TYPE, RDF_LIST);
+						if (parent.lastCell == null) {
+							resourceStatement(parent.subject, parent.predicate, cell);
+						} else {
+							resourceStatement(parent.lastCell, RDF_REST, cell);
+						}
+						parent.lastCell = cell;
+						frame = push(FrameType.NODE, item, null);
+						break;
+					default:
+						throw new OWLParserException("Incorrect element start encountered.");
+				}
+			}
+			frame.savedBase = savedBase;
+			frame.savedLanguage = savedLanguage;
+		}
+
+		private void endElement() {
+			Frame frame = frames.get(--depth);
+			if (frame.type == FrameType.RESOURCE_OR_LITERAL) {
+				if (frame.innerSubject != null) {
+					resourceStatement(frame.subject, frame.predicate, frame.innerSubject);
+				} else {
+					literalStatement(frame.subject, frame.predicate, frame.text.toString(), frame.datatype);
+				}
+			} else if (frame.type == FrameType.COLLECTION) {
+				if (frame.lastCell == null) {
+					resourceStatement(frame.subject, frame.predicate, RDF_NIL);
+				} else {
+					resourceStatement(frame.lastCell, RDF_REST, RDF_NIL);
+				}
+			}
+			if (frame.savedBase != base) {
+				setBase(frame.savedBase);
+			}
+			language = frame.savedLanguage;
+		}
+
+		private void characters() {
+			Frame frame = depth > 0 ? frames.get(depth - 1) : null;
+			if (frame != null && frame.type == FrameType.RESOURCE_OR_LITERAL && frame.innerSubject == null) {
+				frame.text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+			} else if (!reader.isWhiteSpace() && isNotBlank(reader.getText())) {
+				throw new OWLParserException("Unexpected character content.");
+			}
+		}
+
+		/**
+		 * Handles the start of a node element and returns its subject.
+		 */
+		private String nodeElement() {
+			String subject;
+			String id = reader.getAttributeValue(RDF_NS, "ID");
+			String about = reader.getAttributeValue(RDF_NS, "about");
+			String nodeID = reader.getAttributeValue(RDF_NS, "nodeID");
+			if (id != null) {
+				if (about != null || nodeID != null) {
+					throw new OWLParserException("Element cannot specify more than one of rdf:ID, rdf:about and rdf:nodeID.");
+				}
+				subject = resolve("#" + id);
+			} else if (about != null) {
+				if (nodeID != null) {
+					throw new OWLParserException("Element cannot specify both rdf:nodeID and rdf:about attributes.");
+				}
+				subject = resolve(about);
+			} else if (nodeID != null) {
+				subject = NodeID.getIRIFromNodeID(nodeID);
+			} else {
+				subject = NodeID.nextAnonymousIRI();
+			}
+
+			if (!isRDF("Description")) {
+				resourceStatement(subject, RDF_TYPE, elementName());
+			}
+			propertyAttributes(subject);
+			return subject;
+		}
+
+		/**
+		 * Handles the start of a property element of the given node and returns its frame.
+		 */
+		private Frame propertyElement(Frame node) {
+			String predicate = isRDF("li") ? RDF_NS + "_" + node.nextLi++ : elementName();
+			if (reader.getAttributeValue(RDF_NS, "ID") != null || reader.getAttributeValue(RDF_NS, "bagID") != null) {
+				throw unsupported("reified statement");
+			}
+			String datatype = reader.getAttributeValue(RDF_NS, "datatype");
+			String parseType = reader.getAttributeValue(RDF_NS, "parseType");
+			if (RDF_XML_LITERAL.equals(datatype)) {
+				throw unsupported("XML literal");
+			}
+			if (parseType != null) {
+				if ("Resource".equals(parseType)) {
+					String object = NodeID.nextAnonymousIRI();
+					resourceStatement(node.subject, predicate, object);
+					return push(FrameType.NODE, object, null);
+				}
+				if ("Collection".equals(parseType)) {
+					return push(FrameType.COLLECTION, node.subject, predicate);
+				}
+				throw unsupported("rdf:parseType=\"" + parseType + "\"");
+			}
+
+			String object = null;
+			String resource = reader.getAttributeValue(RDF_NS, "resource");
+			if (resource != null) {
+				object = resolve(resource);
+			} else {
+				String nodeID = reader.getAttributeValue(RDF_NS, "nodeID");
+				if (nodeID != null) {
+					object = NodeID.getIRIFromNodeID(nodeID);
+				}
+			}
+			if (object != null) {
+				resourceStatement(node.subject, predicate, object);
+				propertyAttributes(object);
+				return push(FrameType.EMPTY_PROPERTY, node.subject, predicate);
+			}
+
+			Frame frame = push(FrameType.RESOURCE_OR_LITERAL, node.subject, predicate);
+			frame.datatype = datatype;
+			return frame;
+		}
+
+		/**
+		 * Reports the property attributes of an element as triples about the given subject.
+		 */
+		private void propertyAttributes(String subject) {
+			for (int i = 0; i < reader.getAttributeCount(); i++) {
+				String namespace = reader.getAttributeNamespace(i);
+				String localName = reader.getAttributeLocalName(i);
+				if (namespace == null) {
+					namespace = "";
+				}
+				if (XML_NS.equals(namespace)) {
+					continue;
+				}
+				if (RDF_NS.equals(namespace)) {
+					switch (localName) {
+						case "type":
+							resourceStatement(subject, RDF_TYPE, resolve(reader.getAttributeValue(i)));
+							continue;
+						case "ID":
+						case "nodeID":
+						case "about":
+						case "resource":
+						case "parseType":
+						case "datatype":
+							continue;
+						case "aboutEach":
+						case "aboutEachPrefix":
+						case "bagID":
+							throw unsupported("rdf:" + localName);
+						default:
+							break;
+					}
+				}
+				literalStatement(subject, name(namespace, localName), reader.getAttributeValue(i), null);
+			}
+		}
+
+		private Frame push(FrameType type, String subject, String predicate) {
+			Frame frame;
+			if (depth < frames.size()) {
+				frame = frames.get(depth);
+			} else {
+				frame = new Frame();
+				frames.add(frame);
+			}
+			depth++;
+			frame.reset(type, subject, predicate);
+			return frame;
+		}
+
+		private void resourceStatement(String subject, String predicate, String object) {
+			triples++;
+			consumer.statementWithResourceValue(consumer.remapOnlyIfRemapped(subject), predicate, object);
+		}
+
+		private void literalStatement(String subject, String predicate, String value, String datatype) {
+			triples++;
+			consumer.statementWithLiteralValue(subject, predicate, value, language, datatype);
+		}
+
+		private boolean isRDF(String localName) {
+			return localName.equals(reader.getLocalName()) && RDF_NS.equals(reader.getNamespaceURI());
+		}
+
+		private String elementName() {
+			String namespace = reader.getNamespaceURI();
+			return name(namespace == null ? "" : namespace, reader.getLocalName());
+		}
+
+		private String name(String namespace, String localName) {
+			Map<String, String> localNames = names.get(namespace);
+			if (localNames == null) {
+				localNames = new HashMap<String, String>();
+				names.put(namespace, localNames);
+			}
+			String name = localNames.get(localName);
+			if (name == null) {
+				name = namespace + localName;
+				localNames.put(localName, name);
+			}
+			return name;
+		}
+
+		/**
+		 * Resolves an IRI reference against the current base the same way as the default parser.
+		 */
+		private String resolve(String reference) {
+			if (reference.isEmpty()) {
+				String namespace = base.getNamespace();
+				if (!namespace.isEmpty() && namespace.charAt(namespace.length() - 1) == '#') {
+					return namespace.substring(0, namespace.length() - 1);
+				}
+				String iri = base.toString();
+				int fragment = iri.indexOf('#');
+				return fragment == -1 ? iri : iri.substring(0, fragment);
+			}
+			String iri = resolved.get(reference);
+			if (iri == null) {
+				iri = resolveAgainst(reference);
+				resolved.put(reference, iri);
+			}
+			return iri;
+		}
+
+		private String resolveAgainst(String reference) {
+			if (NodeID.isAnonymousNodeIRI(reference)) {
+				return reference;
+			}
+			try {
+				return baseURI.resolve(reference.replace(" ", "%20")).toString();
+			} catch (IllegalArgumentException e) {
+				throw new OWLParserException("IRI '" + reference + "' cannot be resolved against current base IRI "
+						+ base + " reason is: " + e.getMessage(), e);
+			}
+		}
+
+		private void setBase(IRI base) {
+			this.base = base;
+			this.baseURI = base.toURI();
+			this.resolved.clear();
+		}
+
+		private OWLParserException unsupported(String construct) {
+			return new OWLParserException("Unsupported RDF/XML construct: " + construct,
+					reader.getLocation().getLineNumber(), reader.getLocation().getColumnNumber());
+		}
+
+		private static boolean isNotBlank(CharSequence text) {
+			for (int i = 0; i < text.length(); i++) {
+				if (!Character.isWhitespace(text.charAt(i))) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+}
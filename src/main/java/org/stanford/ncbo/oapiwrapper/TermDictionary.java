@@ -0,0 +1,129 @@
+package org.stanford.ncbo.oapiwrapper;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Maps IRI and literal strings to dense int ids, keeping the characters outside of the heap.
+ * <p>
+ * Terms are stored once, as UTF-8, in direct byte buffers allocated in chunks. The heap only holds
+ * primitive arrays: the location, length and hash of every term, and an open addressing table from
+ * hashes to ids. The direct memory is released when the dictionary is garbage collected.
+ */
+public class TermDictionary {
+	private final List<ByteBuffer> chunks = new ArrayList<ByteBuffer>();
+	private ByteBuffer current = null;
+
+	/** Chunk index in the high half, offset in the chunk in the low half. */
+	private long[] locations = new long[1024];
+	private int[] lengths = new int[1024];
+	private int[] hashes = new int[1024];
+	private int size = 0;
+
+	/** Term ids plus one, zero marks a free slot. */
+	private int[] table = new int[2048];
+	private long offHeapBytes = 0;
+
+	/**
+	 * Returns the id of a term, adding the term to the dictionary if it is not there yet.
+	 */
+	public int intern(String term) {
+		byte[] bytes = term.getBytes(StandardCharsets.UTF_8);
+		int hash = term.hashCode();
+		int mask = table.length - 1;
+		int slot = mix(hash) & mask;
+		while (table[slot] != 0) {
+			int id = table[slot] - 1;
+			if (hashes[id] == hash && matches(id, bytes)) {
+				return id;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		int id = size++;
+		if (id == locations.length) {
+			locations = Arrays.copyOf(locations, id * 2);
+			lengths = Arrays.copyOf(lengths, id * 2);
+			hashes = Arrays.copyOf(hashes, id * 2);
+		}
+		locations[id] = store(bytes);
+		lengths[id] = bytes.length;
+		hashes[id] = hash;
+		table[slot] = id + 1;
+		if (size * 2 > table.length) {
+			rehash();
+		}
+		return id;
+	}
+
+	/**
+	 * Returns the term with the given id.
+	 */
+	public String get(int id) {
+		byte[] bytes = new byte[lengths[id]];
+		ByteBuffer chunk = chunks.get((int) (locations[id] >>> 32)).duplicate();
+		chunk.position((int) locations[id]);
+		chunk.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the number of bytes of direct memory allocated for the terms.
+	 */
+	public long getOffHeapBytes() {
+		return offHeapBytes;
+	}
+
+	private boolean matches(int id, byte[] bytes) {
+		if (lengths[id] != bytes.length) {
+			return false;
+		}
+		ByteBuffer chunk = chunks.get((int) (locations[id] >>> 32));
+		int offset = (int) locations[id];
+		for (int i = 0; i < bytes.length; i++) {
+			if (chunk.get(offset + i) != bytes[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private long store(byte[] bytes) {
+		if (current == null || current.remaining() < bytes.length) {
+			int capacity = Math.max(OntologyParserConstants.TERM_DICTIONARY_CHUNK_SIZE, bytes.length);
+			current = ByteBuffer.allocateDirect(capacity);
+			chunks.add(current);
+			offHeapBytes += capacity;
+		}
+		long location = ((long) (chunks.size() - 1) << 32) | current.position();
+		current.put(bytes);
+		return location;
+	}
+
+	private void rehash() {
+		table = new int[table.length * 2];
+		int mask = table.length - 1;
+		for (int id = 0; id < size; id++) {
+			int slot = mix(hashes[id]) & mask;
+			while (table[slot] != 0) {
+				slot = (slot + 1) & mask;
+			}
+			table[slot] = id + 1;
+		}
+	}
+
+	/**
+	 * Spreads the bits of a string hash code, whose low bits are poor for IRIs sharing a namespace.
+	 */
+	private static int mix(int hash) {
+		int h = hash * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
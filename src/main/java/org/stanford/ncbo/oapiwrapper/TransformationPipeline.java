@@ -0,0 +1,198 @@
+package org.stanford.ncbo.oapiwrapper;
+
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Runs a list of {@link OntologyStage}s over the source ontologies in a single traversal: the axioms
+ * of each source ontology are iterated once and handed to every stage visiting axioms, then its
+ * classes are iterated once for the stages visiting classes. The stages are finished afterwards, in
+ * the order they were registered.
+ * <p>
+ * The axioms and classes are handed over in small batches, each stage visiting the whole batch before
+ * the next one, so that the time spent in each stage can be measured per batch rather than per visit,
+ * while the batch is still in the CPU cache. Stages must therefore not depend on the visits of the
+ * other stages during the traversal. The time spent in each stage is reported when the pipeline is done.
+ * <p>
+ * A {@link ParserStageEvent} is recorded for each stage, spanning its finish, with the time it spent
+ * visiting the source ontologies as its traversal time.
+ * <p>
+ * The counts of axioms and classes visited, and the stage running, are updated once per batch and
+ * may be read from another thread, e.g. by a {@link ProgressReporter}.
+ */
+public class TransformationPipeline {
+	private final static Logger log = LoggerFactory.getLogger(TransformationPipeline.class.getName());
+
+	private final OntologyStage[] stages;
+	private final long[] nanos;
+	private final ParserInvocation invocation;
+	private final OWLOntology target;
+	private int passes = 0;
+	private volatile long axiomCount = 0;
+	private volatile long classCount = 0;
+	private volatile String currentStage = null;
+
+	public TransformationPipeline(List<OntologyStage> stages) {
+		this(stages, null, null);
+	}
+
+	/**
+	 * @param invocation	the invocation the stage events are recorded for
+	 * @param target		the target ontology built by the stages, whose axioms the events count
+	 */
+	public TransformationPipeline(List<OntologyStage> stages, ParserInvocation invocation, OWLOntology target) {
+		this.stages = stages.toArray(new OntologyStage[0]);
+		this.nanos = new long[this.stages.length];
+		this.invocation = invocation;
+		this.target = target;
+	}
+
+	/**
+	 * Traverses the source ontologies, then finishes the stages.
+	 */
+	public void run(Collection<OWLOntology> sources) {
+		long startTime = System.nanoTime();
+		List<Integer> axiomVisitors = new ArrayList<Integer>();
+		List<Integer> classVisitors = new ArrayList<Integer>();
+
+		currentStage = "traversal";
+		for (OWLOntology source : sources) {
+			axiomVisitors.clear();
+			classVisitors.clear();
+			for (int i = 0; i < stages.length; i++) {
+				long stageStart = System.nanoTime();
+				boolean visited = stages[i].startOntology(source);
+				nanos[i] += System.nanoTime() - stageStart;
+				if (visited && stages[i].isAxiomVisitor()) {
+					axiomVisitors.add(i);
+				}
+				if (visited && stages[i].isClassVisitor()) {
+					classVisitors.add(i);
+				}
+			}
+
+			if (!axiomVisitors.isEmpty()) {
+				visitAxioms(source, toArray(axiomVisitors));
+			}
+			if (!classVisitors.isEmpty()) {
+				visitClasses(source, toArray(classVisitors));
+			}
+		}
+
+		for (int i = 0; i < stages.length; i++) {
+			currentStage = stages[i].getName();
+			ParserStageEvent event = ParserStageEvent.start(invocation, stages[i].getName());
+			event.setTraversalTime(nanos[i]);
+			long stageStart = System.nanoTime();
+			stages[i].finish();
+			nanos[i] += System.nanoTime() - stageStart;
+			event.finish(sources, target);
+		}
+		currentStage = null;
+
+		long estimatedTime = (System.nanoTime() - startTime) / 1000000;
+		log.info("Transformed {} source ontologies in {} passes over {} axioms and {} classes in {} milliseconds",
+				sources.size(), passes, axiomCount, classCount, estimatedTime);
+		for (int i = 0; i < stages.length; i++) {
+			log.info("Stage {}: {} milliseconds", stages[i].getName(), nanos[i] / 1000000);
+		}
+	}
+
+	public int getPasses() {
+		return passes;
+	}
+
+	/**
+	 * Returns the number of source axioms visited so far.
+	 */
+	public long getAxiomCount() {
+		return axiomCount;
+	}
+
+	/**
+	 * Returns the number of source classes visited so far.
+	 */
+	public long getClassCount() {
+		return classCount;
+	}
+
+	/**
+	 * Returns "traversal" while the source ontologies are visited, then the name of the stage being
+	 * finished, or null if the pipeline is not running.
+	 */
+	public String getCurrentStage() {
+		return currentStage;
+	}
+
+	/**
+	 * Returns the time spent in each stage so far, in nanoseconds, in registration order.
+	 */
+	public long[] getStageNanos() {
+		return nanos.clone();
+	}
+
+	private void visitAxioms(OWLOntology source, int[] visitors) {
+		passes++;
+		OWLAxiom[] batch = new OWLAxiom[OntologyParserConstants.STAGE_BATCH_SIZE];
+		int size = 0;
+		for (OWLAxiom axiom : source.getAxioms()) {
+			batch[size++] = axiom;
+			if (size == batch.length) {
+				visitAxioms(batch, size, visitors);
+				size = 0;
+			}
+		}
+		visitAxioms(batch, size, visitors);
+	}
+
+	private void visitAxioms(OWLAxiom[] batch, int size, int[] visitors) {
+		for (int i : visitors) {
+			long stageStart = System.nanoTime();
+			for (int j = 0; j < size; j++) {
+				stages[i].visitAxiom(batch[j]);
+			}
+			nanos[i] += System.nanoTime() - stageStart;
+		}
+		axiomCount += size;
+	}
+
+	private void visitClasses(OWLOntology source, int[] visitors) {
+		passes++;
+		OWLClass[] batch = new OWLClass[OntologyParserConstants.STAGE_BATCH_SIZE];
+		int size = 0;
+		for (OWLClass cls : source.getClassesInSignature()) {
+			batch[size++] = cls;
+			if (size == batch.length) {
+				visitClasses(batch, size, visitors);
+				size = 0;
+			}
+		}
+		visitClasses(batch, size, visitors);
+	}
+
+	private void visitClasses(OWLClass[] batch, int size, int[] visitors) {
+		for (int i : visitors) {
+			long stageStart = System.nanoTime();
+			for (int j = 0; j < size; j++) {
+				stages[i].visitClass(batch[j]);
+			}
+			nanos[i] += System.nanoTime() - stageStart;
+		}
+		classCount += size;
+	}
+
+	private static int[] toArray(List<Integer> indexes) {
+		int[] array = new int[indexes.size()];
+		for (int i = 0; i < array.length; i++) {
+			array[i] = indexes.get(i);
+		}
+		return array;
+	}
+}
@@ -0,0 +1,69 @@
+package org.stanford.ncbo.oapiwrapper;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLAnnotationProperty;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLLiteral;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Process-wide caches for the IRIs, annotation properties and literals that the parser creates for
+ * every ontology, such as the BioPortal metadata properties, skos:notation and the OBO relations.
+ * <p>
+ * Every parse creates its own ontology managers and data factories, so without these caches the
+ * same vocabulary is created again by each parse run in the same JVM. The caches are bounded by
+ * size, safe to use from several threads, and record hit rates. OWL API objects compare by value,
+ * so an object created by the data factory of an earlier parse can be used with any later one.
+ */
+public final class VocabularyCache {
+	private final static Logger log = LoggerFactory.getLogger(VocabularyCache.class.getName());
+
+	private static final Cache<String, IRI> iris = Caffeine.newBuilder()
+			.maximumSize(OntologyParserConstants.IRI_CACHE_SIZE).recordStats().build();
+
+	private static final Cache<IRI, OWLAnnotationProperty> annotationProperties = Caffeine.newBuilder()
+			.maximumSize(OntologyParserConstants.ANNOTATION_PROPERTY_CACHE_SIZE).recordStats().build();
+
+	private static final Cache<String, OWLLiteral> literals = Caffeine.newBuilder()
+			.maximumSize(OntologyParserConstants.LITERAL_CACHE_SIZE).recordStats().build();
+
+	private VocabularyCache() {
+	}
+
+	public static IRI getIRI(String iri) {
+		return iris.get(iri, IRI::create);
+	}
+
+	public static OWLAnnotationProperty getAnnotationProperty(OWLDataFactory factory, IRI iri) {
+		return annotationProperties.get(iri, factory::getOWLAnnotationProperty);
+	}
+
+	public static OWLAnnotationProperty getAnnotationProperty(OWLDataFactory factory, String iri) {
+		return getAnnotationProperty(factory, getIRI(iri));
+	}
+
+	/**
+	 * Returns a plain string literal (xsd:string).
+	 */
+	public static OWLLiteral getLiteral(OWLDataFactory factory, String literal) {
+		return literals.get(literal, factory::getOWLLiteral);
+	}
+
+	/**
+	 * Logs the hit rates of the caches since the JVM started.
+	 */
+	public static void logStats() {
+		logStats("IRI", iris.stats(), iris.estimatedSize());
+		logStats("Annotation property", annotationProperties.stats(), annotationProperties.estimatedSize());
+		logStats("Literal", literals.stats(), literals.estimatedSize());
+	}
+
+	private static void logStats(String name, CacheStats stats, long size) {
+		log.info("{} cache: {} entries, {} requests, hit rate {}%, {} evictions", name, size,
+				stats.requestCount(), Math.round(stats.hitRate() * 1000) / 10.0, stats.evictionCount());
+	}
+}
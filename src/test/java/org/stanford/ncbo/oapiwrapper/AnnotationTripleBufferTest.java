@@ -0,0 +1,61 @@
+package org.stanford.ncbo.oapiwrapper;
+
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.*;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class AnnotationTripleBufferTest {
+
+    @Test
+    public void intern_SameTerm_SameId() {
+        TermDictionary dictionary = new TermDictionary();
+        int first = dictionary.intern("http://purl.obolibrary.org/obo/ENVO_00000001");
+        int second = dictionary.intern("http://purl.obolibrary.org/obo/ENVO_00000002");
+        assertEquals(first, dictionary.intern("http://purl.obolibrary.org/obo/ENVO_00000001"));
+        assertNotEquals(first, second);
+        assertEquals(2, dictionary.size());
+        assertEquals("http://purl.obolibrary.org/obo/ENVO_00000002", dictionary.get(second));
+    }
+
+    @Test
+    public void intern_ManyTerms_AllDecoded() {
+        TermDictionary dictionary = new TermDictionary();
+        for (int i = 0; i < 100000; i++) {
+            assertEquals(i, dictionary.intern("http://example.org/term/é" + i));
+        }
+        for (int i = 0; i < 100000; i += 997) {
+            assertEquals("http://example.org/term/é" + i, dictionary.get(i));
+        }
+    }
+
+    @Test
+    public void addTo_MixedValues_SameAxiomsAsDirectAdd() throws Exception {
+        OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+        OWLDataFactory factory = manager.getOWLDataFactory();
+        OWLAnnotationProperty treeView = factory.getOWLAnnotationProperty(IRI.create("http://data.bioontology.org/metadata/treeView"));
+        OWLAnnotationProperty notation = factory.getOWLAnnotationProperty(IRI.create("http://www.w3.org/2004/02/skos/core#notation"));
+        IRI child = IRI.create("http://purl.obolibrary.org/obo/ENVO_00000002");
+        IRI parent = IRI.create("http://purl.obolibrary.org/obo/ENVO_00000001");
+
+        Set<OWLAxiom> expected = new HashSet<OWLAxiom>();
+        expected.add(factory.getOWLAnnotationAssertionAxiom(treeView, child, parent));
+        expected.add(factory.getOWLAnnotationAssertionAxiom(notation, child, factory.getOWLLiteral("ENVO:00000002")));
+        expected.add(factory.getOWLAnnotationAssertionAxiom(notation, parent, factory.getOWLLiteral("ENVO:00000001", "en")));
+
+        AnnotationTripleBuffer buffer = new AnnotationTripleBuffer();
+        buffer.add(treeView, child, parent);
+        buffer.add(notation, child, "ENVO:00000002");
+        buffer.add(factory.getOWLAnnotationAssertionAxiom(notation, parent, factory.getOWLLiteral("ENVO:00000001", "en")));
+        buffer.add(treeView, child, parent);
+        assertEquals(4, buffer.size());
+
+        OWLOntology ontology = manager.createOntology();
+        buffer.addTo(manager, ontology);
+        assertEquals(expected, ontology.getAxioms());
+    }
+}
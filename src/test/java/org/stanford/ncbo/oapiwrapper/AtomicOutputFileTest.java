@@ -0,0 +1,53 @@
+package org.stanford.ncbo.oapiwrapper;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class AtomicOutputFileTest {
+    private static final String outputFolder = "./src/test/resources/repo/output/atomic";
+
+    @Before
+    public void setUp() throws Exception {
+        File folder = new File(outputFolder);
+        if (folder.exists()) {
+            FileUtils.deleteDirectory(folder);
+        }
+        FileUtils.forceMkdir(folder);
+    }
+
+    @Test
+    public void commit_NewFile_Published() throws Exception {
+        File target = new File(outputFolder, "test.txt");
+        try (AtomicOutputFile outputFile = new AtomicOutputFile(target)) {
+            Writer writer = outputFile.getWriter();
+            writer.write("complete");
+            writer.close();
+            assertFalse(target.exists());
+            outputFile.commit();
+        }
+        assertEquals("complete", FileUtils.readFileToString(target, StandardCharsets.UTF_8));
+        assertEquals(1, new File(outputFolder).list().length);
+    }
+
+    @Test
+    public void close_WithoutCommit_KeepsPreviousFile() throws Exception {
+        File target = new File(outputFolder, "test.txt");
+        FileUtils.writeStringToFile(target, "previous", StandardCharsets.UTF_8);
+        try (AtomicOutputFile outputFile = new AtomicOutputFile(target)) {
+            Writer writer = outputFile.getWriter();
+            writer.write("partial");
+            writer.close();
+        }
+        assertEquals("previous", FileUtils.readFileToString(target, StandardCharsets.UTF_8));
+        File incomplete = new File(outputFolder, "test.txt" + OntologyParserConstants.INCOMPLETE_FILE_SUFFIX);
+        assertEquals("partial", FileUtils.readFileToString(incomplete, StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,45 @@
+package org.stanford.ncbo.oapiwrapper;
+
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.*;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class AxiomFingerprintSetTest {
+
+    @Test
+    public void add_EqualAxiom_Rejected() {
+        OWLDataFactory factory = OWLManager.getOWLDataFactory();
+        OWLClass a = factory.getOWLClass(IRI.create("http://example.org/A"));
+        OWLClass b = factory.getOWLClass(IRI.create("http://example.org/B"));
+
+        AxiomFingerprintSet set = new AxiomFingerprintSet(0);
+        assertTrue(set.add(factory.getOWLSubClassOfAxiom(a, b)));
+        assertFalse(set.add(factory.getOWLSubClassOfAxiom(a, b)));
+        assertTrue(set.add(factory.getOWLSubClassOfAxiom(b, a)));
+        assertTrue(set.contains(factory.getOWLSubClassOfAxiom(b, a)));
+        assertFalse(set.contains(factory.getOWLDeclarationAxiom(a)));
+        assertEquals(2, set.size());
+    }
+
+    @Test
+    public void addAll_Ontology_SameAsHashSet() throws Exception {
+        OWLOntology ontology = OWLManager.createOWLOntologyManager()
+                .loadOntologyFromOntologyDocument(new File("./src/test/resources/repo/input/pizza/pizza.owl"));
+        Set<OWLAxiom> expected = new HashSet<OWLAxiom>(ontology.getAxioms());
+
+        // Undersized on purpose, so that the table has to grow
+        AxiomFingerprintSet set = new AxiomFingerprintSet(16);
+        set.addAll(ontology.getAxioms());
+        set.addAll(ontology.getAxioms());
+
+        assertEquals(expected.size(), set.size());
+        assertEquals(expected, set);
+        assertEquals(expected, new HashSet<OWLAxiom>(set));
+    }
+}
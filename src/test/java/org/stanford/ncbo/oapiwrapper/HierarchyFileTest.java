@@ -0,0 +1,75 @@
+package org.stanford.ncbo.oapiwrapper;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.*;
+
+import java.io.File;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class HierarchyFileTest {
+    private static final String NS = "http://example.org/test#";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void write_Diamond_AncestorClosureAndCounts() throws Exception {
+        OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+        OWLDataFactory factory = manager.getOWLDataFactory();
+        OWLOntology ontology = manager.createOntology();
+        manager.addAxiom(ontology, factory.getOWLSubClassOfAxiom(cls(factory, "A"), factory.getOWLThing()));
+        manager.addAxiom(ontology, factory.getOWLSubClassOfAxiom(cls(factory, "B"), cls(factory, "A")));
+        manager.addAxiom(ontology, factory.getOWLSubClassOfAxiom(cls(factory, "C"), cls(factory, "A")));
+        manager.addAxiom(ontology, factory.getOWLSubClassOfAxiom(cls(factory, "D"), cls(factory, "B")));
+        manager.addAxiom(ontology, factory.getOWLSubClassOfAxiom(cls(factory, "D"), cls(factory, "C")));
+        manager.addAxiom(ontology, factory.getOWLSubClassOfAxiom(cls(factory, "E"), cls(factory, "E")));
+
+        File file = folder.newFile(OntologyParserConstants.HIERARCHY_FILE);
+        assertEquals(5, HierarchyFile.write(ontology, false, file));
+        HierarchyFile hierarchy = HierarchyFile.open(file);
+
+        int a = hierarchy.indexOf(NS + "A");
+        int b = hierarchy.indexOf(NS + "B");
+        int c = hierarchy.indexOf(NS + "C");
+        int d = hierarchy.indexOf(NS + "D");
+        assertEquals(-1, hierarchy.indexOf(NS + "F"));
+        assertEquals(NS + "D", hierarchy.getIRI(d));
+        assertArrayEquals(new int[] { a }, hierarchy.getRoots());
+        assertArrayEquals(new int[] { b, c }, hierarchy.getChildren(a));
+        assertArrayEquals(new int[0], hierarchy.getChildren(d));
+        assertEquals(3, hierarchy.getDescendantCount(a));
+        assertEquals(1, hierarchy.getDescendantCount(b));
+        assertArrayEquals(new int[] { a, b, c }, hierarchy.getAncestors(d));
+        assertArrayEquals(new int[0], hierarchy.getAncestors(hierarchy.indexOf(NS + "E")));
+    }
+
+    @Test
+    public void parse_HierarchyExport_AncestorsFound() throws Exception {
+        File output = folder.newFolder("output");
+        ParserInvocation pi = new ParserInvocation("./src/test/resources/repo/input/pizza", output.getPath(), "pizza.owl", true);
+        pi.setHierarchyExport(true);
+        OntologyParser parser = new OntologyParser(pi);
+        assertTrue(parser.parse());
+
+        HierarchyFile hierarchy = HierarchyFile.open(pi.getHierarchyFile());
+        assertEquals(parser.getTargetOntology().getClassesInSignature().stream().filter(cls -> !cls.isBuiltIn()).count(),
+                hierarchy.getClassCount());
+        int pizza = hierarchy.indexOf("http://www.co-ode.org/ontologies/pizza/pizza.owl#Pizza");
+        int american = hierarchy.indexOf("http://www.co-ode.org/ontologies/pizza/pizza.owl#American");
+        assertTrue(hierarchy.getRoots().length > 0);
+        assertTrue(hierarchy.getDescendantCount(pizza) > 0);
+        for (int ancestor : hierarchy.getAncestors(american)) {
+            assertTrue(hierarchy.getDescendantCount(ancestor) > 0);
+        }
+        assertTrue(Arrays.binarySearch(hierarchy.getAncestors(american), pizza) >= 0);
+    }
+
+    private static OWLClass cls(OWLDataFactory factory, String name) {
+        return factory.getOWLClass(IRI.create(NS + name));
+    }
+}
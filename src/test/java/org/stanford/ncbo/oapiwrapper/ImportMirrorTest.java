@@ -0,0 +1,143 @@
+package org.stanford.ncbo.oapiwrapper;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.io.StringDocumentSource;
+import org.semanticweb.owlapi.model.*;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ImportMirrorTest {
+    private static final String IMPORTED = "<?xml version=\"1.0\"?>\n"
+            + "<rdf:RDF xmlns:rdf=\"http://www.w3.org/1999/02/22-rdf-syntax-ns#\" xmlns:owl=\"http://www.w3.org/2002/07/owl#\">\n"
+            + "  <owl:Ontology rdf:about=\"http://example.org/imported.owl\"/>\n"
+            + "  <owl:Class rdf:about=\"http://example.org/imported.owl#Thing\"/>\n"
+            + "</rdf:RDF>\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private HttpServer server;
+    private final AtomicInteger requests = new AtomicInteger();
+
+    @Before
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/imported.owl", exchange -> {
+            requests.incrementAndGet();
+            byte[] body = IMPORTED.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/rdf+xml");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.createContext("/moved.owl", exchange -> {
+            requests.incrementAndGet();
+            exchange.getResponseHeaders().add("Location", "/imported.owl");
+            exchange.sendResponseHeaders(301, -1);
+            exchange.close();
+        });
+        server.createContext("/slow.owl", exchange -> {
+            requests.incrementAndGet();
+            try {
+                Thread.sleep(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    private IRI remote(String path) {
+        return IRI.create("http://127.0.0.1:" + server.getAddress().getPort() + path);
+    }
+
+    @Test
+    public void getDocumentIRI_RemoteImport_MirroredThenServedOffline() throws Exception {
+        File mirrorFolder = folder.newFolder("mirror");
+        ImportMirror mirror = new ImportMirror(mirrorFolder, false, 1000);
+        IRI document = mirror.getDocumentIRI(remote("/imported.owl"));
+        assertEquals(IMPORTED, new String(Files.readAllBytes(Paths.get(document.toURI())), StandardCharsets.UTF_8));
+        assertEquals(document, mirror.getDocumentIRI(remote("/imported.owl")));
+        assertEquals(1, requests.get());
+
+        server.stop(0);
+        ImportMirror offline = new ImportMirror(mirrorFolder, true, 1000);
+        assertEquals(1, offline.size());
+        assertEquals(document, offline.getDocumentIRI(remote("/imported.owl")));
+    }
+
+    @Test
+    public void getDocumentIRI_Redirect_SameDocument() throws Exception {
+        ImportMirror mirror = new ImportMirror(folder.newFolder("mirror"), false, 1000);
+        IRI document = mirror.getDocumentIRI(remote("/imported.owl"));
+        assertEquals(document, mirror.getDocumentIRI(remote("/moved.owl")));
+        assertEquals(2, mirror.size());
+    }
+
+    @Test
+    public void getDocumentIRI_OfflineOrTimeout_MappedToMissingDocument() throws Exception {
+        ImportMirror offline = new ImportMirror(folder.newFolder("offline"), true, 1000);
+        IRI document = offline.getDocumentIRI(remote("/imported.owl"));
+        assertEquals("file", document.getScheme());
+        assertFalse(new File(document.toURI()).exists());
+        assertEquals(0, requests.get());
+
+        ImportMirror mirror = new ImportMirror(folder.newFolder("online"), false, 200);
+        long startTime = System.nanoTime();
+        assertEquals(document.getShortForm(), mirror.getDocumentIRI(remote("/slow.owl")).getShortForm());
+        assertTrue((System.nanoTime() - startTime) / 1000000 < 4000);
+        mirror.getDocumentIRI(remote("/slow.owl"));
+        assertEquals(1, requests.get());
+
+        assertNull(mirror.getDocumentIRI(IRI.create(folder.getRoot().toURI())));
+    }
+
+    @Test
+    public void loadOntology_OfflineMirror_ImportsResolvedOrReportedMissing() throws Exception {
+        File mirrorFolder = folder.newFolder("mirror");
+        new ImportMirror(mirrorFolder, false, 1000).getDocumentIRI(remote("/imported.owl"));
+        server.stop(0);
+
+        String master = "<?xml version=\"1.0\"?>\n"
+                + "<rdf:RDF xmlns:rdf=\"http://www.w3.org/1999/02/22-rdf-syntax-ns#\" xmlns:owl=\"http://www.w3.org/2002/07/owl#\">\n"
+                + "  <owl:Ontology rdf:about=\"http://example.org/master.owl\">\n"
+                + "    <owl:imports rdf:resource=\"" + remote("/imported.owl") + "\"/>\n"
+                + "    <owl:imports rdf:resource=\"" + remote("/unknown.owl") + "\"/>\n"
+                + "  </owl:Ontology>\n"
+                + "</rdf:RDF>\n";
+        OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+        manager.getIRIMappers().add(new ImportMirror(mirrorFolder, true, 1000));
+        List<IRI> missing = new ArrayList<IRI>();
+        manager.addMissingImportListener(event -> missing.add(event.getImportedOntologyURI()));
+        OWLOntologyLoaderConfiguration conf = new OWLOntologyLoaderConfiguration()
+                .setMissingImportHandlingStrategy(MissingImportHandlingStrategy.SILENT);
+
+        OWLOntology ontology = manager.loadOntologyFromOntologyDocument(new StringDocumentSource(master), conf);
+        assertEquals(2, ontology.getImportsClosure().size());
+        assertEquals(1, missing.size());
+        assertEquals(remote("/unknown.owl"), missing.get(0));
+    }
+}
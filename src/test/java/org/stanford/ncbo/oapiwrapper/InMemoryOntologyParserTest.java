@@ -0,0 +1,130 @@
+package org.stanford.ncbo.oapiwrapper;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.semanticweb.owlapi.model.OWLAxiom;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+public class InMemoryOntologyParserTest {
+    private static final String inputFolder = "./src/test/resources/repo/input/";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void parse_RepositoryFolder_SameTargetOntologyAsFileOutput() throws Exception {
+        ParserInvocation pi = new ParserInvocation(inputFolder + "hsdb", folder.getRoot().getPath(), "HSDB_OCRe.owl", true);
+        OntologyParser parser = new OntologyParser(pi);
+        assertTrue(parser.parse());
+
+        InMemoryOntologyParser.Result result = new InMemoryOntologyParser().parse(Paths.get(inputFolder + "hsdb"), "HSDB_OCRe.owl");
+
+        assertTrue(result.isSuccess());
+        assertEquals(parser.getTargetOntology().getAxioms(), result.getOntology().getAxioms());
+        assertEquals(parser.getMetrics().getClassCount(), result.getMetrics().getClassCount());
+        assertEquals(parser.getMetrics().getIndividualCount(), result.getMetrics().getIndividualCount());
+        assertEquals(parser.getMetrics().getPropertyCount(), result.getMetrics().getPropertyCount());
+    }
+
+    @Test
+    public void parse_CompressedStream_SameAxiomsAsFile() throws Exception {
+        Path pizza = Paths.get(inputFolder + "pizza/pizza.owl");
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(compressed)) {
+            Files.copy(pizza, out);
+        }
+
+        InMemoryOntologyParser inMemoryParser = new InMemoryOntologyParser();
+        InMemoryOntologyParser.Result expected = inMemoryParser.parse(pizza);
+        InMemoryOntologyParser.Result result;
+        try (InputStream in = new ByteArrayInputStream(compressed.toByteArray())) {
+            result = inMemoryParser.parse(in, "pizza.owl.gz");
+        }
+
+        assertTrue(result.isSuccess());
+        assertFalse(result.getParserLog().hasErrors());
+        assertEquals(axioms(expected), axioms(result));
+    }
+
+    @Test
+    public void parse_OBOStream_DataVersionFound() throws Exception {
+        byte[] document = ("format-version: 1.2\ndata-version: 2024-01-01\n\n"
+                + "[Term]\nid: TEST:1\nname: term\n").getBytes(StandardCharsets.UTF_8);
+        ParserInvocation options = new ParserInvocation(null, null, null, true);
+
+        for (boolean parallelOBO : new boolean[] { false, true }) {
+            options.setParallelOBO(parallelOBO);
+            InMemoryOntologyParser.Result result = new InMemoryOntologyParser(options)
+                    .parse(new ByteArrayInputStream(document), "test.obo");
+
+            assertTrue(result.isSuccess());
+            assertEquals("2024-01-01", result.getOBOVersion());
+            assertEquals(1, result.getMetrics().getClassCount());
+        }
+    }
+
+    @Test
+    public void parse_Concurrently_SameAxiomsAsSequentially() throws Exception {
+        InMemoryOntologyParser inMemoryParser = new InMemoryOntologyParser();
+        List<Path> documents = new ArrayList<Path>();
+        for (int i = 0; i < 2; i++) {
+            documents.add(Paths.get(inputFolder + "pizza/pizza.owl"));
+            documents.add(Paths.get(inputFolder + "envo/envo-basic.obo"));
+        }
+
+        List<Set<OWLAxiom>> expected = new ArrayList<Set<OWLAxiom>>();
+        for (Path document : documents) {
+            expected.add(axioms(inMemoryParser.parse(document)));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(documents.size());
+        try {
+            List<Future<InMemoryOntologyParser.Result>> results = new ArrayList<Future<InMemoryOntologyParser.Result>>();
+            for (Path document : documents) {
+                results.add(executor.submit(() -> inMemoryParser.parse(document)));
+            }
+            for (int i = 0; i < documents.size(); i++) {
+                InMemoryOntologyParser.Result result = results.get(i).get();
+                assertTrue(result.isSuccess());
+                assertEquals(expected.get(i), axioms(result));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void parse_MissingDocument_Fails() throws Exception {
+        InMemoryOntologyParser.Result result = new InMemoryOntologyParser().parse(Paths.get(inputFolder + "missing.owl"));
+
+        assertFalse(result.isSuccess());
+        assertNull(result.getOntology());
+        assertFalse(result.axioms().hasNext());
+        assertEquals(ParserError.MASTER_FILE_MISSING, result.getParserLog().getErrors().get(0).getParserError());
+    }
+
+    private static Set<OWLAxiom> axioms(InMemoryOntologyParser.Result result) {
+        Set<OWLAxiom> axioms = new HashSet<OWLAxiom>();
+        result.axioms().forEachRemaining(axioms::add);
+        return axioms;
+    }
+}
@@ -0,0 +1,60 @@
+package org.stanford.ncbo.oapiwrapper;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.tukaani.xz.LZMA2Options;
+import org.tukaani.xz.XZOutputStream;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+public class InputCompressionTest {
+    private static final String DOCUMENT = "format-version: 1.2\ndata-version: 2024-01-01\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void fromFileName_CompressedSuffixes_Recognised() {
+        assertEquals(InputCompression.GZIP, InputCompression.fromFileName("envo.obo.gz"));
+        assertEquals(InputCompression.XZ, InputCompression.fromFileName("chebi.OWL.XZ"));
+        assertEquals(InputCompression.NONE, InputCompression.fromFileName("pizza.owl"));
+        assertEquals("envo.obo", InputCompression.stripSuffix("envo.obo.gz"));
+        assertEquals("pizza.owl", InputCompression.stripSuffix("pizza.owl"));
+    }
+
+    @Test
+    public void accept_CompressedOntologies_Accepted() {
+        OntologySuffixFileFilter filter = new OntologySuffixFileFilter();
+        assertTrue(filter.accept(null, "envo.obo.gz"));
+        assertTrue(filter.accept(null, "chebi.owl.xz"));
+        assertFalse(filter.accept(null, "notes.txt.gz"));
+        assertFalse(filter.accept(null, "archive.gz"));
+    }
+
+    @Test
+    public void open_GzipAndXz_Decompressed() throws Exception {
+        File gzip = folder.newFile("test.obo.gz");
+        try (OutputStream out = new GZIPOutputStream(new FileOutputStream(gzip))) {
+            out.write(DOCUMENT.getBytes(StandardCharsets.UTF_8));
+        }
+        File xz = folder.newFile("test.obo.xz");
+        try (OutputStream out = new XZOutputStream(new FileOutputStream(xz), new LZMA2Options())) {
+            out.write(DOCUMENT.getBytes(StandardCharsets.UTF_8));
+        }
+
+        for (File file : new File[] { gzip, xz }) {
+            try (InputStream in = InputCompression.open(file.toPath())) {
+                assertEquals(DOCUMENT, IOUtils.toString(in, StandardCharsets.UTF_8));
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package org.stanford.ncbo.oapiwrapper;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.semanticweb.owlapi.model.AxiomType;
+import org.semanticweb.owlapi.model.OWLOntology;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeFalse;
+
+public class MemoryWatchdogTest {
+    private static final String TREE_VIEW = "http://data.bioontology.org/metadata/treeView";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void check_ZeroLowMemoryRatio_LowMemoryNotCritical() {
+        try (MemoryWatchdog watchdog = new MemoryWatchdog(0.0, 1.0)) {
+            watchdog.check();
+            assertTrue(watchdog.isLowMemory());
+            assertFalse(watchdog.isCritical());
+        }
+    }
+
+    @Test
+    public void close_TwoOpenWatchdogs_ThresholdsKeptUntilLastClosed() {
+        List<MemoryPoolMXBean> pools = thresholdPools();
+        assumeFalse(pools.isEmpty());
+
+        MemoryWatchdog first = new MemoryWatchdog(0.5, 0.9);
+        try (MemoryWatchdog second = new MemoryWatchdog(0.6, 0.9)) {
+            assertThresholdsSet(pools, true);
+        }
+        assertThresholdsSet(pools, true);
+        first.close();
+        assertThresholdsSet(pools, false);
+    }
+
+    @Test
+    public void parse_LowMemory_OptionalStagesSkipped() throws Exception {
+        File input = createOBORepository();
+
+        OntologyParser parser = new OntologyParser(
+                new ParserInvocation(input.getPath(), folder.newFolder("normal").getPath(), "test.obo", true));
+        assertTrue(parser.parse());
+        assertTrue(treeViewCount(parser.getTargetOntology()) > 0);
+        assertTrue(thingSubClassCount(parser.getTargetOntology()) > 0);
+        assertFalse(parser.getParsedOntologies().isEmpty());
+
+        File output = folder.newFolder("degraded");
+        parser = new OntologyParser(new ParserInvocation(input.getPath(), output.getPath(), "test.obo", true),
+                () -> new MemoryWatchdog(0.0, 1.0));
+        assertTrue(parser.parse());
+        assertEquals(0, treeViewCount(parser.getTargetOntology()));
+        assertEquals(0, thingSubClassCount(parser.getTargetOntology()));
+        assertTrue(parser.getParsedOntologies().isEmpty());
+        assertTrue(new File(output, OntologyParserConstants.OUTPUT_FILE_RDF_XML).exists());
+    }
+
+    @Test
+    public void parse_CriticalMemory_AbortedWithError() throws Exception {
+        File output = folder.newFolder("output");
+        ParserInvocation pi = new ParserInvocation(createOBORepository().getPath(), output.getPath(), "test.obo", true);
+        OntologyParser parser = new OntologyParser(pi, () -> new MemoryWatchdog(0.0, 0.0));
+
+        assertFalse(parser.parse());
+        assertTrue(pi.getParserLog().getErrorCounts().containsKey(ParserError.MEMORY_LIMIT_EXCEEDED));
+        assertTrue(new File(output, OntologyParserConstants.ERRORS_FILE).exists());
+        assertFalse(new File(output, OntologyParserConstants.OUTPUT_FILE_RDF_XML).exists());
+    }
+
+    @Test
+    public void parse_OutOfMemoryError_ErrorsSaved() throws Exception {
+        File output = folder.newFolder("output");
+        ParserInvocation pi = new ParserInvocation(createOBORepository().getPath(), output.getPath(), "test.obo", true);
+        OntologyParser parser = new OntologyParser(pi, () -> new MemoryWatchdog() {
+            @Override
+            public void check() {
+                throw new OutOfMemoryError("Java heap space");
+            }
+        });
+
+        assertFalse(parser.parse());
+        assertTrue(pi.getParserLog().getErrorCounts().containsKey(ParserError.MEMORY_LIMIT_EXCEEDED));
+        assertTrue(new File(output, OntologyParserConstants.ERRORS_FILE).exists());
+        assertNull(parser.getTargetOntology());
+        assertTrue(parser.getParsedOntologies().isEmpty());
+    }
+
+    private File createOBORepository() throws Exception {
+        StringBuilder document = new StringBuilder("format-version: 1.2\nontology: test\n\n");
+        for (int i = 0; i < 10; i++) {
+            document.append("[Term]\nid: TEST:").append(i).append("\nname: term ").append(i).append('\n');
+            if (i > 0) {
+                document.append("is_a: TEST:").append(i / 2).append(" ! parent\n");
+            }
+            document.append('\n');
+        }
+        File input = folder.newFolder("input");
+        Files.write(new File(input, "test.obo").toPath(), document.toString().getBytes(StandardCharsets.UTF_8));
+        return input;
+    }
+
+    private static long treeViewCount(OWLOntology ontology) {
+        return ontology.getAxioms(AxiomType.ANNOTATION_ASSERTION).stream()
+                .filter(axiom -> axiom.getProperty().getIRI().toString().equals(TREE_VIEW))
+                .count();
+    }
+
+    private static long thingSubClassCount(OWLOntology ontology) {
+        return ontology.getAxioms(AxiomType.SUBCLASS_OF).stream()
+                .filter(axiom -> axiom.getSuperClass().isOWLThing())
+                .count();
+    }
+
+    private static List<MemoryPoolMXBean> thresholdPools() {
+        List<MemoryPoolMXBean> pools = new ArrayList<MemoryPoolMXBean>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isCollectionUsageThresholdSupported() && pool.getUsage().getMax() > 0) {
+                pools.add(pool);
+            }
+        }
+        return pools;
+    }
+
+    private static void assertThresholdsSet(List<MemoryPoolMXBean> pools, boolean set) {
+        for (MemoryPoolMXBean pool : pools) {
+            assertEquals(pool.getName(), set, pool.getCollectionUsageThreshold() > 0);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.stanford.ncbo.oapiwrapper;
+
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.formats.*;
+import org.semanticweb.owlapi.model.*;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+public class OntologyFormatSnifferTest {
+    private static final String inputFolder = "./src/test/resources/repo/input/";
+
+    @Test
+    public void sniff_RDFXMLWithDoctype_RDFXML() {
+        OWLDocumentFormat format = OntologyFormatSniffer.sniff(new File(inputFolder + "edam/EDAM_1.16.owl").toPath());
+        assertTrue(format instanceof RDFXMLDocumentFormat);
+    }
+
+    @Test
+    public void sniff_RDFXMLWithoutDoctype_RDFXML() {
+        OWLDocumentFormat format = OntologyFormatSniffer.sniff(new File(inputFolder + "idon/idoden_beta0.15b.owl").toPath());
+        assertTrue(format instanceof RDFXMLDocumentFormat);
+    }
+
+    @Test
+    public void sniff_OBO_OBO() {
+        OWLDocumentFormat format = OntologyFormatSniffer.sniff(new File(inputFolder + "envo/envo-basic.obo").toPath());
+        assertTrue(format instanceof OBODocumentFormat);
+    }
+
+    @Test
+    public void sniff_TextSyntaxes_MatchingFormat() {
+        assertTrue(OntologyFormatSniffer.sniff("\uFEFF<?xml version=\"1.0\"?>\n<!-- comment -->\n<Ontology xmlns=\"http://www.w3.org/2002/07/owl#\">",
+                "a.owl") instanceof OWLXMLDocumentFormat);
+        assertTrue(OntologyFormatSniffer.sniff("Prefix(:=<http://example.org/>)\nOntology(<http://example.org/>)",
+                "a.owl") instanceof FunctionalSyntaxDocumentFormat);
+        assertTrue(OntologyFormatSniffer.sniff("Prefix: : <http://example.org/>\nOntology: <http://example.org/>",
+                "a.owl") instanceof ManchesterSyntaxDocumentFormat);
+        assertTrue(OntologyFormatSniffer.sniff("# comment\n@prefix : <http://example.org/> .",
+                "a.ttl") instanceof RioTurtleDocumentFormat);
+        assertTrue(OntologyFormatSniffer.sniff("<http://example.org/a> <http://example.org/b> <http://example.org/c> .",
+                "a.nt") instanceof RioTurtleDocumentFormat);
+        assertTrue(OntologyFormatSniffer.sniff("<http://example.org/a> <http://example.org/b> <http://example.org/c> <http://example.org/g> .",
+                "a.nq") instanceof NQuadsDocumentFormat);
+    }
+
+    @Test
+    public void sniff_Unrecognised_Null() {
+        assertNull(OntologyFormatSniffer.sniff("<html><body></body></html>", "a.owl"));
+        assertNull(OntologyFormatSniffer.sniff("@prefix : <http://example.org/> .", "a.n3"));
+        assertNull(OntologyFormatSniffer.sniff("", "a.owl"));
+    }
+
+    @Test
+    public void load_WrongFormat_FallsBackToAllParsers() throws Exception {
+        File file = new File(inputFolder + "pizza/pizza.owl");
+        OWLOntology expected = OWLManager.createOWLOntologyManager().loadOntologyFromOntologyDocument(file);
+        OWLOntology loaded = OntologyFormatSniffer.load(OWLManager.createOWLOntologyManager(), new OntologyBean(file),
+                new OBODocumentFormat(), new OWLOntologyLoaderConfiguration());
+        assertEquals(expected.getOntologyID(), loaded.getOntologyID());
+        assertEquals(expected.getAxiomCount(), loaded.getAxiomCount());
+    }
+}
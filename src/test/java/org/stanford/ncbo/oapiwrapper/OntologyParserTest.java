@@ -1,10 +1,34 @@
 package org.stanford.ncbo.oapiwrapper;
 
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.apache.commons.io.FileUtils;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.tukaani.xz.LZMA2Options;
+import org.tukaani.xz.XZOutputStream;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import static org.junit.Assert.*;
 
@@ -42,6 +66,69 @@ public class OntologyParserTest {
         assertEquals(8, parser.getParsedOntologies().size());
     }
 
+    @Test
+    public void getParsedOntologies_MultipleOntologiesWithParallelImports_Found() throws Exception {
+        ParserInvocation pi = new ParserInvocation("./src/test/resources/repo/input/hsdb",
+                "./src/test/resources/repo/output/hsdb_parallel", "HSDB_OCRe.owl", true);
+        pi.setParallelImports(true);
+        OntologyParser parser = new OntologyParser(pi);
+        assertTrue(parser.parse());
+        assertEquals(8, parser.getParsedOntologies().size());
+        assertEquals(0, pi.getParserLog().getErrors().size());
+
+        String metrics = FileUtils.readFileToString(new File("./src/test/resources/repo/output/hsdb_parallel/"
+                + OntologyParserConstants.METRICS_FILE), StandardCharsets.UTF_8);
+        assertTrue(metrics.contains("356,35,208"));
+    }
+
+    @Test
+    public void getLoadedAxioms_ParallelImports_PreloadedImportsCounted() throws Exception {
+        ParserInvocation pi = new ParserInvocation("./src/test/resources/repo/input/hsdb",
+                "./src/test/resources/repo/output/hsdb", "HSDB_OCRe.owl", true);
+        OntologyParser parser = new OntologyParser(pi);
+        assertTrue(parser.parse());
+        long loadedAxioms = parser.getLoadedAxioms();
+        assertEquals(parser.getParsedOntologies().stream().mapToLong(OWLOntology::getAxiomCount).sum(), loadedAxioms);
+
+        pi = new ParserInvocation("./src/test/resources/repo/input/hsdb",
+                "./src/test/resources/repo/output/hsdb_parallel", "HSDB_OCRe.owl", true);
+        pi.setParallelImports(true);
+        parser = new OntologyParser(pi);
+        assertTrue(parser.parse());
+        assertEquals(loadedAxioms, parser.getLoadedAxioms());
+    }
+
+    @Test
+    public void getParsedOntologies_MultipleOntologiesWithStreamingRDFXML_Found() throws Exception {
+        ParserInvocation pi = new ParserInvocation("./src/test/resources/repo/input/hsdb",
+                "./src/test/resources/repo/output/hsdb_streaming", "HSDB_OCRe.owl", true);
+        pi.setStreamingRDFXML(true);
+        OntologyParser parser = new OntologyParser(pi);
+        assertTrue(parser.parse());
+        assertEquals(8, parser.getParsedOntologies().size());
+        assertEquals(0, pi.getParserLog().getErrors().size());
+
+        String metrics = FileUtils.readFileToString(new File("./src/test/resources/repo/output/hsdb_streaming/"
+                + OntologyParserConstants.METRICS_FILE), StandardCharsets.UTF_8);
+        assertTrue(metrics.contains("356,35,208"));
+    }
+
+    @Test
+    public void getParsedOntologies_MultipleOntologiesWithVirtualThreads_Found() throws Exception {
+        ParserInvocation pi = new ParserInvocation("./src/test/resources/repo/input/hsdb",
+                "./src/test/resources/repo/output/hsdb_virtual", "HSDB_OCRe.owl", true);
+        pi.setVirtualThreads(true);
+        pi.setParallelImports(true);
+        OntologyParser parser = new OntologyParser(pi);
+        assertTrue(parser.parse());
+        assertEquals(8, parser.getParsedOntologies().size());
+        assertEquals(0, pi.getParserLog().getErrors().size());
+
+        String metrics = FileUtils.readFileToString(new File("./src/test/resources/repo/output/hsdb_virtual/"
+                + OntologyParserConstants.METRICS_FILE), StandardCharsets.UTF_8);
+        assertTrue(metrics.contains("356,35,208"));
+    }
+
     @Test
     public void getParsedOntologies_SingleOntology_Found() throws Exception {
         ParserInvocation pi = new ParserInvocation("./src/test/resources/repo/input/bvga",
@@ -51,6 +138,116 @@ public class OntologyParserTest {
         assertEquals(1, parser.getParsedOntologies().size());
     }
 
+    @Test
+    public void parse_MultipleOntologiesInArchive_ReturnsTrue() throws Exception {
+        File archive = new File("./src/test/resources/repo/output/hsdb_zip/hsdb.zip");
+        zipFolder(new File("./src/test/resources/repo/input/hsdb"), archive);
+
+        ParserInvocation pi = new ParserInvocation(archive.getPath(),
+                "./src/test/resources/repo/output/hsdb_zip", "HSDB_OCRe.owl", true);
+        assertTrue(pi.isInputArchive());
+        OntologyParser parser = new OntologyParser(pi);
+        assertTrue(parser.parse());
+        assertEquals(8, parser.getLocalOntologies().size());
+        assertEquals(8, parser.getParsedOntologies().size());
+        assertEquals(0, pi.getParserLog().getErrors().size());
+    }
+
+    private static void zipFolder(File folder, File archive) throws IOException {
+        FileUtils.forceMkdir(archive.getParentFile());
+        Path root = folder.toPath();
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive));
+             Stream<Path> paths = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) paths.filter(Files::isRegularFile)::iterator) {
+                out.putNextEntry(new ZipEntry(root.relativize(path).toString().replace(File.separatorChar, '/')));
+                Files.copy(path, out);
+                out.closeEntry();
+            }
+        }
+    }
+
+    @Test
+    public void parse_GzipCompressedRepository_ReturnsTrue() throws Exception {
+        File input = new File("./src/test/resources/repo/output/pizza_gz/input");
+        FileUtils.deleteQuietly(input);
+        FileUtils.forceMkdir(input);
+        try (OutputStream out = new GZIPOutputStream(new FileOutputStream(new File(input, "pizza.owl.gz")))) {
+            Files.copy(new File("./src/test/resources/repo/input/pizza/pizza.owl").toPath(), out);
+        }
+
+        ParserInvocation pi = new ParserInvocation(input.getPath(),
+                "./src/test/resources/repo/output/pizza_gz", "pizza.owl", true);
+        OntologyParser parser = new OntologyParser(pi);
+        assertTrue(parser.parse());
+        assertEquals(1, parser.getLocalOntologies().size());
+        String metrics = FileUtils.readFileToString(new File("./src/test/resources/repo/output/pizza_gz/"
+                + OntologyParserConstants.METRICS_FILE), StandardCharsets.UTF_8);
+        assertTrue(metrics.contains("100,5,8"));
+    }
+
+    @Test
+    public void parse_GzipCompressedImports_ReturnsTrue() throws Exception {
+        File input = new File("./src/test/resources/repo/output/hsdb_gz/input");
+        gzipFolder(new File("./src/test/resources/repo/input/hsdb"), input);
+
+        ParserInvocation pi = new ParserInvocation(input.getPath(),
+                "./src/test/resources/repo/output/hsdb_gz", "HSDB_OCRe.owl", true);
+        OntologyParser parser = new OntologyParser(pi);
+        assertTrue(parser.parse());
+        assertEquals(8, parser.getLocalOntologies().size());
+        assertEquals(8, parser.getParsedOntologies().size());
+        assertEquals(0, pi.getParserLog().getErrors().size());
+    }
+
+    @Test
+    public void parse_GzipCompressedImportsInArchive_ReturnsTrue() throws Exception {
+        File input = new File("./src/test/resources/repo/output/hsdb_gz_zip/input");
+        gzipFolder(new File("./src/test/resources/repo/input/hsdb"), input);
+        File archive = new File("./src/test/resources/repo/output/hsdb_gz_zip/hsdb.zip");
+        zipFolder(input, archive);
+
+        ParserInvocation pi = new ParserInvocation(archive.getPath(),
+                "./src/test/resources/repo/output/hsdb_gz_zip", "HSDB_OCRe.owl", true);
+        OntologyParser parser = new OntologyParser(pi);
+        assertTrue(parser.parse());
+        assertEquals(8, parser.getLocalOntologies().size());
+        assertEquals(8, parser.getParsedOntologies().size());
+        assertEquals(0, pi.getParserLog().getErrors().size());
+    }
+
+    private static void gzipFolder(File folder, File target) throws IOException {
+        FileUtils.deleteQuietly(target);
+        Path root = folder.toPath();
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) paths.filter(Files::isRegularFile)::iterator) {
+                File compressed = new File(target, root.relativize(path) + ".gz");
+                FileUtils.forceMkdir(compressed.getParentFile());
+                try (OutputStream out = new GZIPOutputStream(new FileOutputStream(compressed))) {
+                    Files.copy(path, out);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void parse_XzCompressedOBOFile_VersionFound() throws Exception {
+        File output = new File("./src/test/resources/repo/output/obo_xz");
+        FileUtils.forceMkdir(output);
+        File master = new File(output, "test.obo.xz");
+        try (Writer out = new OutputStreamWriter(new XZOutputStream(new FileOutputStream(master), new LZMA2Options()),
+                StandardCharsets.UTF_8)) {
+            out.write("format-version: 1.2\ndata-version: 2024-01-01\nontology: test\n\n"
+                    + "[Term]\nid: TEST:0000001\nname: root\n\n"
+                    + "[Term]\nid: TEST:0000002\nname: child\nis_a: TEST:0000001 ! root\n");
+        }
+
+        ParserInvocation pi = new ParserInvocation(null, output.getPath(), master.getPath(), true);
+        OntologyParser parser = new OntologyParser(pi);
+        assertTrue(parser.parse());
+        assertEquals("2024-01-01", pi.getOBOVersion());
+        assertTrue(FileUtils.readFileToString(pi.getOutputFile(), StandardCharsets.UTF_8).contains("TEST_0000002"));
+    }
+
     @Test
     public void parse_OntologyBVGA_ReturnsTrue() throws Exception {
         ParserInvocation pi = new ParserInvocation("./src/test/resources/repo/input/bvga",
@@ -77,6 +274,58 @@ public class OntologyParserTest {
         assertNotEquals(0, f.length());
     }
 
+    @Test
+    public void parse_OntologyBVGA_SerializedAsCompressedNTriples() throws Exception {
+        String inputFolder = "./src/test/resources/repo/input/bvga";
+        String outputFolder = "./src/test/resources/repo/output/bvga_nt";
+
+        ParserInvocation pi = new ParserInvocation(inputFolder, outputFolder,
+                "basic-vertebrate-gross-anatomy_v1.1.owl", true);
+        pi.setOutputFormat(OutputFormat.N_TRIPLES);
+        pi.setOutputCompression(OutputCompression.GZIP);
+
+        File f = pi.getOutputFile();
+        if (f.exists()) f.delete();
+
+        OntologyParser parser = new OntologyParser(pi);
+        assertTrue(parser.parse());
+
+        assertEquals("owlapi.nt.gz", f.getName());
+        assertTrue(f.exists());
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new FileInputStream(f)), StandardCharsets.UTF_8))) {
+            String line = reader.readLine();
+            assertNotNull(line);
+            assertTrue(line.endsWith("."));
+        }
+    }
+
+    @Test
+    public void parse_OntologyBVGA_SerializedAsShards() throws Exception {
+        String inputFolder = "./src/test/resources/repo/input/bvga";
+        String outputFolder = "./src/test/resources/repo/output/bvga_shards";
+
+        ParserInvocation pi = new ParserInvocation(inputFolder, outputFolder,
+                "basic-vertebrate-gross-anatomy_v1.1.owl", true);
+        pi.setOutputShards(4);
+        OntologyParser parser = new OntologyParser(pi);
+        assertTrue(parser.parse());
+
+        File manifest = new File(outputFolder + File.separator + OntologyParserConstants.SHARD_MANIFEST_FILE);
+        assertTrue(manifest.exists());
+        CSVFormat format = CSVFormat.DEFAULT.withFirstRecordAsHeader();
+        try (CSVParser csv = CSVParser.parse(manifest, StandardCharsets.UTF_8, format)) {
+            List<CSVRecord> records = csv.getRecords();
+            assertEquals(4, records.size());
+            for (CSVRecord record : records) {
+                File shard = new File(outputFolder + File.separator + record.get(OntologyParserConstants.SHARD_MANIFEST_FILE_NAME));
+                assertTrue(shard.exists());
+                assertEquals(shard.length(), Long.parseLong(record.get(OntologyParserConstants.SHARD_MANIFEST_BYTES)));
+                assertNotEquals(0, Long.parseLong(record.get(OntologyParserConstants.SHARD_MANIFEST_TRIPLES)));
+            }
+        }
+    }
+
     @Test
     public void parse_OntologyCNO_ReturnsTrue() throws Exception {
         ParserInvocation pi = new ParserInvocation("./src/test/resources/repo/input/cno",
@@ -125,6 +374,45 @@ public class OntologyParserTest {
         assertTrue(parser.parse());
     }
 
+    @Test
+    public void parse_SearchDocuments_DocumentPerClass() throws Exception {
+        ParserInvocation pi = new ParserInvocation("./src/test/resources/repo/input/envo",
+                "./src/test/resources/repo/output/envo_search", "envo-basic.obo", true);
+        pi.setSearchDocuments(true);
+        FileUtils.forceMkdir(new File(pi.getOutputRepositoryFolder()));
+        OntologyParser parser = new OntologyParser(pi);
+        assertTrue(parser.parse());
+
+        List<String> lines = Files.readAllLines(pi.getSearchDocumentsFile().toPath(), StandardCharsets.UTF_8);
+        assertEquals(parser.getMetrics().getClassCount(), lines.size());
+        String canal = lines.stream().filter(line -> line.contains("\"id\":\"http://purl.obolibrary.org/obo/ENVO_00000014\""))
+                .findFirst().get();
+        assertTrue(canal, canal.contains("\"prefLabel\":\"canal\""));
+        assertTrue(canal, canal.contains("\"watercourse\""));
+        assertTrue(canal, canal.contains("\"definitions\":[\"Artificial watercourse"));
+        assertTrue(canal, canal.contains("\"notation\":\"ENVO:00000014\""));
+        assertTrue(canal, canal.contains("\"obsolete\":false"));
+        assertTrue(lines.stream().anyMatch(line -> line.contains("\"obsolete\":true")));
+    }
+
+    @Test
+    public void parse_MappingsExport_SortedXrefs() throws Exception {
+        ParserInvocation pi = new ParserInvocation("./src/test/resources/repo/input/envo",
+                "./src/test/resources/repo/output/envo_mappings", "envo-basic.obo", true);
+        pi.setMappingsExport(true);
+        FileUtils.forceMkdir(new File(pi.getOutputRepositoryFolder()));
+        OntologyParser parser = new OntologyParser(pi);
+        assertTrue(parser.parse());
+
+        List<String> lines = Files.readAllLines(pi.getMappingsFile().toPath(), StandardCharsets.UTF_8);
+        assertEquals("subject\tpredicate\tobject", lines.get(0));
+        assertTrue(lines.contains("http://purl.obolibrary.org/obo/ENVO_00000014\t"
+                + "http://www.geneontology.org/formats/oboInOwl#hasDbXref\tEcoLexicon:canal"));
+        for (int i = 2; i < lines.size(); i++) {
+            assertTrue(lines.get(i), lines.get(i - 1).compareTo(lines.get(i)) < 0);
+        }
+    }
+
     @After
     public void tearDown() throws Exception {
 
@@ -0,0 +1,86 @@
+package org.stanford.ncbo.oapiwrapper;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.formats.NQuadsDocumentFormat;
+import org.semanticweb.owlapi.formats.NQuadsDocumentFormatFactory;
+import org.semanticweb.owlapi.formats.NTriplesDocumentFormat;
+import org.semanticweb.owlapi.formats.RioTurtleDocumentFormat;
+import org.semanticweb.owlapi.formats.RioTurtleDocumentFormatFactory;
+import org.semanticweb.owlapi.io.FileDocumentSource;
+import org.semanticweb.owlapi.io.OWLParserException;
+import org.semanticweb.owlapi.model.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+public class ParallelNTriplesParserTest {
+    private static final String inputFolder = "./src/test/resources/repo/input/";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void parse_PizzaNTriplesInSmallChunks_SameAxiomsAsDefaultParser() throws Exception {
+        File file = save(new File(inputFolder + "pizza/pizza.owl"), "pizza.nt", new NTriplesDocumentFormat());
+        OWLOntology expected = load(file, new RioTurtleDocumentFormat());
+
+        OWLOntology parsed = OWLManager.createOWLOntologyManager().createOntology();
+        new ParallelNTriplesParser(new RioTurtleDocumentFormatFactory(), "nt", executor, 4 << 10)
+                .parse(new FileDocumentSource(file), parsed, new OWLOntologyLoaderConfiguration());
+
+        assertEquals(expected.getOntologyID(), parsed.getOntologyID());
+        assertEquals(expected.getAnnotations(), parsed.getAnnotations());
+        assertEquals(expected.getAxioms(), parsed.getAxioms());
+    }
+
+    @Test
+    public void parse_PizzaNQuadsInSmallChunks_SameAxiomsAsDefaultParser() throws Exception {
+        File file = save(new File(inputFolder + "pizza/pizza.owl"), "pizza.nq", new NQuadsDocumentFormat());
+        OWLOntology expected = load(file, new NQuadsDocumentFormat());
+
+        OWLOntology parsed = OWLManager.createOWLOntologyManager().createOntology();
+        new ParallelNTriplesParser(new NQuadsDocumentFormatFactory(), "nq", executor, 4 << 10)
+                .parse(new FileDocumentSource(file), parsed, new OWLOntologyLoaderConfiguration());
+
+        assertEquals(expected.getOntologyID(), parsed.getOntologyID());
+        assertEquals(expected.getAxioms(), parsed.getAxioms());
+    }
+
+    @Test(expected = OWLParserException.class)
+    public void parse_TurtleDocument_Rejected() throws Exception {
+        File file = save(new File(inputFolder + "pizza/pizza.owl"), "pizza.ttl", new RioTurtleDocumentFormat());
+        OWLOntology parsed = OWLManager.createOWLOntologyManager().createOntology();
+        new ParallelNTriplesParser(new RioTurtleDocumentFormatFactory(), "nt", executor, 4 << 10)
+                .parse(new FileDocumentSource(file), parsed, new OWLOntologyLoaderConfiguration());
+    }
+
+    private File save(File source, String name, OWLDocumentFormat format) throws Exception {
+        OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+        OWLOntology ontology = manager.loadOntologyFromOntologyDocument(source);
+        File file = new File(folder.getRoot(), name);
+        try (OutputStream out = new FileOutputStream(file)) {
+            manager.saveOntology(ontology, format, out);
+        }
+        return file;
+    }
+
+    private static OWLOntology load(File file, OWLDocumentFormat format) throws Exception {
+        return OWLManager.createOWLOntologyManager().loadOntologyFromOntologyDocument(new FileDocumentSource(file, format));
+    }
+}
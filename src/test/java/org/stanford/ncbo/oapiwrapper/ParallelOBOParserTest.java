@@ -0,0 +1,79 @@
+package org.stanford.ncbo.oapiwrapper;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.io.FileDocumentSource;
+import org.semanticweb.owlapi.model.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+public class ParallelOBOParserTest {
+    private static final String inputFolder = "./src/test/resources/repo/input/";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void parse_ENVOInSmallChunks_SameAxiomsAsDefaultParser() throws Exception {
+        assertSameAxioms(new File(inputFolder + "envo/envo-basic.obo"), 16 << 10);
+    }
+
+    @Test
+    public void parse_FrameSplitAcrossChunks_SameAxiomsAsDefaultParser() throws Exception {
+        StringBuilder document = new StringBuilder("format-version: 1.2\ndata-version: 2024-01-01\ndefault-namespace: test\n\n");
+        for (int i = 0; i < 200; i++) {
+            document.append("[Term]\nid: TEST:").append(i % 50).append("\nname: term ").append(i).append('\n');
+            if (i % 3 == 0) {
+                document.append("namespace: other\n");
+            }
+            document.append("is_a: TEST:").append((i + 1) % 50).append(" ! parent\n\n");
+        }
+        document.append("[Typedef]\nid: part_of\nname: part of\n");
+        File file = folder.newFile("test.obo");
+        Files.write(file.toPath(), document.toString().getBytes(StandardCharsets.UTF_8));
+
+        assertSameAxioms(file, 256);
+
+        ParallelOBOParser.Factory factory = new ParallelOBOParser.Factory(executor, 256);
+        OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+        manager.getOntologyParsers().add(factory);
+        OWLOntology ontology = manager.loadOntologyFromOntologyDocument(file);
+        assertEquals("2024-01-01", factory.getDataVersion(manager.getOntologyDocumentIRI(ontology)));
+    }
+
+    /**
+     * Parses the document with the parallel parser alone, so that a fallback cannot hide a
+     * difference, and compares the result with the default parser.
+     */
+    private void assertSameAxioms(File file, int chunkSize) throws Exception {
+        OWLOntologyLoaderConfiguration conf = new OWLOntologyLoaderConfiguration()
+                .setMissingImportHandlingStrategy(MissingImportHandlingStrategy.SILENT);
+        OWLOntology expected = OWLManager.createOWLOntologyManager()
+                .loadOntologyFromOntologyDocument(new FileDocumentSource(file), conf);
+
+        OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+        OWLOntology parsed = manager.createOntology();
+        new ParallelOBOParser(executor, chunkSize).parse(new FileDocumentSource(file), parsed, conf);
+
+        assertEquals(expected.getOntologyID(), parsed.getOntologyID());
+        assertEquals(expected.getAnnotations(), parsed.getAnnotations());
+        assertEquals(expected.getImportsDeclarations(), parsed.getImportsDeclarations());
+        assertEquals(expected.getAxioms(), parsed.getAxioms());
+    }
+}
@@ -0,0 +1,79 @@
+package org.stanford.ncbo.oapiwrapper;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ParserLogTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void addError_ManyOfOneCode_CountedButSampled() {
+        ParserLog log = new ParserLog();
+        for (int i = 0; i < 1000; i++) {
+            log.addError(ParserError.OWL_IMPORT_MISSING, "http://example.org/import" + i);
+        }
+        log.addError(ParserError.OWL_PARSE_EXCEPTION, "broken");
+
+        assertTrue(log.hasErrors());
+        assertEquals(Long.valueOf(1000), log.getErrorCounts().get(ParserError.OWL_IMPORT_MISSING));
+        assertEquals(OntologyParserConstants.ERROR_SAMPLES_PER_CODE + 1, log.getErrors().size());
+        assertTrue(log.toString().contains((1000 - OntologyParserConstants.ERROR_SAMPLES_PER_CODE) + " more OWL_IMPORT_MISSING"));
+
+        log.flush();
+        assertFalse(log.hasErrors());
+        assertTrue(log.getErrors().isEmpty());
+    }
+
+    @Test
+    public void addError_ConcurrentStages_AllCounted() throws Exception {
+        ParserLog log = new ParserLog();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    log.addError(ParserError.OWL_IMPORT_MISSING, "import");
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(Long.valueOf(40000), log.getErrorCounts().get(ParserError.OWL_IMPORT_MISSING));
+        assertEquals(OntologyParserConstants.ERROR_SAMPLES_PER_CODE, log.getErrors().size());
+    }
+
+    @Test
+    public void writeTo_NullMessage_Written() throws Exception {
+        ParserLog log = new ParserLog();
+        log.addError(ParserError.INPUT_REPO_MISSING);
+        File file = new File(folder.getRoot(), OntologyParserConstants.ERRORS_FILE);
+        log.writeTo(file);
+        assertTrue(FileUtils.readFileToString(file, StandardCharsets.UTF_8).contains("Error: INPUT_REPO_MISSING"));
+    }
+
+    @Test
+    public void writeJsonTo_Errors_CountsAndMessages() throws Exception {
+        ParserLog log = new ParserLog();
+        log.addError(ParserError.OWL_IMPORT_MISSING, "http://example.org/a");
+        log.addError(ParserError.OWL_IMPORT_MISSING, "http://example.org/b");
+        log.addError(ParserError.MASTER_FILE_MISSING);
+        File file = new File(folder.getRoot(), OntologyParserConstants.ERRORS_JSON_FILE);
+        log.writeJsonTo(file);
+
+        String json = FileUtils.readFileToString(file, StandardCharsets.UTF_8).replaceAll("\\s", "");
+        assertTrue(json.contains("{\"code\":\"OWL_IMPORT_MISSING\",\"count\":2,\"messages\":[\"http://example.org/a\",\"http://example.org/b\"]}"));
+        assertTrue(json.contains("{\"code\":\"MASTER_FILE_MISSING\",\"count\":1,\"messages\":[]}"));
+    }
+}
@@ -0,0 +1,55 @@
+package org.stanford.ncbo.oapiwrapper;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ParserStageEventTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void parse_Recording_EventPerStage() throws Exception {
+        ParserInvocation pi = new ParserInvocation("./src/test/resources/repo/input/pizza",
+                folder.newFolder("output").getPath(), "pizza.owl", true);
+        pi.setInvocationId(42);
+
+        Path file = folder.getRoot().toPath().resolve("parse.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(ParserStageEvent.class).withThreshold(Duration.ZERO);
+            recording.start();
+            assertTrue(new OntologyParser(pi).parse());
+            recording.stop();
+            recording.dump(file);
+        }
+
+        Map<String, RecordedEvent> events = new HashMap<String, RecordedEvent>();
+        for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+            if (event.getInt("invocationId") == 42) {
+                events.put(event.getString("stage"), event);
+            }
+        }
+
+        for (String stage : new String[] { "discovery", "load", "metrics", "ground metadata", "prefix notations",
+                "XML literals", "inferred hierarchy", "deprecated branches", "serialization" }) {
+            assertTrue(stage, events.containsKey(stage));
+            assertEquals("pizza.owl", events.get(stage).getString("ontologyFile"));
+        }
+        assertEquals(0, events.get("discovery").getLong("sourceAxioms"));
+        assertTrue(events.get("load").getLong("sourceAxioms") > 0);
+        assertEquals(0, events.get("load").getLong("targetAxioms"));
+        assertTrue(events.get("axiom collection").getLong("traversalTime") > 0);
+        assertTrue(events.get("serialization").getLong("targetAxioms") >= events.get("load").getLong("sourceAxioms"));
+    }
+}
@@ -0,0 +1,48 @@
+package org.stanford.ncbo.oapiwrapper;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class ProgressReporterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void close_TrackedStage_WritesCountsAndTotals() throws Exception {
+        File file = new File(folder.getRoot(), OntologyParserConstants.PROGRESS_FILE);
+        try (ProgressReporter progress = new ProgressReporter(file)) {
+            progress.startStage("transformation");
+            progress.trackStep(() -> "traversal");
+            progress.trackAxioms(() -> 10, () -> 40);
+            progress.trackClasses(() -> 3, () -> -1);
+        }
+
+        String json = FileUtils.readFileToString(file, StandardCharsets.UTF_8);
+        assertTrue(json, json.contains("\"stage\" : \"transformation\""));
+        assertTrue(json, json.contains("\"step\" : \"traversal\""));
+        assertTrue(json, json.contains("\"finished\" : true"));
+        assertTrue(json, json.replaceAll("\\s", "").contains("\"axioms\":{\"processed\":10,\"total\":40}"));
+        assertTrue(json, json.replaceAll("\\s", "").contains("\"classes\":{\"processed\":3,\"total\":null}"));
+        assertTrue(json, json.contains("\"usedBytes\""));
+        assertEquals(1, folder.getRoot().list().length);
+    }
+
+    @Test
+    public void parse_OutputFolder_ProgressDone() throws Exception {
+        File output = folder.newFolder("output");
+        ParserInvocation pi = new ParserInvocation("./src/test/resources/repo/input/pizza", output.getPath(), "pizza.owl", true);
+        assertTrue(new OntologyParser(pi).parse());
+
+        String json = FileUtils.readFileToString(new File(output, OntologyParserConstants.PROGRESS_FILE), StandardCharsets.UTF_8);
+        assertTrue(json, json.contains("\"stage\" : \"done\""));
+        assertTrue(json, json.contains("\"finished\" : true"));
+    }
+}
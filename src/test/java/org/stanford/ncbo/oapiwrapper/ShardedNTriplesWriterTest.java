@@ -0,0 +1,97 @@
+package org.stanford.ncbo.oapiwrapper;
+
+import org.eclipse.rdf4j.model.Model;
+import org.eclipse.rdf4j.model.impl.LinkedHashModel;
+import org.eclipse.rdf4j.model.util.Models;
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.eclipse.rdf4j.rio.Rio;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.formats.NTriplesDocumentFormat;
+import org.semanticweb.owlapi.model.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+public class ShardedNTriplesWriterTest {
+    private static final String NS = "http://example.org/test#";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void write_AnonymousIndividuals_UnionIsSingleFileGraph() throws Exception {
+        OWLOntology ontology = createOntology();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            ShardedNTriplesWriter writer = new ShardedNTriplesWriter(ontology, 4, folder.newFolder("concurrent"),
+                    OutputCompression.NONE, executor);
+            Model shards = union(writer.write());
+            assertTrue(Models.isomorphic(singleFile(ontology), shards));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void write_Sequential_UnionIsSingleFileGraph() throws Exception {
+        OWLOntology ontology = createOntology();
+        ShardedNTriplesWriter writer = new ShardedNTriplesWriter(ontology, 3, folder.newFolder("sequential"),
+                OutputCompression.NONE, null);
+        writer.setSequential(true);
+        List<ShardedNTriplesWriter.Shard> shards = writer.write();
+
+        assertEquals(3, shards.size());
+        assertTrue(Models.isomorphic(singleFile(ontology), union(shards)));
+    }
+
+    private static OWLOntology createOntology() throws OWLOntologyCreationException {
+        OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+        OWLDataFactory factory = manager.getOWLDataFactory();
+        OWLOntology ontology = manager.createOntology(new OWLOntologyID(IRI.create("http://example.org/test"),
+                IRI.create("http://example.org/test/1.0")));
+        OWLObjectProperty partOf = factory.getOWLObjectProperty(IRI.create(NS + "partOf"));
+        OWLDataProperty weight = factory.getOWLDataProperty(IRI.create(NS + "weight"));
+        OWLAnnotationProperty comment = factory.getRDFSComment();
+        for (int i = 0; i < 20; i++) {
+            OWLClass cls = factory.getOWLClass(IRI.create(NS + "C" + i));
+            manager.addAxiom(ontology, factory.getOWLDeclarationAxiom(cls));
+            manager.addAxiom(ontology, factory.getOWLSubClassOfAxiom(cls,
+                    factory.getOWLObjectSomeValuesFrom(partOf, factory.getOWLClass(IRI.create(NS + "C" + (i + 1))))));
+
+            OWLAnonymousIndividual individual = factory.getOWLAnonymousIndividual();
+            OWLNamedIndividual named = factory.getOWLNamedIndividual(IRI.create(NS + "i" + i));
+            manager.addAxiom(ontology, factory.getOWLClassAssertionAxiom(cls, individual));
+            manager.addAxiom(ontology, factory.getOWLObjectPropertyAssertionAxiom(partOf, individual, named));
+            manager.addAxiom(ontology, factory.getOWLDataPropertyAssertionAxiom(weight, individual, i));
+            manager.addAxiom(ontology, factory.getOWLAnnotationAssertionAxiom(comment, individual,
+                    factory.getOWLLiteral("individual " + i)));
+        }
+        return ontology;
+    }
+
+    private static Model singleFile(OWLOntology ontology) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ontology.getOWLOntologyManager().saveOntology(ontology, new NTriplesDocumentFormat(), out);
+        return Rio.parse(new ByteArrayInputStream(out.toByteArray()), "", RDFFormat.NTRIPLES);
+    }
+
+    private static Model union(List<ShardedNTriplesWriter.Shard> shards) throws Exception {
+        Model model = new LinkedHashModel();
+        for (ShardedNTriplesWriter.Shard shard : shards) {
+            try (InputStream in = Files.newInputStream(shard.getFile().toPath())) {
+                model.addAll(Rio.parse(in, "", RDFFormat.NTRIPLES));
+            }
+        }
+        return model;
+    }
+}
@@ -0,0 +1,73 @@
+package org.stanford.ncbo.oapiwrapper;
+
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.io.FileDocumentSource;
+import org.semanticweb.owlapi.model.*;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class StreamingRDFXMLParserTest {
+    private static final String inputFolder = "./src/test/resources/repo/input/";
+
+    @Test
+    public void parse_EDAM_SameAxiomsAsDefaultParser() throws Exception {
+        assertSameAxioms(new File(inputFolder + "edam/EDAM_1.16.owl"));
+    }
+
+    @Test
+    public void parse_Pizza_SameAxiomsAsDefaultParser() throws Exception {
+        assertSameAxioms(new File(inputFolder + "pizza/pizza.owl"));
+    }
+
+    @Test
+    public void parse_CNO_SameAxiomsAsDefaultParser() throws Exception {
+        assertSameAxioms(new File(inputFolder + "cno/cnov0_5.owl"));
+    }
+
+    @Test
+    public void loadOntology_XMLLiteral_FallsBackToDefaultParser() throws Exception {
+        File file = new File(inputFolder + "misc/testXMLLiteral.owl");
+        OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+        manager.getOntologyParsers().add(new StreamingRDFXMLParser.Factory());
+        OWLOntology streamed = manager.loadOntologyFromOntologyDocument(file);
+        OWLOntology expected = OWLManager.createOWLOntologyManager().loadOntologyFromOntologyDocument(file);
+        assertEquals(expected.getAxioms(), streamed.getAxioms());
+    }
+
+    /**
+     * Parses the document with the streaming parser alone, so that a fallback cannot hide a
+     * difference, and compares the result with the default parser.
+     */
+    private static void assertSameAxioms(File file) throws Exception {
+        OWLOntologyLoaderConfiguration conf = new OWLOntologyLoaderConfiguration()
+                .setMissingImportHandlingStrategy(MissingImportHandlingStrategy.SILENT);
+        OWLOntology expected = OWLManager.createOWLOntologyManager()
+                .loadOntologyFromOntologyDocument(new FileDocumentSource(file), conf);
+
+        OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+        OWLOntology streamed = manager.createOntology();
+        new StreamingRDFXMLParser().parse(new FileDocumentSource(file), streamed, conf);
+
+        assertEquals(expected.getOntologyID(), streamed.getOntologyID());
+        assertEquals(expected.getAnnotations(), streamed.getAnnotations());
+        assertEquals(expected.getImportsDeclarations(), streamed.getImportsDeclarations());
+        assertEquals(expected.getAxiomCount(), streamed.getAxiomCount());
+        // Blank node labels come from a global counter and differ between two loads
+        assertEquals(namedAxioms(expected), namedAxioms(streamed));
+    }
+
+    private static Set<OWLAxiom> namedAxioms(OWLOntology ontology) {
+        Set<OWLAxiom> axioms = new HashSet<OWLAxiom>();
+        for (OWLAxiom axiom : ontology.getAxioms()) {
+            if (axiom.getAnonymousIndividuals().isEmpty()) {
+                axioms.add(axiom);
+            }
+        }
+        return axioms;
+    }
+}
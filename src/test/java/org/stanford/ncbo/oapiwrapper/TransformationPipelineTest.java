@@ -0,0 +1,98 @@
+package org.stanford.ncbo.oapiwrapper;
+
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class TransformationPipelineTest {
+
+    private static class RecordingStage implements OntologyStage {
+        private final String name;
+        private final boolean visitSecond;
+        private final List<String> events;
+        final Set<OWLAxiom> axioms = new HashSet<OWLAxiom>();
+        final Set<OWLClass> classes = new HashSet<OWLClass>();
+        int axiomVisits = 0;
+
+        RecordingStage(String name, boolean visitSecond, List<String> events) {
+            this.name = name;
+            this.visitSecond = visitSecond;
+            this.events = events;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public boolean isAxiomVisitor() {
+            return true;
+        }
+
+        @Override
+        public boolean isClassVisitor() {
+            return true;
+        }
+
+        @Override
+        public boolean startOntology(OWLOntology source) {
+            return visitSecond || source.getOntologyID().getOntologyIRI().get().toString().endsWith("first");
+        }
+
+        @Override
+        public void visitAxiom(OWLAxiom axiom) {
+            axioms.add(axiom);
+            axiomVisits++;
+        }
+
+        @Override
+        public void visitClass(OWLClass cls) {
+            classes.add(cls);
+        }
+
+        @Override
+        public void finish() {
+            events.add(name);
+        }
+    }
+
+    private static OWLOntology createOntology(OWLOntologyManager manager, String name, int classCount) throws OWLOntologyCreationException {
+        OWLDataFactory factory = manager.getOWLDataFactory();
+        OWLOntology ontology = manager.createOntology(IRI.create("http://example.org/" + name));
+        for (int i = 0; i < classCount; i++) {
+            OWLClass cls = factory.getOWLClass(IRI.create("http://example.org/" + name + "#C" + i));
+            manager.addAxiom(ontology, factory.getOWLDeclarationAxiom(cls));
+        }
+        return ontology;
+    }
+
+    @Test
+    public void run_TwoOntologies_EachAxiomVisitedOncePerStage() throws Exception {
+        OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+        OWLOntology first = createOntology(manager, "first", OntologyParserConstants.STAGE_BATCH_SIZE * 2 + 5);
+        OWLOntology second = createOntology(manager, "second", 10);
+        List<String> events = new ArrayList<String>();
+        RecordingStage all = new RecordingStage("all", true, events);
+        RecordingStage firstOnly = new RecordingStage("first only", false, events);
+
+        TransformationPipeline pipeline = new TransformationPipeline(Arrays.<OntologyStage>asList(all, firstOnly));
+        pipeline.run(Arrays.asList(first, second));
+
+        assertEquals(first.getAxiomCount() + second.getAxiomCount(), all.axiomVisits);
+        assertEquals(first.getAxioms(), firstOnly.axioms);
+        assertEquals(first.getAxiomCount(), firstOnly.axiomVisits);
+        assertEquals(first.getClassesInSignature().size() + second.getClassesInSignature().size(), all.classes.size());
+        assertEquals(Arrays.asList("all", "first only"), events);
+        assertEquals(4, pipeline.getPasses());
+        assertEquals(2, pipeline.getStageNanos().length);
+    }
+}
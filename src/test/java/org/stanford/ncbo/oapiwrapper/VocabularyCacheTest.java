@@ -0,0 +1,34 @@
+package org.stanford.ncbo.oapiwrapper;
+
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.OWLAnnotationProperty;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+
+import static org.junit.Assert.*;
+
+public class VocabularyCacheTest {
+
+    @Test
+    public void getIRI_SameString_SameInstance() {
+        assertSame(VocabularyCache.getIRI("http://data.bioontology.org/metadata/treeView"),
+                VocabularyCache.getIRI("http://data.bioontology.org/metadata/treeView"));
+    }
+
+    @Test
+    public void getAnnotationProperty_OtherFactory_EqualToFactoryProperty() {
+        OWLDataFactory first = OWLManager.createOWLOntologyManager().getOWLDataFactory();
+        OWLDataFactory second = OWLManager.createOWLOntologyManager().getOWLDataFactory();
+        String iri = "http://www.w3.org/2004/02/skos/core#notation";
+
+        OWLAnnotationProperty cached = VocabularyCache.getAnnotationProperty(first, iri);
+        assertSame(cached, VocabularyCache.getAnnotationProperty(second, iri));
+        assertEquals(second.getOWLAnnotationProperty(VocabularyCache.getIRI(iri)), cached);
+    }
+
+    @Test
+    public void getLiteral_PlainString_EqualToFactoryLiteral() {
+        OWLDataFactory factory = OWLManager.createOWLOntologyManager().getOWLDataFactory();
+        assertEquals(factory.getOWLLiteral("ENVO:00000001"), VocabularyCache.getLiteral(factory, "ENVO:00000001"));
+    }
+}